@@ -0,0 +1,101 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.watson.self.blackboard.BlackBoard;
+import com.ibm.watson.self.blackboard.IBlackBoard;
+import com.ibm.watson.self.blackboard.IThing.ThingEventType;
+import com.ibm.watson.self.blackboard.ThingEvent;
+
+/**
+ * BlackBoard.onEvent for an add_object notification, from the raw event
+ * string to the last subscriber callback, as the number of subscribers to
+ * the thing's type grows. Subscribers to other types and events are
+ * registered alongside to keep the lookup honest. Mailboxes run on the
+ * calling thread so the time includes every callback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+public class BlackBoardBenchmark {
+
+	private static final String[] OTHER_TYPES = { "Person", "Say", "Goal", "ProxyIntent", "EmotionalState" };
+
+	@Param({ "1", "16", "256" })
+	public int subscribers;
+
+	@Param({ "text", "body" })
+	public String payload;
+
+	private BlackBoard blackboard;
+	private Counter counter;
+	private String event;
+
+	@Setup
+	public void setUp() throws IOException {
+		Loopback.connect();
+		blackboard = new BlackBoard();
+		blackboard.setExecutor(new Executor() {
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+		counter = new Counter();
+		for(int i = 0; i < subscribers; i++) {
+			blackboard.subscribeToType("Text", ThingEventType.TE_ADDED, counter, "");
+			blackboard.subscribeToType("SelfInstance", ThingEventType.TE_ADDED, counter, "");
+			blackboard.subscribeToType(OTHER_TYPES[i % OTHER_TYPES.length], ThingEventType.TE_ADDED, counter, "");
+		}
+		blackboard.subscribeToType("Text", ThingEventType.TE_REMOVED, counter, "");
+		event = Payloads.addObject(Payloads.thing(payload));
+	}
+
+	@Benchmark
+	public long dispatch() {
+		blackboard.onEvent(event);
+		return counter.events;
+	}
+
+	private static class Counter implements IBlackBoard {
+
+		long events = 0;
+
+		public void onThingEvent(ThingEvent thingEvent) {
+			events++;
+		}
+	}
+}
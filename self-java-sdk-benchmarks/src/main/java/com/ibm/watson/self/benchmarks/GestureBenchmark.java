@@ -0,0 +1,119 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.gestures.GestureConstants;
+import com.ibm.watson.self.gestures.GestureManager;
+import com.ibm.watson.self.gestures.IGesture;
+
+/**
+ * GestureManager queueing: the time from an execute_gesture event arriving
+ * to the gesture running and execute_done being published, for a single
+ * event and for a burst that has to wait in the queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+public class GestureBenchmark {
+
+	private static final int BURST = 16;
+
+	private InstantGesture gesture;
+	private String event;
+
+	@Setup
+	public void setUp() {
+		Loopback.connect();
+		gesture = new InstantGesture();
+		GestureManager.getInstance().addGesture(gesture, false);
+		JsonObject params = new JsonObject();
+		params.addProperty("text", "Hello, my name is Intu");
+		JsonObject wrapperObject = new JsonObject();
+		wrapperObject.addProperty(GestureConstants.EVENT, GestureConstants.EXECUTE_GESTURE);
+		wrapperObject.addProperty(GestureConstants.GESTURE_ID, gesture.getGestureId());
+		wrapperObject.addProperty(GestureConstants.INSTANCE_ID, gesture.getInstanceId());
+		wrapperObject.add(GestureConstants.PARAMS, params);
+		event = wrapperObject.toString();
+	}
+
+	@TearDown
+	public void tearDown() {
+		GestureManager.getInstance().removeGesture(gesture);
+	}
+
+	@Benchmark
+	public void execute() throws InterruptedException {
+		run(1);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public void executeBurst() throws InterruptedException {
+		run(BURST);
+	}
+
+	private void run(int count) throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(count);
+		gesture.done = done;
+		for(int i = 0; i < count; i++) {
+			GestureManager.getInstance().onEvent(event);
+		}
+		if(!done.await(10, TimeUnit.SECONDS))
+			throw new IllegalStateException("Gesture queue stalled");
+	}
+
+	/**
+	 * A speech gesture that finishes as soon as it starts
+	 */
+	private static class InstantGesture implements IGesture {
+
+		volatile CountDownLatch done;
+
+		public String getGestureId() { return "tts"; }
+		public String getInstanceId() { return "benchmark"; }
+		public boolean onStart() { return true; }
+		public boolean onStop() { return true; }
+		public boolean abort() { return true; }
+
+		public boolean execute(JsonObject params) {
+			GestureManager.getInstance().onGestureDone(this, false);
+			done.countDown();
+			return true;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.benchmarks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.watson.self.topics.LoopbackTransport;
+import com.ibm.watson.self.topics.OutboundFrame;
+import com.ibm.watson.self.topics.TopicClient;
+
+import okio.Buffer;
+
+/**
+ * Connects the shared TopicClient to an in-process peer that encodes every
+ * frame as the socket would and throws it away, so the managers built on
+ * TopicClient.getInstance() can be measured without an Intu instance.
+ */
+public class Loopback implements LoopbackTransport.Peer {
+
+	private static Loopback instance = null;
+
+	private final AtomicLong frames = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * Connect TopicClient.getInstance() to the discarding peer, once per JVM
+	 * @return the peer
+	 */
+	public static synchronized Loopback connect() {
+		if(instance == null) {
+			instance = new Loopback();
+			TopicClient client = TopicClient.getInstance();
+			client.setTransport(new LoopbackTransport(instance));
+			client.setHeaders("benchmark", "token");
+			client.connect("localhost", "9443");
+		}
+		return instance;
+	}
+
+	public boolean onConnect(LoopbackTransport.Link link, String selfId, String token) {
+		return true;
+	}
+
+	public void onFrame(LoopbackTransport.Link link, OutboundFrame frame) {
+		Buffer sink = new Buffer();
+		try {
+			frame.writeTo(sink);
+		}
+		catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		frames.incrementAndGet();
+		bytes.addAndGet(sink.size());
+		sink.clear();
+	}
+
+	public void onDisconnect(LoopbackTransport.Link link) {
+	}
+
+	public long getFrames() {
+		return frames.get();
+	}
+
+	public long getBytes() {
+		return bytes.get();
+	}
+}
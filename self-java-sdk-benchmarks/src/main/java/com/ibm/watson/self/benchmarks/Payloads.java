@@ -0,0 +1,102 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.self.blackboard.BlackBoardConstants;
+import com.ibm.watson.self.blackboard.IThing;
+
+/**
+ * Payloads recorded from a real Intu instance, read from the etc directory
+ * of the repository. Set -Dself.etc if the benchmarks are not run from the
+ * benchmarks module directory.
+ */
+public class Payloads {
+
+	public static final String ETC = System.getProperty("self.etc", "../etc");
+
+	/**
+	 * @return the body of an Intu instance, a large nested object
+	 * @throws IOException if etc/tests/body.json cannot be read
+	 */
+	public static JsonObject body() throws IOException {
+		Reader reader = new InputStreamReader(Files.newInputStream(new File(ETC, "tests/body.json").toPath()), "UTF-8");
+		try {
+			return new JsonParser().parse(reader).getAsJsonObject();
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * @return the first recording in etc/tests/audio_files, raw 16 bit PCM
+	 * @throws IOException if there is none
+	 */
+	public static byte[] audio() throws IOException {
+		File[] files = new File(ETC, "tests/audio_files").listFiles();
+		if(files == null || files.length == 0)
+			throw new IOException("No audio files in " + ETC + "/tests/audio_files");
+		Arrays.sort(files);
+		return Files.readAllBytes(files[0].toPath());
+	}
+
+	/**
+	 * A thing as the blackboard would hold it
+	 * @param payload: "text" for a short utterance, "body" for the instance body
+	 * @return the thing
+	 * @throws IOException if the body cannot be read
+	 */
+	public static IThing thing(String payload) throws IOException {
+		IThing thing = new IThing();
+		if(payload.equals("body")) {
+			thing.setType("SelfInstance");
+			thing.setData(body());
+		}
+		else {
+			JsonObject data = new JsonObject();
+			data.addProperty("m_Text", "what is the weather like in austin today");
+			data.addProperty("m_fConfidence", 0.87);
+			data.addProperty("m_Language", "en-US");
+			thing.setType("Text");
+			thing.setData(data);
+		}
+		return thing;
+	}
+
+	/**
+	 * The add_object notification the blackboard sends for a thing
+	 * @param thing: the thing
+	 * @return the event string
+	 */
+	public static String addObject(IThing thing) {
+		JsonObject event = new JsonObject();
+		event.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.ADD_OBJECT);
+		event.addProperty(BlackBoardConstants.TYPE, thing.getType());
+		event.add(BlackBoardConstants.THING, thing.serialize());
+		return event.toString();
+	}
+}
@@ -0,0 +1,131 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.benchmarks;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.watson.self.extractors.IFeatureExtractor;
+import com.ibm.watson.self.sensors.ISensor;
+import com.ibm.watson.self.sensors.SensorManager;
+
+/**
+ * SensorManager.sendData for microphone audio: framing the chunk for the
+ * sensor proxy topic and handing it to local feature extractors. Frames
+ * are written to a discarding loopback peer on the writer thread, so this
+ * measures the cost to the sensor's own thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+public class SensorBenchmark {
+
+	private static final String BINARY_TYPE = "audio/L16;rate=16000";
+
+	@Param({ "0", "1", "8" })
+	public int extractors;
+
+	/** 100ms and 500ms of 16kHz 16 bit mono audio */
+	@Param({ "3200", "16000" })
+	public int chunkBytes;
+
+	private byte[][] chunks;
+	private int next = 0;
+	private ISensor sensor;
+	private Extractor[] subscribed;
+
+	@Setup
+	public void setUp() throws IOException {
+		Loopback.connect();
+		byte[] audio = Payloads.audio();
+		chunks = new byte[Math.max(1, audio.length / chunkBytes)][];
+		for(int i = 0; i < chunks.length; i++) {
+			chunks[i] = Arrays.copyOfRange(audio, i * chunkBytes, (i + 1) * chunkBytes);
+		}
+		sensor = new Microphone();
+		SensorManager.getInstance().addSensor(sensor, false);
+		subscribed = new Extractor[extractors];
+		for(int i = 0; i < extractors; i++) {
+			subscribed[i] = new Extractor("extractor-" + i);
+			SensorManager.getInstance().addSubscriber(subscribed[i]);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		for(Extractor extractor : subscribed) {
+			SensorManager.getInstance().removeSubscriber(extractor);
+		}
+		SensorManager.getInstance().removeSensor(sensor);
+	}
+
+	@Benchmark
+	public void sendData() {
+		SensorManager.getInstance().sendData(sensor, chunks[next]);
+		next = (next + 1) % chunks.length;
+	}
+
+	private static class Microphone implements ISensor {
+
+		public String getSensorId() { return "benchmark-microphone"; }
+		public String getSensorName() { return "Microphone"; }
+		public String getDataType() { return "AudioData"; }
+		public String getBinaryType() { return BINARY_TYPE; }
+		public boolean onStart() { return true; }
+		public boolean onStop() { return true; }
+		public void onPause() {}
+		public void onResume() {}
+	}
+
+	private static class Extractor implements IFeatureExtractor {
+
+		private final String id;
+		long bytes = 0;
+
+		Extractor(String id) {
+			this.id = id;
+		}
+
+		public String getFeatureExtractorName() { return id; }
+		public String getFeatureExtractorId() { return id; }
+		public String getBinaryData() { return BINARY_TYPE; }
+		public boolean onStart() { return true; }
+		public boolean onStop() { return true; }
+
+		public void onData(byte[] data) {
+			bytes += data.length;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.topics.Utf8SinkWriter;
+
+import okio.Buffer;
+
+/**
+ * IThing.serialize and deserialize, for a short Text thing and for a thing
+ * carrying the whole instance body. serializeStreaming writes utf-8 into an
+ * okio buffer the way an outbound frame does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+public class ThingBenchmark {
+
+	@Param({ "text", "body" })
+	public String payload;
+
+	private IThing thing;
+	private JsonObject serialized;
+	private String json;
+	private final Buffer buffer = new Buffer();
+
+	@Setup
+	public void setUp() throws IOException {
+		thing = Payloads.thing(payload);
+		serialized = thing.serialize();
+		json = serialized.toString();
+	}
+
+	@Benchmark
+	public JsonObject serialize() {
+		return thing.serialize();
+	}
+
+	@Benchmark
+	public String serializeToString() {
+		return thing.serialize().toString();
+	}
+
+	@Benchmark
+	public long serializeStreaming() throws IOException {
+		buffer.clear();
+		JsonWriter writer = new JsonWriter(new Utf8SinkWriter(buffer));
+		thing.serialize(writer);
+		writer.flush();
+		return buffer.size();
+	}
+
+	@Benchmark
+	public IThing deserialize() {
+		IThing decoded = new IThing();
+		decoded.deserialize(serialized);
+		return decoded;
+	}
+
+	@Benchmark
+	public IThing parseAndDeserialize() {
+		IThing decoded = new IThing();
+		decoded.deserialize(new JsonParser().parse(json).getAsJsonObject());
+		return decoded;
+	}
+}
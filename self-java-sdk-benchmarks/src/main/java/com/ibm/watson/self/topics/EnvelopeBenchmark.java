@@ -0,0 +1,127 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.benchmarks.BenchmarkRunner;
+import com.ibm.watson.self.benchmarks.Payloads;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Encoding a publish into the bytes written to the socket, both the way
+ * TopicClient.publish builds the envelope per call and the way a
+ * TopicChannel appends the data to a cached prefix. Lives in the topics
+ * package to reach the frame factories the client uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOG_CONFIG)
+public class EnvelopeBenchmark {
+
+	private static final String PATH = "conversation";
+	private static final String SENSOR_PATH = "sensor-proxy-microphone";
+
+	@Param({ "text", "body" })
+	public String payload;
+
+	private TopicClient client;
+	private String data;
+	private ByteBuffer audio;
+	private ByteString textPrefix;
+	private ByteString binaryPrefix;
+	private final Buffer sink = new Buffer();
+
+	@Setup
+	public void setUp() throws IOException {
+		client = new TopicClient();
+		client.setHeaders("benchmark", "token");
+		data = Payloads.thing(payload).serialize().toString();
+		audio = ByteBuffer.wrap(Arrays.copyOf(Payloads.audio(), 3200));
+		textPrefix = prefix(PATH, false);
+		binaryPrefix = prefix(SENSOR_PATH, true);
+	}
+
+	@TearDown
+	public void tearDown() {
+		client.close();
+	}
+
+	private ByteString prefix(String path, boolean binary) {
+		JsonObject envelope = client.createEnvelope(path, binary, false);
+		envelope.addProperty(TopicConstants.ORIGIN, client.getOrigin());
+		String json = envelope.toString();
+		return ByteString.encodeUtf8(json.substring(0, json.length() - 1) 
+				+ ",\"" + TopicConstants.DATA + "\":");
+	}
+
+	@Benchmark
+	public long text() throws IOException {
+		JsonObject envelope = client.createEnvelope(PATH, false, false);
+		envelope.addProperty(TopicConstants.DATA, data);
+		envelope.addProperty(TopicConstants.ORIGIN, client.getOrigin());
+		return write(new OutboundFrame(PATH, envelope));
+	}
+
+	@Benchmark
+	public long textChannel() throws IOException {
+		return write(OutboundFrame.prefixed(PATH, textPrefix, data));
+	}
+
+	@Benchmark
+	public long binary() throws IOException {
+		JsonObject envelope = client.createEnvelope(SENSOR_PATH, true, false);
+		envelope.addProperty(TopicConstants.DATA, audio.remaining());
+		envelope.addProperty(TopicConstants.ORIGIN, client.getOrigin());
+		return write(new OutboundFrame(SENSOR_PATH, OutboundFrame.encodeHeader(envelope), audio.duplicate()));
+	}
+
+	@Benchmark
+	public long binaryChannel() throws IOException {
+		return write(OutboundFrame.prefixed(SENSOR_PATH, binaryPrefix, audio.duplicate()));
+	}
+
+	private long write(OutboundFrame frame) throws IOException {
+		frame.writeTo(sink);
+		long size = sink.size();
+		sink.clear();
+		return size;
+	}
+}
@@ -23,15 +23,13 @@ import java.util.UUID;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.ibm.watson.self.blackboard.BlackBoard;
 import com.ibm.watson.self.blackboard.IBlackBoard;
 import com.ibm.watson.self.blackboard.IThing;
 import com.ibm.watson.self.blackboard.ThingEvent;
 import com.ibm.watson.self.blackboard.IThing.ThingEventType;
+import com.ibm.watson.self.blackboard.things.ProxyIntent;
 
 /**
  * This agent entertains a person by starting a game on game_intent. When the game is started, it plays sound of an animal 
@@ -59,26 +57,22 @@ public class GameAgent implements IAgent, IBlackBoard {
 	
 	public void onThingEvent(ThingEvent thingEvent) {
 		String type = thingEvent.getThing().getType();
-		if(type.equals("ProxyIntent")) {
-			onProxyIntent(thingEvent.getThing());
+		if(type.equals(ProxyIntent.TYPE)) {
+			onProxyIntent(thingEvent.getDecoded(ProxyIntent.class));
 		}
 	}
 	
-	private void onProxyIntent(IThing thing) {
+	private void onProxyIntent(ProxyIntent intent) {
 		logger.entry();
-		JsonParser parser = new JsonParser();
-		JsonObject intentObject = parser.parse(thing.toString()).getAsJsonObject();
-		logger.info(intentObject);
-		if(intentObject.get("m_Intent").getAsJsonObject().get("conversation")
-				.getAsJsonObject().get("intents").getAsJsonArray()
-				.get(0).getAsJsonObject().get("intent").getAsString().equals("game_intent"))
+		if(intent == null)
+			return;
+		logger.info(intent);
+		if("game_intent".equals(intent.getIntent()))
 		{
 			onGameIntent();
 		}
-		else if(intentObject.get("m_Intent").getAsJsonObject().get("conversation")
-				.getAsJsonObject().get("intents").getAsJsonArray()
-				.get(0).getAsJsonObject().get("intent").getAsString().equals("animal_intent")) {
-			onAnimalIntent(intentObject);
+		else if("animal_intent".equals(intent.getIntent())) {
+			onAnimalIntent(intent);
 		}
 
 	}
@@ -97,17 +91,8 @@ public class GameAgent implements IAgent, IBlackBoard {
 		BlackBoard.getInstance().addThing(sayThing, "");
 	}
 	
-	private void onAnimalIntent(JsonObject intentObject) {
-		JsonArray entities = intentObject.get("m_Intent").getAsJsonObject().get("conversation")
-				.getAsJsonObject().get("entities").getAsJsonArray();
-		String targetAnimal = null;
-		for(JsonElement e : entities) {
-			JsonObject element = e.getAsJsonObject();
-			if(element.get("entity").getAsString().equals("animals")) {
-				targetAnimal = element.get("value").getAsString();
-				break;
-			}
-		}
+	private void onAnimalIntent(ProxyIntent intent) {
+		String targetAnimal = intent.getEntity("animals");
 		
 		if(targetAnimal != null && animal != null) {
 			if(targetAnimal.equals(animal)) {
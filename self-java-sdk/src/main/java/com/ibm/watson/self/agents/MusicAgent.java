@@ -27,6 +27,7 @@ import com.ibm.watson.self.blackboard.IBlackBoard;
 import com.ibm.watson.self.blackboard.IThing;
 import com.ibm.watson.self.blackboard.ThingEvent;
 import com.ibm.watson.self.blackboard.IThing.ThingEventType;
+import com.ibm.watson.self.blackboard.things.MusicBeat;
 
 /**
  * The agent perfoms gestures based on the beats of the music
@@ -48,8 +49,8 @@ public class MusicAgent implements IAgent, IBlackBoard {
 	
 	public void onThingEvent(ThingEvent thingEvent) {
 		String type = thingEvent.getThing().getType();
-		if(type.equals("MusicBeat")) {
-			onMusicBeat(thingEvent.getThing());
+		if(type.equals(MusicBeat.TYPE)) {
+			onMusicBeat(thingEvent.getDecoded(MusicBeat.class));
 		}
 		else if(type.equals("MusicTempo")) {
 			onMusicTempo(thingEvent.getThing());
@@ -78,8 +79,9 @@ public class MusicAgent implements IAgent, IBlackBoard {
 		bpm = thing.getData().get("BPM").getAsInt();	
 	}
 
-	private void onMusicBeat(IThing thing) {
-		bpm = thing.getData().get("BPM").getAsInt();
+	private void onMusicBeat(MusicBeat beat) {
+		if(beat != null)
+			bpm = beat.getBpm();
 		// TODO: Execute gesture here with bpm data
 	}
 
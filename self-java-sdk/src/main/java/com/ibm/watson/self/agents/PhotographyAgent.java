@@ -23,12 +23,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.ibm.watson.self.blackboard.BlackBoard;
 import com.ibm.watson.self.blackboard.IBlackBoard;
 import com.ibm.watson.self.blackboard.IThing;
 import com.ibm.watson.self.blackboard.IThing.ThingEventType;
 import com.ibm.watson.self.blackboard.ThingEvent;
+import com.ibm.watson.self.blackboard.things.ProxyIntent;
 import com.ibm.watson.self.sensors.ILocalSensorSubscriber;
 
 /**
@@ -56,8 +56,8 @@ public class PhotographyAgent implements IAgent, IBlackBoard, ILocalSensorSubscr
 		if(type.equals("Person")) {
 			onPerson(thingEvent.getThing());
 		}
-		else if(type.equals("ProxyIntent")) {
-			onProxyIntent(thingEvent.getThing());
+		else if(type.equals(ProxyIntent.TYPE)) {
+			onProxyIntent(thingEvent.getThing(), thingEvent.getDecoded(ProxyIntent.class));
 		}
 		else if(type.equals("Object")) {
 			onObject(thingEvent.getThing());
@@ -67,13 +67,9 @@ public class PhotographyAgent implements IAgent, IBlackBoard, ILocalSensorSubscr
 		}
 	}
 
-	private void onProxyIntent(IThing thing) {
+	private void onProxyIntent(IThing thing, ProxyIntent intent) {
 		logger.entry();
-		JsonParser parser = new JsonParser();
-		JsonObject intentObject = parser.parse(thing.toString()).getAsJsonObject();
-		if(!intentObject.get("m_Intent").getAsJsonObject().get("conversation")
-				.getAsJsonObject().get("intents").getAsJsonArray()
-				.get(0).getAsJsonObject().get("intent").getAsString().equals("photography_intent"))
+		if(intent == null || !"photography_intent".equals(intent.getIntent()))
 		{
 			logger.error("Not a photography intent!");
 			return;
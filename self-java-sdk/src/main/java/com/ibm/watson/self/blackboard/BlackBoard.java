@@ -17,34 +17,89 @@
 
 package com.ibm.watson.self.blackboard;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.ibm.watson.self.blackboard.IThing.ThingEventType;
-import com.ibm.watson.self.topics.IEvent;
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.Counter;
+import com.ibm.watson.self.metrics.MetricsConstants;
+import com.ibm.watson.self.metrics.MetricsRegistry;
+import com.ibm.watson.self.topics.IDataWriter;
+import com.ibm.watson.self.topics.IMessageEvent;
+import com.ibm.watson.self.topics.TopicChannel;
 import com.ibm.watson.self.topics.TopicClient;
+import com.ibm.watson.self.topics.TopicDispatcher.OverflowPolicy;
+import com.ibm.watson.self.topics.TopicMessage;
 
 /**
  * Represents the central publish/subscribe system for all agents, classifiers, and extractors
+ *
+ * Every subscriber gets its own bounded mailbox, run on a shared pool of
+ * DEFAULT_MAILBOX_THREADS threads, so thing events reach each agent in order
+ * without a slow agent holding up the others. Mailboxes that are ready while
+ * every thread is busy wait their turn in the pool's queue.
  */
-public class BlackBoard implements IEvent {
+public class BlackBoard implements IMessageEvent {
+
+	public static final int DEFAULT_MAILBOX_CAPACITY 	= 256;
+	public static final long DEFAULT_SLOW_THRESHOLD_MS 	= 500;
+	/** Threads in the shared mailbox pool; a mailbox holds at most one of them */
+	public static final int DEFAULT_MAILBOX_THREADS 	= Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static final Executor DEFAULT_EXECUTOR = createExecutor();
+	private static final ScheduledExecutorService EXPIRY_TIMER = createTimer();
 
 	private static BlackBoard instance = null;
 	
 	private HashMap<String, HashMap<String, List<Subscriber>>> subscriptionMap = new HashMap<String, HashMap<String, List<Subscriber>>>();
-	private HashMap<String, IThing> thingMap = new HashMap<String, IThing>();
+	private final ThingStore things = new ThingStore();
+	private final ScheduledFuture<?> expiryTask;
+	private final Counter skipped = MetricsRegistry.getInstance().counter(MetricsConstants.BLACKBOARD_SKIPPED);
 	private boolean started = false;
+	private volatile Map<String, Route> dispatchIndex = Collections.emptyMap();
+
+	private final ConcurrentHashMap<String, TopicChannel> channels = new ConcurrentHashMap<String, TopicChannel>();
+	private final ConcurrentHashMap<IBlackBoard, Mailbox> mailboxes = new ConcurrentHashMap<IBlackBoard, Mailbox>();
+	private final List<ISlowConsumerListener> slowConsumerListeners = new CopyOnWriteArrayList<ISlowConsumerListener>();
+	private volatile Executor executor = DEFAULT_EXECUTOR;
+	private volatile int mailboxCapacity = DEFAULT_MAILBOX_CAPACITY;
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+	private volatile long slowThreshold = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD_MS);
 	
 	private static Logger logger = LogManager.getLogger(BlackBoard.class.getName());
 	
 	public BlackBoard() {
 		started = true;
+		expiryTask = EXPIRY_TIMER.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				expireThings(System.currentTimeMillis());
+			}
+		}, ThingStore.TICK_MILLIS, ThingStore.TICK_MILLIS, TimeUnit.MILLISECONDS);
 	}
 	
 	public static BlackBoard getInstance() {
@@ -55,6 +110,32 @@ public class BlackBoard implements IEvent {
 		return instance;
 	}
 
+	private static Executor createExecutor() {
+		// a mailbox is queued at most once, so the queue is bounded by the subscribers
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(DEFAULT_MAILBOX_THREADS, DEFAULT_MAILBOX_THREADS, 
+				60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "BlackBoard-mailbox-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	private static ScheduledExecutorService createTimer() {
+		return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BlackBoard-expiry");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
 	/**
 	 * Subscribe to any objects of a given type that get put on the blackboard
 	 * @param type: The type 
@@ -64,7 +145,23 @@ public class BlackBoard implements IEvent {
 	 */
 	public void subscribeToType(String type, IThing.ThingEventType thingEvent, 
 			IBlackBoard blackboard, String path) {
+		subscribeToType(type, new Subscriber(blackboard, thingEvent, path));
+	}
+
+	/**
+	 * Subscribe to several kinds of event on objects of a given type
+	 * @param type: The type
+	 * @param eventMask: ThingEventType ids or'ed together, see ThingEventType.mask()
+	 * @param blackboard: the blackboard object
+	 * @param path: the key to the subscription map
+	 */
+	public void subscribeToType(String type, int eventMask, IBlackBoard blackboard, String path) {
+		subscribeToType(type, new Subscriber(blackboard, eventMask, path));
+	}
+
+	private synchronized void subscribeToType(String type, Subscriber subscriber) {
 		logger.entry();
+		String path = subscriber.path;
 		if(!subscriptionMap.containsKey(path)) {
 			TopicClient.getInstance().subscribe(path + BlackBoardConstants.BLACKBOARD, this);
 			HashMap<String, List<Subscriber>> tempMap = new HashMap<String, List<Subscriber>>();
@@ -76,14 +173,15 @@ public class BlackBoard implements IEvent {
 			JsonObject wrapperObject = new JsonObject();
 			wrapperObject.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.SUBSCRIBE_TO_TYPE);
 			wrapperObject.addProperty(BlackBoardConstants.TYPE, type);
-			wrapperObject.addProperty(BlackBoardConstants.EVENT_MASK, thingEvent.TE_ALL.getId());
+			wrapperObject.addProperty(BlackBoardConstants.EVENT_MASK, ThingEventType.TE_ALL.getId());
 			TopicClient.getInstance().publish(path + BlackBoardConstants.BLACKBOARD, 
 					wrapperObject.toString(), false);
 			List<Subscriber> tempSubList = new ArrayList<Subscriber>();
 			types.put(type, tempSubList);
 		}
-		types.get(type).add(new Subscriber(blackboard, thingEvent, path));
+		types.get(type).add(subscriber);
 		subscriptionMap.put(path, types);
+		rebuildIndex();
 		logger.exit();
 	}
 	
@@ -93,7 +191,7 @@ public class BlackBoard implements IEvent {
 	 * @param blackboard: The blackboard object
 	 * @param path: the key to the subscription map
 	 */
-	public void unsubscribeFromType(String type, IBlackBoard blackboard, String path) {
+	public synchronized void unsubscribeFromType(String type, IBlackBoard blackboard, String path) {
 		logger.entry();
 		if(subscriptionMap.containsKey(path)) {
 			HashMap<String, List<Subscriber>> types = subscriptionMap.get(path);
@@ -126,28 +224,90 @@ public class BlackBoard implements IEvent {
 				subscriptionMap.put(path, types);
 			}
 		}
+		rebuildIndex();
+		if(!isSubscribed(blackboard))
+			mailboxes.remove(blackboard);
 		logger.exit();
 	}
+
+	/**
+	 * Flatten the subscriptions of every path into one array per type, so
+	 * dispatch is a single lookup. Readers always see a complete index.
+	 */
+	private void rebuildIndex() {
+		HashMap<String, List<Subscriber>> byType = new HashMap<String, List<Subscriber>>();
+		for(HashMap<String, List<Subscriber>> types : subscriptionMap.values()) {
+			for(Map.Entry<String, List<Subscriber>> entry : types.entrySet()) {
+				List<Subscriber> subscribers = byType.get(entry.getKey());
+				if(subscribers == null) {
+					subscribers = new ArrayList<Subscriber>();
+					byType.put(entry.getKey(), subscribers);
+				}
+				for(Subscriber subscriber : entry.getValue()) {
+					if(subscriber.callback != null)
+						subscribers.add(subscriber);
+				}
+			}
+		}
+		HashMap<String, Route> index = new HashMap<String, Route>();
+		for(Map.Entry<String, List<Subscriber>> entry : byType.entrySet()) {
+			if(!entry.getValue().isEmpty())
+				index.put(entry.getKey(), new Route(entry.getValue()));
+		}
+		dispatchIndex = index;
+	}
+
+	private boolean isSubscribed(IBlackBoard blackboard) {
+		for(HashMap<String, List<Subscriber>> types : subscriptionMap.values()) {
+			for(List<Subscriber> subscribers : types.values()) {
+				for(Subscriber subscriber : subscribers) {
+					if(subscriber.callback == blackboard)
+						return true;
+				}
+			}
+		}
+		return false;
+	}
 	
 	/**
 	 * Add a concept to this blackboard, which will be automatically
-     * connected to other concepts to produce a goal in the end
+     * connected to other concepts to produce a goal in the end. The
+     * add_object event is streamed into the outbound frame on the writer
+     * thread from a snapshot taken here, so the thing's attributes may be
+     * changed once this returns; its body and data objects may not.
 	 * @param thing: represents object that can be added to the backboard
 	 * @param path: the path
+	 * @throws IllegalArgumentException if the thing has no type, GUID or category
 	 */
 	public void addThing(IThing thing, String path) {
 		logger.entry();
-		JsonObject wrapperObject = new JsonObject();
-		wrapperObject.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.ADD_OBJECT);
-		wrapperObject.addProperty(BlackBoardConstants.TYPE, thing.getType());
-		wrapperObject.add(BlackBoardConstants.THING, thing.serialize());
-		if(thing.getParentId() != null && !thing.getParentId().isEmpty())
-			wrapperObject.addProperty(BlackBoardConstants.PARENT, thing.getParentId());
-		
-		TopicClient.getInstance().publish(path + BlackBoardConstants.BLACKBOARD, 
-				wrapperObject.toString(), false);
+		final IThing snapshot = thing.snapshot();
+		getChannel(path).send(new IDataWriter() {
+			public void write(JsonWriter writer) throws IOException {
+				writer.beginObject();
+				writer.name(BlackBoardConstants.EVENT).value(BlackBoardConstants.ADD_OBJECT);
+				writer.name(BlackBoardConstants.TYPE).value(snapshot.getType());
+				writer.name(BlackBoardConstants.THING);
+				snapshot.serialize(writer);
+				String parent = snapshot.getParentId();
+				if(parent != null && !parent.isEmpty())
+					writer.name(BlackBoardConstants.PARENT).value(parent);
+				writer.endObject();
+			}
+		});
 		logger.exit();
 	}
+
+	private TopicChannel getChannel(String path) {
+		TopicChannel channel = channels.get(path);
+		if(channel == null) {
+			TopicChannel created = TopicClient.getInstance().channel(path + BlackBoardConstants.BLACKBOARD, false);
+			channel = channels.putIfAbsent(path, created);
+			if(channel == null)
+				channel = created;
+		}
+		return channel;
+	}
 	
 	public void removeThing(IThing thing, String path) {
 		removeThing(thing.getGuid(), path);
@@ -221,33 +381,72 @@ public class BlackBoard implements IEvent {
 				wrapperObject.toString(), false);
 		logger.exit();
 	}
+	
+	/**
+	 * Ask for the parent of a thing and get the reply as it arrives, so many
+	 * queries can be in flight at once
+	 * @param guid: the unique id given at the time of creation
+	 * @param path: the path
+	 * @return the reply data, or a TimeoutException if the blackboard does not answer
+	 */
+	public CompletableFuture<JsonObject> getParentAsync(String guid, String path) {
+		logger.entry();
+		String topic = path + BlackBoardConstants.BLACKBOARD;
+		if(!TopicClient.getInstance().getRegistry().contains(topic)) {
+			TopicClient.getInstance().subscribe(topic, this);
+		}
+		JsonObject wrapperObject = new JsonObject();
+		wrapperObject.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.GET_PARENT);
+		wrapperObject.addProperty(BlackBoardConstants.THING_GUID, guid);
+		CompletableFuture<JsonObject> reply = TopicClient.getInstance().request(topic, wrapperObject)
+				.thenApply(new Function<TopicMessage, JsonObject>() {
+					public JsonObject apply(TopicMessage message) {
+						return message.getDataAsJson().getAsJsonObject();
+					}
+				});
+		return logger.exit(reply);
+	}
 
 	/**
 	 * Invoke this method to pass an event to all subscribers for a given object type
 	 * @param event: the event description in the form of string
 	 */
 	public void onEvent(String event) {
+		onMessage(new TopicMessage(BlackBoardConstants.BLACKBOARD, event));
+	}
+	
+	/**
+	 * Invoke this method to pass a decoded message to all subscribers for a given object type
+	 * @param message: the message from the blackboard topic
+	 */
+	public void onMessage(TopicMessage message) {
 		logger.entry();
-		JsonParser parser = new JsonParser();
-		JsonObject wrapperObject = parser.parse(event).getAsJsonObject();
+		if(isUnwanted(message)) {
+			skipped.increment();
+			logger.exit();
+			return;
+		}
+		JsonObject wrapperObject = message.getDataAsJson().getAsJsonObject();
 		boolean failed = false;
 		String eventName = wrapperObject.get(BlackBoardConstants.EVENT).getAsString();
 		String type = wrapperObject.get(BlackBoardConstants.TYPE).getAsString();
 		
+		List<IThing> evicted = new ArrayList<IThing>();
 		ThingEvent thingEvent = new ThingEvent();
 		thingEvent.setEventType(ThingEventType.TE_NONE);
 		thingEvent.setEvent(wrapperObject);
-		IThing someThing = new IThing();
+		IThing someThing = null;
 		if(eventName.equals(BlackBoardConstants.ADD_OBJECT)) {
 			thingEvent.setEventType(ThingEventType.TE_ADDED);			
-			thingEvent.setThing(someThing);
 			try {
-				someThing.deserialize(wrapperObject.get(BlackBoardConstants.THING).getAsJsonObject());
+				long start = System.nanoTime();
+				someThing = IThing.deserializeLazily(wrapperObject.get(BlackBoardConstants.THING).getAsJsonObject());
 				if(wrapperObject.has(BlackBoardConstants.PARENT)) {
 					someThing.setParentId(wrapperObject.get(BlackBoardConstants.PARENT).getAsString());
 				}
+				FlightEvents.thingAdded(type, someThing.getGuid(), System.nanoTime() - start);
 				thingEvent.setThing(someThing);
-				thingMap.put(thingEvent.getThing().getGuid(), thingEvent.getThing());
+				things.add(someThing, evicted);
 			}
 			catch (Exception e) {
 				logger.error("Failed to deserialize Blackboard object!!");
@@ -257,26 +456,24 @@ public class BlackBoard implements IEvent {
 		else if(eventName.equals(BlackBoardConstants.REMOVE_OBJECT)) {
 			thingEvent.setEventType(ThingEventType.TE_REMOVED);
 			String guid = wrapperObject.get(BlackBoardConstants.THING_GUID).getAsString();
-			if(thingMap.containsKey(guid)) {
-				thingMap.remove(guid);
-			}
+			thingEvent.setThing(things.remove(guid));
 		}
 		else if(eventName.equals(BlackBoardConstants.SET_OBJECT_STATE)) {
+			thingEvent.setEventType(ThingEventType.TE_STATE);
 			String guid = wrapperObject.get(BlackBoardConstants.THING_GUID).getAsString();
-			if(thingMap.containsKey(guid)) {
-				String state = wrapperObject.get(BlackBoardConstants.STATE).getAsString();
-				IThing updateThing = thingMap.get(guid);
-				updateThing.setState(state);
-				thingMap.put(guid, updateThing);
+			String state = wrapperObject.get(BlackBoardConstants.STATE).getAsString();
+			IThing updateThing = things.setState(guid, state);
+			if(updateThing != null) {
+				thingEvent.setThing(updateThing);
 			}
 			else {
 				try {
-					someThing.deserialize(wrapperObject.get(BlackBoardConstants.THING).getAsJsonObject());
+					someThing = IThing.deserializeLazily(wrapperObject.get(BlackBoardConstants.THING).getAsJsonObject());
 					if(wrapperObject.has(BlackBoardConstants.PARENT)) {
 						someThing.setParentId(wrapperObject.get(BlackBoardConstants.PARENT).getAsString());
 					}
 					thingEvent.setThing(someThing);
-					thingMap.put(thingEvent.getThing().getGuid(), thingEvent.getThing());
+					things.add(someThing, evicted);
 				}
 				catch (Exception e) {
 					logger.error("Failed to deserialized Blackboard object when state has changed!!");
@@ -284,12 +481,12 @@ public class BlackBoard implements IEvent {
 			}
 		}
 		else if(eventName.equals(BlackBoardConstants.SET_OBJECT_IMPORTANCE)) {
+			thingEvent.setEventType(ThingEventType.TE_IMPORTANCE);
 			String guid = wrapperObject.get(BlackBoardConstants.THING_GUID).getAsString();
-			if(thingMap.containsKey(guid)) {
-				long importance = wrapperObject.get(BlackBoardConstants.IMPORTANCE).getAsLong();
-				IThing importantThing = thingMap.get(guid);
-				importantThing.setImportance(importance);
-				thingMap.put(guid, importantThing);
+			double importance = wrapperObject.get(BlackBoardConstants.IMPORTANCE).getAsDouble();
+			IThing importantThing = things.setImportance(guid, importance);
+			if(importantThing != null) {
+				thingEvent.setThing(importantThing);
 			}
 		}
 		
@@ -301,23 +498,195 @@ public class BlackBoard implements IEvent {
 //			TopicClient.getInstance().publish(path, data, persisted);
 		}
 		else if(thingEvent.getEventType() != ThingEventType.TE_NONE) {
-			for (String key : subscriptionMap.keySet()) {
-				List<Subscriber> sub = null;
-				if(subscriptionMap.get(key).containsKey(type)) {
-					sub = subscriptionMap.get(key).get(type);
-					for(int i = 0; i < sub.size(); i++) {
-						Subscriber subscriber = sub.get(i);
-						if(subscriber.callback == null)
-							continue;
-						if(subscriber.eventType == thingEvent.getEventType())
-							subscriber.callback.onThingEvent(thingEvent);
-					}
-				}
-			}
+			dispatch(thingEvent, type);
 		}
+		removedLocally(evicted, BlackBoardConstants.EVICTED);
 		logger.exit();
 	}
 
+	/**
+	 * Read just the event name and type of a message, without building a
+	 * tree, to drop added things no one here subscribes to. Dropped things
+	 * are not put in the ThingStore either.
+	 * @return true if the message is an add_object nobody wants
+	 */
+	private boolean isUnwanted(TopicMessage message) {
+		String eventName = null;
+		String type = null;
+		JsonReader reader = message.getDataReader();
+		try {
+			reader.beginObject();
+			while(reader.hasNext() && (eventName == null || type == null)) {
+				String name = reader.nextName();
+				if(name.equals(BlackBoardConstants.EVENT) && reader.peek() == JsonToken.STRING)
+					eventName = reader.nextString();
+				else if(name.equals(BlackBoardConstants.TYPE) && reader.peek() == JsonToken.STRING)
+					type = reader.nextString();
+				else
+					reader.skipValue();
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+		catch (IllegalStateException e) {
+			return false;
+		}
+		return BlackBoardConstants.ADD_OBJECT.equals(eventName) && type != null 
+				&& !dispatchIndex.containsKey(type);
+	}
+
+	private void dispatch(ThingEvent thingEvent, String type) {
+		Route route = dispatchIndex.get(type);
+		if(route != null) {
+			int bit = thingEvent.getEventType().getId();
+			for(int i = 0; i < route.masks.length; i++) {
+				if((route.masks[i] & bit) != 0)
+					getMailbox(route.callbacks[i]).post(thingEvent, type);
+			}
+		}
+	}
+
+	/**
+	 * Drop things whose lifespan has run out and tell their subscribers
+	 * @param nowMillis: the current time
+	 */
+	void expireThings(long nowMillis) {
+		try {
+			removedLocally(things.expire(nowMillis), BlackBoardConstants.EXPIRED);
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to expire Blackboard objects: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Tell subscribers about things this process dropped on its own, with a
+	 * remove_object event that was never on the wire
+	 */
+	private void removedLocally(List<IThing> removed, String reason) {
+		for(IThing thing : removed) {
+			JsonObject wrapperObject = new JsonObject();
+			wrapperObject.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.REMOVE_OBJECT);
+			wrapperObject.addProperty(BlackBoardConstants.TYPE, thing.getType());
+			wrapperObject.addProperty(BlackBoardConstants.THING_GUID, thing.getGuid());
+			wrapperObject.addProperty(BlackBoardConstants.REASON, reason);
+			ThingEvent thingEvent = new ThingEvent();
+			thingEvent.setEventType(ThingEventType.TE_REMOVED);
+			thingEvent.setEvent(wrapperObject);
+			thingEvent.setThing(thing);
+			dispatch(thingEvent, thing.getType());
+		}
+	}
+
+	/**
+	 * The things seen on the blackboard, kept up to date as add, remove,
+	 * state and importance events arrive. Added things of a type nobody
+	 * here subscribes to are dropped before they are decoded and never
+	 * stored, so findByType() and childrenOf() only see subscribed types;
+	 * subscribe to a type, with any event mask, to have it kept.
+	 * @return the store
+	 */
+	public ThingStore getThingStore() {
+		return things;
+	}
+
+	/**
+	 * Set how many things are kept before the least important are evicted,
+	 * subscribers are told about each eviction with a TE_REMOVED event
+	 * @param capacity: number of things, at least 1
+	 */
+	public void setThingCapacity(int capacity) {
+		removedLocally(things.setCapacity(capacity), BlackBoardConstants.EVICTED);
+	}
+
+	/**
+	 * @param subscriber: the subscriber
+	 * @return its mailbox, created on first use
+	 */
+	public Mailbox getMailbox(IBlackBoard subscriber) {
+		Mailbox mailbox = mailboxes.get(subscriber);
+		if(mailbox == null) {
+			Mailbox created = new Mailbox(this, subscriber, mailboxCapacity);
+			mailbox = mailboxes.putIfAbsent(subscriber, created);
+			if(mailbox == null)
+				mailbox = created;
+		}
+		return mailbox;
+	}
+
+	/**
+	 * Set where mailboxes are run. An executor that runs tasks in place gives
+	 * delivery on the thread the message arrived on.
+	 * @param executor: the executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Set how many events each mailbox created from now on can hold
+	 * @param capacity: events per subscriber, at least 1
+	 */
+	public void setMailboxCapacity(int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1");
+		this.mailboxCapacity = capacity;
+	}
+
+	/**
+	 * Set what happens when an event arrives for a full mailbox
+	 * @param overflowPolicy: the policy, BLOCK holds up every subscriber
+	 * behind the full one
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Set how far behind a subscriber may fall, or how long one callback
+	 * may take, before it is reported as slow
+	 * @param threshold: the threshold
+	 * @param unit: unit of the threshold
+	 */
+	public void setSlowThreshold(long threshold, TimeUnit unit) {
+		this.slowThreshold = unit.toNanos(threshold);
+	}
+
+	/**
+	 * @return the slow consumer threshold in nanoseconds
+	 */
+	public long getSlowThreshold() {
+		return slowThreshold;
+	}
+
+	public void addSlowConsumerListener(ISlowConsumerListener listener) {
+		slowConsumerListeners.add(listener);
+	}
+
+	public void removeSlowConsumerListener(ISlowConsumerListener listener) {
+		slowConsumerListeners.remove(listener);
+	}
+
+	void onSlowConsumer(IBlackBoard subscriber, int queueDepth, long waitNanos) {
+		for(ISlowConsumerListener listener : slowConsumerListeners) {
+			try {
+				listener.onSlowConsumer(subscriber, queueDepth, waitNanos);
+			}
+			catch (RuntimeException e) {
+				logger.error("Slow consumer listener failed: " + e.getMessage());
+			}
+		}
+	}
+
 	public boolean isActive() {
 		return started;
 	}
@@ -325,6 +694,8 @@ public class BlackBoard implements IEvent {
 	public void shutdown() {
 		logger.entry();
 		started = false;
+		expiryTask.cancel(false);
+		mailboxes.clear();
 		for(String path : subscriptionMap.keySet()) {
 			TopicClient.getInstance().unsubscribe(path + BlackBoardConstants.BLACKBOARD, this);
 		}
@@ -338,16 +709,32 @@ public class BlackBoard implements IEvent {
 	public void onReconnect() {
 		
 		for (String path : subscriptionMap.keySet()) {
-			TopicClient.getInstance().subscribe(path + BlackBoardConstants.BLACKBOARD, this);
 			for(String type : subscriptionMap.get(path).keySet()) {
 				JsonObject wrapperObject = new JsonObject();
 				wrapperObject.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.SUBSCRIBE_TO_TYPE);
 				wrapperObject.addProperty(BlackBoardConstants.TYPE, type);
-				Subscriber subscriber = subscriptionMap.get(path).get(type).get(0);
 				wrapperObject.addProperty(BlackBoardConstants.EVENT_MASK, ThingEventType.TE_ALL.getId());
 				TopicClient.getInstance().publish(path + BlackBoardConstants.BLACKBOARD, 
 						wrapperObject.toString(), false);
 			}
 		}
 	}
+
+	/**
+	 * The subscribers of one type as parallel arrays of event mask and callback
+	 */
+	private static final class Route {
+
+		final int[] masks;
+		final IBlackBoard[] callbacks;
+
+		Route(List<Subscriber> subscribers) {
+			masks = new int[subscribers.size()];
+			callbacks = new IBlackBoard[subscribers.size()];
+			for(int i = 0; i < masks.length; i++) {
+				masks[i] = subscribers.get(i).eventMask;
+				callbacks[i] = subscribers.get(i).callback;
+			}
+		}
+	}
 }
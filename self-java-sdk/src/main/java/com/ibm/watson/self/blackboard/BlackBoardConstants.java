@@ -37,6 +37,9 @@ public class BlackBoardConstants {
 	public static final String GET_PARENT				= "get_parent";
 	public static final String FAILED_EVENT				= "failed_event";
 	public static final String ERROR					= "error";
+	public static final String REASON					= "reason";
+	public static final String EXPIRED					= "expired";
+	public static final String EVICTED					= "evicted";
 	
 	public static final String ITHING					= "IThing";
 	public static final String ADDED					= "ADDED";
@@ -0,0 +1,32 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+/**
+ * Told when a blackboard subscriber falls behind
+ */
+public interface ISlowConsumerListener {
+
+	/**
+	 * @param subscriber: the subscriber that is behind
+	 * @param queueDepth: events waiting in its mailbox
+	 * @param waitNanos: how long the oldest of them has waited, or how long
+	 * the last callback took if that is what tripped the threshold
+	 */
+	public void onSlowConsumer(IBlackBoard subscriber, int queueDepth, long waitNanos);
+}
@@ -17,12 +17,16 @@
 
 package com.ibm.watson.self.blackboard;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.Map.Entry;
 import java.util.UUID;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Represents all objects that can be added to the blackboard
@@ -39,8 +43,8 @@ public class IThing {
 		TE_REMOVED(2),
 		TE_STATE(4),
 		TE_IMPORTANCE(8),
-		TE_GUID(10),
-		TE_DATA(20),
+		TE_GUID(16),
+		TE_DATA(32),
 		TE_ALL(255);
 		
 		private int id;
@@ -52,6 +56,19 @@ public class IThing {
 		public int getId() {
 			return id;
 		}
+
+		/**
+		 * Combine event kinds into a mask, e.g. to subscribe to added or state
+		 * @param types: the event kinds
+		 * @return the ids or'ed together
+		 */
+		public static int mask(ThingEventType... types) {
+			int mask = 0;
+			for(ThingEventType type : types) {
+				mask |= type.id;
+			}
+			return mask;
+		}
 	}
 	
 	/**
@@ -79,8 +96,23 @@ public class IThing {
 	    public void setId(int id) {
 	    	this.id = id;
 	    }
+
+	    /**
+	     * @param id: the category id on the wire
+	     * @return the category, TT_INVALID for unknown ids
+	     */
+	    public static ThingCategory fromId(int id) {
+	    	for(ThingCategory category : values()) {
+	    		if(category.id == id)
+	    			return category;
+	    	}
+	    	return TT_INVALID;
+	    }
     }
 	
+	private static final double DEFAULT_IMPORTANCE 	= 1.0;
+	private static final double DEFAULT_LIFE_SPAN 	= 3600.0;
+
     // Required
 	private String type;
 	private ThingCategory category;
@@ -96,6 +128,9 @@ public class IThing {
 	private String parentId;
 	private JsonObject body = null;
 	private String origin;
+
+	// Body of a lazily deserialized thing whose category and data are not decoded yet
+	private volatile JsonObject pending;
 	
 	
 	public IThing() {
@@ -104,29 +139,43 @@ public class IThing {
         setType(BlackBoardConstants.ITHING);
         setCategory(ThingCategory.TT_PERCEPTION);		
 		setGuid(uuid.toString());
-        setImportance(1.0f);
+        setImportance(DEFAULT_IMPORTANCE);
         setState(BlackBoardConstants.ADDED);
-        setCreateTime((new Date().getTime()) / 1000);
-        setLifeSpan(3600.0);
+        setCreateTime(now());
+        setLifeSpan(DEFAULT_LIFE_SPAN);
     }
+
+	/**
+	 * A thing that already has a GUID, e.g. one decoded from the wire, with
+	 * the defaults of a new thing for the other attributes
+	 * @param type: the thing type
+	 * @param guid: the unique id given at the time of creation
+	 */
+	private IThing(String type, String guid) {
+		this.type = type;
+		this.guid = guid;
+		this.importance = DEFAULT_IMPORTANCE;
+		this.createTime = now();
+		this.lifeSpan = DEFAULT_LIFE_SPAN;
+	}
+
+	/**
+	 * @return the current time in seconds, as createTime is kept
+	 */
+	private static long now() {
+		return new Date().getTime() / 1000;
+	}
 	
 	/**
 	 * Convert the data into a map and return it
 	 * @return: the json object
 	 */
 	public JsonObject serialize() {
+		materialize();
 		JsonObject wrapperObject = new JsonObject();
 		if(body != null) {
 			for(Entry<String, JsonElement> entry : body.entrySet()) {
-				String key = entry.getKey();
-				if(entry.getValue().isJsonObject()) {
-					JsonObject value = entry.getValue().getAsJsonObject();
-					wrapperObject.add(key, value);
-				}
-				else {
-					String value = entry.getValue().getAsString();
-					wrapperObject.addProperty(key, value);
-				}
+				wrapperObject.add(entry.getKey(), entry.getValue());
 			}
 		}
 
@@ -148,18 +197,133 @@ public class IThing {
 		
 		return wrapperObject;
 	}
+
+	/**
+	 * Write the same json as serialize() straight to a stream, without
+	 * building the map
+	 * @param writer: the stream
+	 * @throws IOException if the stream fails
+	 */
+	public void serialize(JsonWriter writer) throws IOException {
+		materialize();
+		boolean hasDataType = dataType != null && !dataType.isEmpty();
+		boolean hasData = data != null || hasDataType;
+		writer.beginObject();
+		if(body != null) {
+			for(Entry<String, JsonElement> entry : body.entrySet()) {
+				String key = entry.getKey();
+				if(isWritten(key, hasData, hasDataType))
+					continue;
+				writer.name(key);
+				Streams.write(entry.getValue(), writer);
+			}
+		}
+		writer.name(BlackBoardConstants.TYPE_).value(type);
+		writer.name(BlackBoardConstants.CATEGORY).value(category.getId());
+		writer.name(BlackBoardConstants.GUID).value(guid);
+		writer.name(BlackBoardConstants.M_IMPORTANCE).value(importance);
+		writer.name(BlackBoardConstants.M_STATE).value(state);
+		writer.name(BlackBoardConstants.LIFE_SPAN).value(lifeSpan);
+		if(hasData) {
+			writer.name(BlackBoardConstants.DATA);
+			Streams.write(data != null ? data : JsonNull.INSTANCE, writer);
+		}
+		if(hasDataType) {
+			writer.name(BlackBoardConstants.DATA_TYPE).value(dataType);
+		}
+		writer.endObject();
+	}
+
+	/**
+	 * A copy of the thing as it is now, to be written out later on another
+	 * thread. The attributes are copied; the body and data objects are
+	 * shared, so they must not be modified once the copy is taken.
+	 * @return the copy
+	 * @throws IllegalArgumentException if the thing has no type, GUID or category
+	 */
+	IThing snapshot() {
+		materialize();
+		if(type == null || guid == null || category == null)
+			throw new IllegalArgumentException("A thing needs a type, GUID and category to be sent");
+		IThing copy = new IThing(type, guid);
+		copy.category = category;
+		copy.importance = importance;
+		copy.state = state;
+		copy.createTime = createTime;
+		copy.lifeSpan = lifeSpan;
+		copy.dataType = dataType;
+		copy.data = data;
+		copy.parentId = parentId;
+		copy.body = body;
+		copy.origin = origin;
+		return copy;
+	}
+
+	/**
+	 * @return true if the body entry is replaced by an attribute of the thing
+	 */
+	private static boolean isWritten(String key, boolean hasData, boolean hasDataType) {
+		return key.equals(BlackBoardConstants.TYPE_) || key.equals(BlackBoardConstants.CATEGORY)
+				|| key.equals(BlackBoardConstants.GUID) || key.equals(BlackBoardConstants.M_IMPORTANCE)
+				|| key.equals(BlackBoardConstants.M_STATE) || key.equals(BlackBoardConstants.LIFE_SPAN)
+				|| (hasData && key.equals(BlackBoardConstants.DATA))
+				|| (hasDataType && key.equals(BlackBoardConstants.DATA_TYPE));
+	}
 	
 	/**
 	 * Read attributes from a map and associate the values to this thing
 	 * @param wrapperObject: the json object
 	 */
 	public void deserialize(JsonObject wrapperObject) {
+		this.pending = null;
 		this.body = wrapperObject;
 		this.type = wrapperObject.get(BlackBoardConstants.TYPE_).getAsString();
-		ThingCategory thingCategory = ThingCategory.TT_INVALID;
-		thingCategory.setId(wrapperObject.get(BlackBoardConstants.CATEGORY).getAsInt());
-		this.category = thingCategory;
 		this.guid = wrapperObject.get(BlackBoardConstants.GUID).getAsString();
+		decodeHeader(wrapperObject);
+		decode(wrapperObject);
+	}
+
+	/**
+	 * Build a thing that reads now only what the ThingStore indexes it by:
+	 * type, GUID, state, importance, create time and lifespan. Category and
+	 * data are read from the map the first time either of them is used.
+	 * @param wrapperObject: the json object, must not be modified afterwards
+	 * @return the thing
+	 */
+	public static IThing deserializeLazily(JsonObject wrapperObject) {
+		IThing thing = new IThing(wrapperObject.get(BlackBoardConstants.TYPE_).getAsString(), 
+				wrapperObject.get(BlackBoardConstants.GUID).getAsString());
+		thing.body = wrapperObject;
+		thing.decodeHeader(wrapperObject);
+		thing.pending = wrapperObject;
+		return thing;
+	}
+
+	/**
+	 * @return true if the thing was deserialized lazily and its category
+	 * and data have not been looked at yet
+	 */
+	public boolean isPending() {
+		return pending != null;
+	}
+
+	private void materialize() {
+		if(pending == null)
+			return;
+		synchronized (this) {
+			JsonObject wrapperObject = pending;
+			if(wrapperObject != null) {
+				decode(wrapperObject);
+				pending = null;
+			}
+		}
+	}
+
+	/**
+	 * Read the attributes a thing is indexed by, keeping the current value
+	 * of any the map leaves out
+	 */
+	private void decodeHeader(JsonObject wrapperObject) {
 		this.state = wrapperObject.get(BlackBoardConstants.M_STATE).getAsString();
 		
 		if(wrapperObject.has(BlackBoardConstants.M_IMPORTANCE)) {
@@ -171,6 +335,10 @@ public class IThing {
 		if(wrapperObject.has(BlackBoardConstants.LIFE_SPAN)) {
 			this.lifeSpan = wrapperObject.get(BlackBoardConstants.LIFE_SPAN).getAsDouble();
 		}
+	}
+
+	private void decode(JsonObject wrapperObject) {
+		this.category = ThingCategory.fromId(wrapperObject.get(BlackBoardConstants.CATEGORY).getAsInt());
 		if(wrapperObject.has(BlackBoardConstants.DATA_TYPE)) {
 			this.dataType = wrapperObject.get(BlackBoardConstants.DATA_TYPE).getAsString();
 		}
@@ -192,10 +360,12 @@ public class IThing {
 	}
 
 	public ThingCategory getCategory() {
+		materialize();
 		return category;
 	}
 
 	public void setCategory(ThingCategory category) {
+		materialize();
 		this.category = category;
 	}
 
@@ -240,18 +410,22 @@ public class IThing {
 	}
 
 	public String getDataType() {
+		materialize();
 		return dataType;
 	}
 
 	public void setDataType(String dataType) {
+		materialize();
 		this.dataType = dataType;
 	}
 
 	public JsonObject getData() {
+		materialize();
 		return data;
 	}
 
 	public void setData(JsonObject data) {
+		materialize();
 		this.data = data;
 	}
 
@@ -0,0 +1,35 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+/**
+ * Turns things of one type into a typed, immutable object
+ */
+public interface IThingCodec<T> {
+
+	/**
+	 * @return the Type_ of the things this codec reads
+	 */
+	public String getType();
+
+	/**
+	 * @param thing: a thing of the codec's type
+	 * @return the decoded object
+	 */
+	public T decode(IThing thing);
+}
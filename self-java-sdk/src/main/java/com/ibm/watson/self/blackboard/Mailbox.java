@@ -0,0 +1,248 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.Counter;
+import com.ibm.watson.self.metrics.LatencyHistogram;
+import com.ibm.watson.self.metrics.MetricsConstants;
+import com.ibm.watson.self.metrics.MetricsRegistry;
+import com.ibm.watson.self.topics.TopicDispatcher.OverflowPolicy;
+
+/**
+ * The queue of thing events waiting for one subscriber. Posting never
+ * calls the subscriber; the mailbox is run on a pooled thread, one event
+ * at a time, so a subscriber sees its events in order while a slow one
+ * only delays itself.
+ *
+ * A subscriber is reported as slow once per backlog, when its mailbox is
+ * three quarters full, the oldest event has waited longer than the slow
+ * threshold, or a single callback takes longer than it.
+ */
+public class Mailbox implements Runnable {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(Mailbox.class.getName());
+
+	/** Events handled per run before the thread is given back to the pool */
+	private static final int BATCH = 32;
+
+	private final IBlackBoard subscriber;
+	private final BlockingQueue<Envelope> queue;
+	private final int slowDepth;
+	private final BlackBoard owner;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private volatile boolean slow = false;
+
+	/*			Counters				*/
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final LatencyHistogram deliveryLatency = 
+			MetricsRegistry.getInstance().histogram(MetricsConstants.BLACKBOARD_DELIVERY_LATENCY);
+	private final Counter droppedTotal = 
+			MetricsRegistry.getInstance().counter(MetricsConstants.BLACKBOARD_DROPPED);
+	private final Counter slowTotal = 
+			MetricsRegistry.getInstance().counter(MetricsConstants.BLACKBOARD_SLOW_CONSUMERS);
+
+	Mailbox(BlackBoard owner, IBlackBoard subscriber, int capacity) {
+		this.owner = owner;
+		this.subscriber = subscriber;
+		this.queue = new ArrayBlockingQueue<Envelope>(capacity);
+		this.slowDepth = Math.max(1, capacity * 3 / 4);
+	}
+
+	/**
+	 * Queue an event and make sure the mailbox is scheduled to run
+	 * @param event: the event, shared with other subscribers
+	 * @param type: the thing type
+	 * @return false if the event, or an older one, had to be dropped
+	 */
+	boolean post(ThingEvent event, String type) {
+		Envelope envelope = new Envelope(event, type);
+		boolean accepted = true;
+		switch(owner.getOverflowPolicy()) {
+		case BLOCK:
+			try {
+				queue.put(envelope);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				drop(envelope);
+				accepted = false;
+			}
+			break;
+		case DROP_NEWEST:
+			if(!queue.offer(envelope)) {
+				drop(envelope);
+				accepted = false;
+			}
+			break;
+		case DROP_OLDEST:
+			while(!queue.offer(envelope)) {
+				Envelope oldest = queue.poll();
+				if(oldest != null) {
+					drop(oldest);
+					accepted = false;
+				}
+			}
+			break;
+		}
+		checkBacklog(envelope.posted);
+		schedule();
+		return accepted;
+	}
+
+	private void schedule() {
+		if(scheduled.compareAndSet(false, true)) {
+			try {
+				owner.getExecutor().execute(this);
+			}
+			catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				logger.error("Mailbox of " + subscriber.getClass().getName() + " could not be scheduled");
+			}
+		}
+	}
+
+	public void run() {
+		try {
+			Envelope envelope;
+			for(int i = 0; i < BATCH && (envelope = queue.poll()) != null; i++) {
+				deliver(envelope);
+			}
+		}
+		finally {
+			scheduled.set(false);
+		}
+		if(queue.isEmpty()) {
+			slow = false;
+		}
+		else {
+			schedule();
+		}
+	}
+
+	private void deliver(Envelope envelope) {
+		long start = System.nanoTime();
+		deliveryLatency.record(start - envelope.posted);
+		try {
+			subscriber.onThingEvent(envelope.event);
+			delivered.incrementAndGet();
+		}
+		catch (RuntimeException e) {
+			failed.incrementAndGet();
+			logger.error("Subscriber " + subscriber.getClass().getName() + " failed: " + e.getMessage());
+		}
+		long elapsed = System.nanoTime() - start;
+		FlightEvents.thingDispatched(envelope.type, envelope.event.getEventType().name(), 
+				subscriber.getClass(), elapsed);
+		if(elapsed > owner.getSlowThreshold())
+			reportSlow(elapsed);
+	}
+
+	private void checkBacklog(long now) {
+		if(slow)
+			return;
+		int depth = queue.size();
+		if(depth >= slowDepth) {
+			Envelope oldest = queue.peek();
+			reportSlow(oldest != null ? now - oldest.posted : 0);
+			return;
+		}
+		Envelope oldest = queue.peek();
+		if(oldest != null && now - oldest.posted > owner.getSlowThreshold())
+			reportSlow(now - oldest.posted);
+	}
+
+	private void reportSlow(long waitNanos) {
+		if(slow)
+			return;
+		slow = true;
+		slowTotal.increment();
+		int depth = queue.size();
+		logger.error("Slow blackboard subscriber " + subscriber.getClass().getName() + ": " 
+				+ depth + " events queued, " + waitNanos / 1000000 + " ms behind");
+		owner.onSlowConsumer(subscriber, depth, waitNanos);
+	}
+
+	private void drop(Envelope envelope) {
+		dropped.incrementAndGet();
+		droppedTotal.increment();
+	}
+
+	public IBlackBoard getSubscriber() {
+		return subscriber;
+	}
+
+	/**
+	 * @return number of events waiting
+	 */
+	public int getDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return true while the subscriber is behind, since it was last reported
+	 */
+	public boolean isSlow() {
+		return slow;
+	}
+
+	public long getDelivered() {
+		return delivered.get();
+	}
+
+	/**
+	 * @return number of events dropped by the overflow policy
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return number of callbacks that threw
+	 */
+	public long getFailed() {
+		return failed.get();
+	}
+
+	private static class Envelope {
+
+		final ThingEvent event;
+		final String type;
+		final long posted;
+
+		Envelope(ThingEvent event, String type) {
+			this.event = event;
+			this.type = type;
+			this.posted = System.nanoTime();
+		}
+	}
+}
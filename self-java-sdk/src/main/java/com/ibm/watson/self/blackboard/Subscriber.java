@@ -20,19 +20,40 @@ package com.ibm.watson.self.blackboard;
 import com.ibm.watson.self.blackboard.IThing.ThingEventType;
 
 /**
- * A data structure to represent a subscriber's callback, path, and the event it is interested in
+ * A data structure to represent a subscriber's callback, path, and the events it is interested in
  */
 public class Subscriber {
 
 	public IBlackBoard callback;
 	public ThingEventType eventType;
+	public int eventMask;
 	public String path;
 	
 	public Subscriber(IBlackBoard callback, ThingEventType eventType, String path) {
-		this.callback = callback;
+		this(callback, eventType.getId(), path);
 		this.eventType = eventType;
+	}
+
+	/**
+	 * A subscriber for several kinds of event, its event type reads TE_ALL
+	 * @param callback: the subscriber
+	 * @param eventMask: ThingEventType ids or'ed together
+	 * @param path: the path
+	 */
+	public Subscriber(IBlackBoard callback, int eventMask, String path) {
+		this.callback = callback;
+		this.eventMask = eventMask;
+		this.eventType = ThingEventType.TE_ALL;
 		this.path = path;
 	}
+
+	/**
+	 * @param eventType: the kind of event
+	 * @return true if the subscriber asked for events of this kind
+	 */
+	public boolean matches(ThingEventType eventType) {
+		return (eventMask & eventType.getId()) != 0;
+	}
 	
 	public IBlackBoard getCallback() {
 		return this.callback;
@@ -48,6 +69,11 @@ public class Subscriber {
 	
 	public void setEventType(ThingEventType eventType) {
 		this.eventType = eventType;
+		this.eventMask = eventType.getId();
+	}
+
+	public int getEventMask() {
+		return this.eventMask;
 	}
 	
 	public String getPath() {
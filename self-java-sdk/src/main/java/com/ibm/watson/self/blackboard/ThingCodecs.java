@@ -0,0 +1,101 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.ibm.watson.self.blackboard.things.EmotionalState;
+import com.ibm.watson.self.blackboard.things.Goal;
+import com.ibm.watson.self.blackboard.things.MusicBeat;
+import com.ibm.watson.self.blackboard.things.Person;
+import com.ibm.watson.self.blackboard.things.ProxyIntent;
+import com.ibm.watson.self.blackboard.things.Say;
+import com.ibm.watson.self.blackboard.things.Text;
+
+/**
+ * The codecs for known thing types, keyed by Type_. A ThingEvent decodes its
+ * thing with the registered codec once, however many subscribers ask.
+ */
+public class ThingCodecs {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(ThingCodecs.class.getName());
+
+	private static ThingCodecs instance = null;
+
+	private final ConcurrentHashMap<String, IThingCodec<?>> codecs = new ConcurrentHashMap<String, IThingCodec<?>>();
+
+	public ThingCodecs() {
+		register(ProxyIntent.CODEC);
+		register(Person.CODEC);
+		register(Say.CODEC);
+		register(Goal.CODEC);
+		register(Text.CODEC);
+		register(MusicBeat.CODEC);
+		register(EmotionalState.CODEC);
+	}
+
+	public static synchronized ThingCodecs getInstance() {
+		if(instance == null) {
+			instance = new ThingCodecs();
+		}
+		return instance;
+	}
+
+	/**
+	 * Add a codec, replacing any codec for the same type
+	 * @param codec: the codec
+	 */
+	public void register(IThingCodec<?> codec) {
+		codecs.put(codec.getType(), codec);
+	}
+
+	public void unregister(String type) {
+		codecs.remove(type);
+	}
+
+	/**
+	 * @param type: the Type_ of a thing
+	 * @return the codec, or null if the type is not known
+	 */
+	public IThingCodec<?> getCodec(String type) {
+		return codecs.get(type);
+	}
+
+	/**
+	 * @param thing: the thing
+	 * @return the decoded object, or null if the type is not known or the
+	 * thing could not be read
+	 */
+	public Object decode(IThing thing) {
+		IThingCodec<?> codec = codecs.get(thing.getType());
+		if(codec == null)
+			return null;
+		try {
+			return codec.decode(thing);
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to decode " + thing.getType() + ": " + e.getMessage());
+			return null;
+		}
+	}
+}
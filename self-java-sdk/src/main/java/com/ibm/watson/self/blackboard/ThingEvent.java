@@ -25,9 +25,12 @@ import com.ibm.watson.self.blackboard.IThing.ThingEventType;
  */
 public class ThingEvent {
 
+	private static final Object NONE = new Object();
+
 	private ThingEventType eventType;
 	private JsonObject event;
 	private IThing thing;
+	private volatile Object decoded;
 	
 	public ThingEventType getEventType() {
 		return eventType;
@@ -51,6 +54,38 @@ public class ThingEvent {
 	
 	public void setThing(IThing thing) {
 		this.thing = thing;
+		this.decoded = null;
+	}
+
+	/**
+	 * Decode the thing with the codec registered for its type. The result is
+	 * kept, so every subscriber of the event shares one decoded object.
+	 * @return the decoded object, or null if there is no thing or its type
+	 * has no codec
+	 */
+	public Object getDecoded() {
+		Object result = decoded;
+		if(result == null) {
+			synchronized (this) {
+				result = decoded;
+				if(result == null) {
+					result = thing != null ? ThingCodecs.getInstance().decode(thing) : null;
+					if(result == null)
+						result = NONE;
+					decoded = result;
+				}
+			}
+		}
+		return result != NONE ? result : null;
+	}
+
+	/**
+	 * @param type: the class the thing should decode to, e.g. ProxyIntent.class
+	 * @return the decoded object, or null if the thing does not decode to the class
+	 */
+	public <T> T getDecoded(Class<T> type) {
+		Object result = getDecoded();
+		return type.isInstance(result) ? type.cast(result) : null;
 	}
 	
 	public String toString() {
@@ -0,0 +1,305 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The things this process has seen on the blackboard, indexed by GUID and
+ * by type, parent and state so queries do not scan the whole store.
+ *
+ * The store keeps the indexes up to date only for changes made through it,
+ * so the state of a stored thing must be changed with setState() rather
+ * than on the thing itself. Queries return a snapshot that is safe to
+ * iterate while the store changes. Indexing reads only the attributes a
+ * lazily deserialized thing decodes up front, so storing one leaves its
+ * category and data undecoded.
+ *
+ * Things expire at createTime + lifeSpan, tracked in a timer wheel, and
+ * once the store holds more than its capacity the least important thing
+ * is evicted, the oldest first among equals. Expired and evicted things
+ * are handed back to the caller, which tells the subscribers.
+ */
+public class ThingStore {
+
+	public static final int DEFAULT_CAPACITY 		= 10000;
+	public static final long TICK_MILLIS 			= 1000;
+	private static final int WHEEL_SLOTS 			= 512;
+
+	private static final Comparator<Entry> BY_IMPORTANCE = new Comparator<Entry>() {
+		public int compare(Entry a, Entry b) {
+			int result = Double.compare(a.importance, b.importance);
+			return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+		}
+	};
+
+	private final Map<String, Entry> things = new HashMap<String, Entry>();
+	private final TreeSet<Entry> byImportance = new TreeSet<Entry>(BY_IMPORTANCE);
+	private final TimerWheel<Entry> expiry = new TimerWheel<Entry>(WHEEL_SLOTS, TICK_MILLIS, System.currentTimeMillis());
+	private int capacity = DEFAULT_CAPACITY;
+	private long sequence = 0;
+	private final Map<String, Map<String, IThing>> byType = new HashMap<String, Map<String, IThing>>();
+	private final Map<String, Map<String, IThing>> byParent = new HashMap<String, Map<String, IThing>>();
+	private final Map<String, Map<String, IThing>> byState = new HashMap<String, Map<String, IThing>>();
+
+	/**
+	 * Add a thing, replacing any thing with the same GUID
+	 * @param thing: the thing
+	 * @return the thing it replaced, or null
+	 */
+	public IThing add(IThing thing) {
+		return add(thing, null);
+	}
+
+	/**
+	 * Add a thing, replacing any thing with the same GUID, and evict the least
+	 * important things if the store is over capacity
+	 * @param thing: the thing
+	 * @param evicted: receives the evicted things, may be null
+	 * @return the thing it replaced, or null
+	 */
+	public synchronized IThing add(IThing thing, List<IThing> evicted) {
+		Entry previous = things.remove(thing.getGuid());
+		if(previous != null)
+			unindex(previous);
+		Entry entry = new Entry(thing, sequence++);
+		things.put(thing.getGuid(), entry);
+		index(entry);
+		evict(evicted);
+		return previous != null ? previous.thing : null;
+	}
+
+	/**
+	 * @param guid: the unique id given at the time of creation
+	 * @return the removed thing, or null if it was not stored
+	 */
+	public synchronized IThing remove(String guid) {
+		Entry entry = things.remove(guid);
+		if(entry == null)
+			return null;
+		unindex(entry);
+		return entry.thing;
+	}
+
+	/**
+	 * @param guid: the unique id given at the time of creation
+	 * @param state: the new state
+	 * @return the updated thing, or null if it was not stored
+	 */
+	public synchronized IThing setState(String guid, String state) {
+		Entry entry = things.get(guid);
+		if(entry == null)
+			return null;
+		remove(byState, entry.thing.getState(), entry.thing);
+		entry.thing.setState(state);
+		put(byState, state, entry.thing);
+		return entry.thing;
+	}
+
+	/**
+	 * @param guid: the unique id given at the time of creation
+	 * @param importance: the priority
+	 * @return the updated thing, or null if it was not stored
+	 */
+	public synchronized IThing setImportance(String guid, double importance) {
+		Entry entry = things.get(guid);
+		if(entry == null)
+			return null;
+		byImportance.remove(entry);
+		entry.thing.setImportance(importance);
+		entry.importance = importance;
+		byImportance.add(entry);
+		return entry.thing;
+	}
+
+	/**
+	 * Remove every thing whose lifespan has run out
+	 * @param nowMillis: the current time
+	 * @return the expired things
+	 */
+	public synchronized List<IThing> expire(long nowMillis) {
+		List<Entry> due = new ArrayList<Entry>();
+		expiry.advance(nowMillis, due);
+		List<IThing> expired = new ArrayList<IThing>(due.size());
+		for(Entry entry : due) {
+			things.remove(entry.thing.getGuid());
+			entry.timeout = null;
+			unindex(entry);
+			expired.add(entry.thing);
+		}
+		return expired;
+	}
+
+	/**
+	 * Set how many things the store holds before evicting
+	 * @param capacity: number of things, at least 1
+	 * @return the things evicted to fit the new capacity
+	 */
+	public synchronized List<IThing> setCapacity(int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1");
+		this.capacity = capacity;
+		List<IThing> evicted = new ArrayList<IThing>();
+		evict(evicted);
+		return evicted;
+	}
+
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized IThing get(String guid) {
+		Entry entry = things.get(guid);
+		return entry != null ? entry.thing : null;
+	}
+
+	public synchronized boolean contains(String guid) {
+		return things.containsKey(guid);
+	}
+
+	public synchronized int size() {
+		return things.size();
+	}
+
+	/**
+	 * @return every stored thing
+	 */
+	public synchronized List<IThing> getAll() {
+		List<IThing> all = new ArrayList<IThing>(things.size());
+		for(Entry entry : things.values()) {
+			all.add(entry.thing);
+		}
+		return all;
+	}
+
+	/**
+	 * @param type: the thing type, e.g. Person
+	 * @return the stored things of the type, oldest first
+	 */
+	public synchronized List<IThing> findByType(String type) {
+		return find(byType, type);
+	}
+
+	/**
+	 * @param parentGuid: GUID of the parent
+	 * @return the stored children of the thing, oldest first
+	 */
+	public synchronized List<IThing> childrenOf(String parentGuid) {
+		return find(byParent, parentGuid);
+	}
+
+	/**
+	 * @param state: the state, e.g. ADDED
+	 * @return the stored things in the state, in the order they reached it
+	 */
+	public synchronized List<IThing> findByState(String state) {
+		return find(byState, state);
+	}
+
+	public synchronized void clear() {
+		things.clear();
+		byImportance.clear();
+		expiry.clear();
+		byType.clear();
+		byParent.clear();
+		byState.clear();
+	}
+
+	private void evict(List<IThing> evicted) {
+		while(things.size() > capacity) {
+			Entry entry = byImportance.first();
+			things.remove(entry.thing.getGuid());
+			unindex(entry);
+			if(evicted != null)
+				evicted.add(entry.thing);
+		}
+	}
+
+	private void index(Entry entry) {
+		IThing thing = entry.thing;
+		put(byType, thing.getType(), thing);
+		put(byParent, thing.getParentId(), thing);
+		put(byState, thing.getState(), thing);
+		byImportance.add(entry);
+		long deadline = thing.getCreateTime() * 1000 + (long) (thing.getLifeSpan() * 1000);
+		entry.timeout = expiry.schedule(entry, deadline);
+	}
+
+	private void unindex(Entry entry) {
+		IThing thing = entry.thing;
+		remove(byType, thing.getType(), thing);
+		remove(byParent, thing.getParentId(), thing);
+		remove(byState, thing.getState(), thing);
+		byImportance.remove(entry);
+		expiry.cancel(entry.timeout);
+		entry.timeout = null;
+	}
+
+	private static void put(Map<String, Map<String, IThing>> index, String key, IThing thing) {
+		if(key == null || key.isEmpty())
+			return;
+		Map<String, IThing> bucket = index.get(key);
+		if(bucket == null) {
+			bucket = new LinkedHashMap<String, IThing>();
+			index.put(key, bucket);
+		}
+		bucket.put(thing.getGuid(), thing);
+	}
+
+	private static void remove(Map<String, Map<String, IThing>> index, String key, IThing thing) {
+		if(key == null || key.isEmpty())
+			return;
+		Map<String, IThing> bucket = index.get(key);
+		if(bucket != null) {
+			bucket.remove(thing.getGuid());
+			if(bucket.isEmpty())
+				index.remove(key);
+		}
+	}
+
+	private static List<IThing> find(Map<String, Map<String, IThing>> index, String key) {
+		Map<String, IThing> bucket = index.get(key);
+		if(bucket == null)
+			return Collections.emptyList();
+		return new ArrayList<IThing>(bucket.values());
+	}
+
+	/**
+	 * A stored thing with what its importance and expiry were indexed under
+	 */
+	private static final class Entry {
+
+		final IThing thing;
+		final long sequence;
+		double importance;
+		TimerWheel.Timeout<Entry> timeout;
+
+		Entry(IThing thing, long sequence) {
+			this.thing = thing;
+			this.sequence = sequence;
+			this.importance = thing.getImportance();
+		}
+	}
+}
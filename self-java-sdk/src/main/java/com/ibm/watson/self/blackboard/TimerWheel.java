@@ -0,0 +1,168 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.List;
+
+/**
+ * A hashed timer wheel. Items are hung in the slot of the tick they are due
+ * in, so scheduling and cancelling cost O(1) however many items wait, and
+ * advancing the wheel only visits the slots of the ticks that passed.
+ * Items due more than one revolution ahead share a slot with nearer ones
+ * and are skipped until their tick comes round.
+ *
+ * Not thread safe, the owner must hold its own lock.
+ */
+public class TimerWheel<T> {
+
+	private final Timeout<T>[] slots;
+	private final int mask;
+	private final long tickMillis;
+	private long currentTick;
+	private int size;
+
+	/**
+	 * @param slotCount: number of slots, rounded up to a power of two
+	 * @param tickMillis: time each slot covers
+	 * @param startMillis: the time the wheel starts at
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TimerWheel(int slotCount, long tickMillis, long startMillis) {
+		if(tickMillis < 1)
+			throw new IllegalArgumentException("tickMillis must be at least 1");
+		int count = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+		this.slots = new Timeout[count];
+		this.mask = count - 1;
+		this.tickMillis = tickMillis;
+		this.currentTick = startMillis / tickMillis;
+	}
+
+	/**
+	 * @param item: the item
+	 * @param deadlineMillis: when the item is due, items already due
+	 * expire on the next advance
+	 * @return the handle to cancel it with
+	 */
+	public Timeout<T> schedule(T item, long deadlineMillis) {
+		long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick);
+		Timeout<T> timeout = new Timeout<T>(item, tick);
+		int index = (int) (tick & mask);
+		timeout.next = slots[index];
+		if(timeout.next != null)
+			timeout.next.previous = timeout;
+		slots[index] = timeout;
+		size++;
+		return timeout;
+	}
+
+	/**
+	 * @param timeout: the handle returned by schedule()
+	 * @return false if it already expired or was cancelled
+	 */
+	public boolean cancel(Timeout<T> timeout) {
+		if(timeout == null || timeout.unlinked)
+			return false;
+		unlink(timeout);
+		return true;
+	}
+
+	/**
+	 * Expire every item due at or before the given time
+	 * @param nowMillis: the current time
+	 * @param expired: receives the expired items
+	 */
+	public void advance(long nowMillis, List<T> expired) {
+		long nowTick = nowMillis / tickMillis;
+		if(nowTick - currentTick > mask) {
+			for(int i = 0; i < slots.length; i++) {
+				expire(i, nowTick, expired);
+			}
+		}
+		else {
+			for(long tick = currentTick; tick <= nowTick; tick++) {
+				expire((int) (tick & mask), tick, expired);
+			}
+		}
+		currentTick = Math.max(currentTick, nowTick + 1);
+	}
+
+	private void expire(int index, long tick, List<T> expired) {
+		Timeout<T> timeout = slots[index];
+		while(timeout != null) {
+			Timeout<T> next = timeout.next;
+			if(timeout.tick <= tick) {
+				unlink(timeout);
+				expired.add(timeout.item);
+			}
+			timeout = next;
+		}
+	}
+
+	private void unlink(Timeout<T> timeout) {
+		if(timeout.previous != null)
+			timeout.previous.next = timeout.next;
+		else
+			slots[(int) (timeout.tick & mask)] = timeout.next;
+		if(timeout.next != null)
+			timeout.next.previous = timeout.previous;
+		timeout.next = null;
+		timeout.previous = null;
+		timeout.unlinked = true;
+		size--;
+	}
+
+	/**
+	 * @return number of items waiting
+	 */
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for(int i = 0; i < slots.length; i++) {
+			Timeout<T> timeout = slots[i];
+			while(timeout != null) {
+				timeout.unlinked = true;
+				timeout = timeout.next;
+			}
+			slots[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * An item waiting in the wheel
+	 */
+	public static final class Timeout<T> {
+
+		private final T item;
+		private final long tick;
+		private Timeout<T> next;
+		private Timeout<T> previous;
+		private boolean unlinked;
+
+		Timeout(T item, long tick) {
+			this.item = item;
+			this.tick = tick;
+		}
+
+		public T getItem() {
+			return item;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * How the robot currently feels, from 0 (sad) to 1 (happy)
+ */
+public final class EmotionalState {
+
+	public static final String TYPE = "EmotionalState";
+
+	public static final IThingCodec<EmotionalState> CODEC = new IThingCodec<EmotionalState>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public EmotionalState decode(IThing thing) {
+			return new EmotionalState(Fields.getDouble(thing, "m_EmotionalState", 0.5));
+		}
+	};
+
+	private final double value;
+
+	public EmotionalState(double value) {
+		this.value = value;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public String toString() {
+		return TYPE + ": " + value;
+	}
+}
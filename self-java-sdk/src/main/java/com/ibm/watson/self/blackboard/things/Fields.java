@@ -0,0 +1,61 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.blackboard.IThing;
+
+/**
+ * Reads attributes of a thing, looking in m_Data first and then in the body
+ */
+class Fields {
+
+	private Fields() {
+	}
+
+	static JsonElement get(IThing thing, String name) {
+		JsonObject data = thing.getData();
+		if(data != null && data.has(name) && !data.get(name).isJsonNull())
+			return data.get(name);
+		JsonObject body = thing.getBody();
+		if(body != null && body.has(name) && !body.get(name).isJsonNull())
+			return body.get(name);
+		return null;
+	}
+
+	static String getString(IThing thing, String name) {
+		JsonElement element = get(thing, name);
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+	}
+
+	static double getDouble(IThing thing, String name, double fallback) {
+		JsonElement element = get(thing, name);
+		return element != null && element.isJsonPrimitive() ? element.getAsDouble() : fallback;
+	}
+
+	static JsonObject getObject(IThing thing, String name) {
+		JsonElement element = get(thing, name);
+		return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+	}
+
+	static String getString(JsonObject object, String name) {
+		JsonElement element = object.get(name);
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+	}
+}
@@ -0,0 +1,81 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * A goal for the planner to achieve
+ */
+public final class Goal {
+
+	public static final String TYPE = "Goal";
+
+	public static final IThingCodec<Goal> CODEC = new IThingCodec<Goal>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public Goal decode(IThing thing) {
+			Map<String, String> params = new LinkedHashMap<String, String>();
+			JsonObject paramsObject = Fields.getObject(thing, "m_Params");
+			if(paramsObject != null) {
+				for(Entry<String, JsonElement> entry : paramsObject.entrySet()) {
+					if(entry.getValue().isJsonPrimitive())
+						params.put(entry.getKey(), entry.getValue().getAsString());
+				}
+			}
+			return new Goal(Fields.getString(thing, "m_Name"), params);
+		}
+	};
+
+	private final String name;
+	private final Map<String, String> params;
+
+	/**
+	 * @param name: the goal name, e.g. Photography
+	 * @param params: the parameters, copied
+	 */
+	public Goal(String name, Map<String, String> params) {
+		this.name = name;
+		this.params = Collections.unmodifiableMap(new LinkedHashMap<String, String>(params));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the parameters with plain values, nested values are left out
+	 */
+	public Map<String, String> getParams() {
+		return params;
+	}
+
+	public String toString() {
+		return TYPE + ": " + name;
+	}
+}
@@ -0,0 +1,56 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * A beat detected in music the robot hears
+ */
+public final class MusicBeat {
+
+	public static final String TYPE = "MusicBeat";
+
+	public static final IThingCodec<MusicBeat> CODEC = new IThingCodec<MusicBeat>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public MusicBeat decode(IThing thing) {
+			return new MusicBeat((int) Fields.getDouble(thing, "BPM", 0));
+		}
+	};
+
+	private final int bpm;
+
+	public MusicBeat(int bpm) {
+		this.bpm = bpm;
+	}
+
+	/**
+	 * @return beats per minute, 0 if the thing did not carry them
+	 */
+	public int getBpm() {
+		return bpm;
+	}
+
+	public String toString() {
+		return TYPE + ": " + bpm;
+	}
+}
@@ -0,0 +1,87 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * A person seen by one of the robot's sensors
+ */
+public final class Person {
+
+	public static final String TYPE = "Person";
+
+	public static final IThingCodec<Person> CODEC = new IThingCodec<Person>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public Person decode(IThing thing) {
+			return new Person(Fields.getString(thing, "m_PersonName"), 
+					Fields.getString(thing, "m_PersonGender"), 
+					Fields.getString(thing, "m_PersonAge"), 
+					Fields.getString(thing, "m_SensorName"), 
+					Fields.getString(thing, "m_SensorId"));
+		}
+	};
+
+	private final String name;
+	private final String gender;
+	private final String age;
+	private final String sensorName;
+	private final String sensorId;
+
+	public Person(String name, String gender, String age, String sensorName, String sensorId) {
+		this.name = name;
+		this.gender = gender;
+		this.age = age;
+		this.sensorName = sensorName;
+		this.sensorId = sensorId;
+	}
+
+	/**
+	 * @return the name, or null if the person was not recognized
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public String getGender() {
+		return gender;
+	}
+
+	/**
+	 * @return the estimated age range, e.g. 25-35
+	 */
+	public String getAge() {
+		return age;
+	}
+
+	public String getSensorName() {
+		return sensorName;
+	}
+
+	public String getSensorId() {
+		return sensorId;
+	}
+
+	public String toString() {
+		return TYPE + ": " + name;
+	}
+}
@@ -0,0 +1,169 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * A classified utterance handed to agents, with the intents and entities
+ * the conversation service found in it
+ */
+public final class ProxyIntent {
+
+	public static final String TYPE = "ProxyIntent";
+
+	public static final IThingCodec<ProxyIntent> CODEC = new IThingCodec<ProxyIntent>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public ProxyIntent decode(IThing thing) {
+			List<Intent> intents = new ArrayList<Intent>();
+			List<Entity> entities = new ArrayList<Entity>();
+			JsonObject intent = Fields.getObject(thing, "m_Intent");
+			JsonObject conversation = intent != null && intent.has("conversation") 
+					&& intent.get("conversation").isJsonObject() ? intent.getAsJsonObject("conversation") : null;
+			if(conversation != null) {
+				for(JsonObject element : objects(conversation, "intents")) {
+					JsonElement confidence = element.get("confidence");
+					intents.add(new Intent(Fields.getString(element, "intent"), 
+							confidence != null && confidence.isJsonPrimitive() ? confidence.getAsDouble() : 0));
+				}
+				for(JsonObject element : objects(conversation, "entities")) {
+					entities.add(new Entity(Fields.getString(element, "entity"), 
+							Fields.getString(element, "value")));
+				}
+			}
+			return new ProxyIntent(Fields.getString(thing, "m_Text"), intents, entities);
+		}
+	};
+
+	private final String text;
+	private final List<Intent> intents;
+	private final List<Entity> entities;
+
+	/**
+	 * @param text: the utterance
+	 * @param intents: the intents, best first, copied
+	 * @param entities: the entities, copied
+	 */
+	public ProxyIntent(String text, List<Intent> intents, List<Entity> entities) {
+		this.text = text;
+		this.intents = Collections.unmodifiableList(new ArrayList<Intent>(intents));
+		this.entities = Collections.unmodifiableList(new ArrayList<Entity>(entities));
+	}
+
+	/**
+	 * @return the utterance, or null if the thing did not carry it
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return the name of the best intent, or null if there was none
+	 */
+	public String getIntent() {
+		return intents.isEmpty() ? null : intents.get(0).getName();
+	}
+
+	/**
+	 * @return the intents, best first
+	 */
+	public List<Intent> getIntents() {
+		return intents;
+	}
+
+	public List<Entity> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * @param entity: the entity name, e.g. animals
+	 * @return the value of the first entity with the name, or null
+	 */
+	public String getEntity(String entity) {
+		for(Entity element : entities) {
+			if(entity.equals(element.getEntity()))
+				return element.getValue();
+		}
+		return null;
+	}
+
+	public String toString() {
+		return TYPE + ": " + getIntent();
+	}
+
+	private static List<JsonObject> objects(JsonObject parent, String name) {
+		List<JsonObject> objects = new ArrayList<JsonObject>();
+		JsonElement element = parent.get(name);
+		if(element != null && element.isJsonArray()) {
+			for(JsonElement item : (JsonArray) element) {
+				if(item.isJsonObject())
+					objects.add(item.getAsJsonObject());
+			}
+		}
+		return objects;
+	}
+
+	public static final class Intent {
+
+		private final String name;
+		private final double confidence;
+
+		public Intent(String name, double confidence) {
+			this.name = name;
+			this.confidence = confidence;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getConfidence() {
+			return confidence;
+		}
+	}
+
+	public static final class Entity {
+
+		private final String entity;
+		private final String value;
+
+		public Entity(String entity, String value) {
+			this.entity = entity;
+			this.value = value;
+		}
+
+		public String getEntity() {
+			return entity;
+		}
+
+		public String getValue() {
+			return value;
+		}
+	}
+}
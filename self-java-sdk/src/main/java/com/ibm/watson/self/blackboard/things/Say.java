@@ -0,0 +1,53 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * Something for the robot to say
+ */
+public final class Say {
+
+	public static final String TYPE = "Say";
+
+	public static final IThingCodec<Say> CODEC = new IThingCodec<Say>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public Say decode(IThing thing) {
+			return new Say(Fields.getString(thing, "m_Text"));
+		}
+	};
+
+	private final String text;
+
+	public Say(String text) {
+		this.text = text;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public String toString() {
+		return TYPE + ": " + text;
+	}
+}
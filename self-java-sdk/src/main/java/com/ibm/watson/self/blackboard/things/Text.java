@@ -0,0 +1,70 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard.things;
+
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.IThingCodec;
+
+/**
+ * Text that was heard or typed, before it is classified
+ */
+public final class Text {
+
+	public static final String TYPE = "Text";
+
+	public static final IThingCodec<Text> CODEC = new IThingCodec<Text>() {
+		public String getType() {
+			return TYPE;
+		}
+
+		public Text decode(IThing thing) {
+			return new Text(Fields.getString(thing, "m_Text"), 
+					Fields.getDouble(thing, "m_fConfidence", 1.0), 
+					Fields.getString(thing, "m_Language"));
+		}
+	};
+
+	private final String text;
+	private final double confidence;
+	private final String language;
+
+	public Text(String text, double confidence, String language) {
+		this.text = text;
+		this.confidence = confidence;
+		this.language = language;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * @return the language, or null if the thing did not say
+	 */
+	public String getLanguage() {
+		return language;
+	}
+
+	public String toString() {
+		return TYPE + ": " + text;
+	}
+}
@@ -18,14 +18,21 @@
 package com.ibm.watson.self.gestures;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.Gauge;
+import com.ibm.watson.self.metrics.LatencyHistogram;
+import com.ibm.watson.self.metrics.MetricsConstants;
+import com.ibm.watson.self.metrics.MetricsRegistry;
 import com.ibm.watson.self.sensors.SensorConstants;
 import com.ibm.watson.self.topics.IEvent;
 import com.ibm.watson.self.topics.TopicClient;
@@ -38,13 +45,23 @@ public class GestureManager implements IEvent {
 	private static GestureManager instance = null;
 	private HashMap<String, IGesture> gesturesMap = new HashMap<String, IGesture>();
 	private HashMap<String, Boolean> overrideMap = new HashMap<String, Boolean>();
-	private List<String> inputMap = new ArrayList<String>();
+	private List<QueuedEvent> inputMap = Collections.synchronizedList(new ArrayList<QueuedEvent>());
 	private boolean started = false;
+	private final ConcurrentHashMap<IGesture, Long> executeStarts = new ConcurrentHashMap<IGesture, Long>();
+	private final LatencyHistogram queueWait = 
+			MetricsRegistry.getInstance().histogram(MetricsConstants.GESTURE_QUEUE_WAIT);
+	private final LatencyHistogram executionTime = 
+			MetricsRegistry.getInstance().histogram(MetricsConstants.GESTURE_EXECUTION);
 	
 	private static Logger logger = LogManager.getLogger(GestureManager.class.getName());
 	
 	public GestureManager() {
 		TopicClient.getInstance().subscribe("gesture-manager", this);
+		MetricsRegistry.getInstance().gauge(MetricsConstants.GESTURE_QUEUE_DEPTH, new Gauge() {
+			public long getValue() {
+				return inputMap.size();
+			}
+		});
 		started = true;
 	}
 	
@@ -110,11 +127,13 @@ public class GestureManager implements IEvent {
 	 * @param event: the string representation of the event
 	 */
 	public void onEvent(String event) {
+		QueuedEvent queued = new QueuedEvent(event);
 		if(inputMap.size() == 0) {
-			Thread requests = new Thread(new Worker(event));
+			Thread requests = new Thread(new Worker(queued));
 			requests.start();
 		}
-		inputMap.add(event);
+		inputMap.add(queued);
+		FlightEvents.gestureQueued(inputMap.size());
 	}
 	
 	/**
@@ -139,6 +158,13 @@ public class GestureManager implements IEvent {
 	 */
 	public void onGestureDone(IGesture gesture, boolean error) {
 		logger.entry();
+		Long start = executeStarts.remove(gesture);
+		long elapsed = 0;
+		if(start != null) {
+			elapsed = System.nanoTime() - start;
+			executionTime.record(elapsed);
+		}
+		FlightEvents.gestureDone(gesture.getGestureId(), error, elapsed);
 		JsonObject wrapperObject = new JsonObject();
 		wrapperObject.addProperty(GestureConstants.EVENT, GestureConstants.EXECUTE_DONE);
 		wrapperObject.addProperty(GestureConstants.GESTURE_ID, gesture.getGestureId());
@@ -155,24 +181,41 @@ public class GestureManager implements IEvent {
 		logger.exit();
 	}
 	
+	/**
+	 * An event waiting for the gesture ahead of it to finish
+	 */
+	private static class QueuedEvent {
+
+		final String event;
+		final long queued;
+
+		QueuedEvent(String event) {
+			this.event = event;
+			this.queued = System.nanoTime();
+		}
+	}
+
 	/**
 	 * Worker thread to make execution async
 	 *
 	 */
 	class Worker implements Runnable {
 		
-		private String event;
+		private QueuedEvent event;
 		
-		public Worker(String event) {
+		Worker(QueuedEvent event) {
 			this.event = event;
 		}
 		public void run() {
 			logger.entry();
+			long wait = System.nanoTime() - event.queued;
+			queueWait.record(wait);
 			JsonParser parser = new JsonParser();
-			JsonObject wrapperObject = parser.parse(event).getAsJsonObject();
+			JsonObject wrapperObject = parser.parse(event.event).getAsJsonObject();
 			String gestureId = wrapperObject.get(GestureConstants.GESTURE_ID).getAsString();
 			String instanceId = wrapperObject.get(GestureConstants.INSTANCE_ID).getAsString();
 			String eventName = wrapperObject.get(GestureConstants.EVENT).getAsString();
+			FlightEvents.gestureStarted(gestureId, eventName, wait);
 			IGesture gesture = gesturesMap.get(gestureId);
 			if(gesture == null) {
 				logger.error("Failed to find gesture: " + gestureId);
@@ -181,6 +224,7 @@ public class GestureManager implements IEvent {
 			
 			if(eventName.equals(GestureConstants.EXECUTE_GESTURE)) {
 				JsonObject paramsObject = wrapperObject.get(GestureConstants.PARAMS).getAsJsonObject();
+				executeStarts.put(gesture, System.nanoTime());
 				if(!gesture.execute(paramsObject)) {
 					logger.error("Failed to execute gesture: " + gestureId);
 				}
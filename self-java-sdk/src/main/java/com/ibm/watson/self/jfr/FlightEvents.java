@@ -0,0 +1,155 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.jfr;
+
+/**
+ * Emits Java Flight Recorder events for SDK activity, so stalls can be lined
+ * up with GC pauses and parked threads in one recording. Every event is in
+ * the "Self SDK" category and carries its duration in a field, since it is
+ * emitted once the measured work is over.
+ *
+ * On runtimes without JFR every method returns immediately; the event
+ * classes are never loaded. With JFR present but no recording asking for
+ * the events, the JIT removes the event objects, so calls cost close to
+ * nothing either way.
+ */
+public class FlightEvents {
+
+	private static final boolean AVAILABLE = isJfrPresent();
+
+	private static boolean isJfrPresent() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+		catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if the runtime supports flight recorder events
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	/**
+	 * A frame was written to the socket
+	 * @param topic: the topic, null for control messages
+	 * @param binary: true for binary frames
+	 * @param size: bytes of data, characters for text
+	 * @param queueNanos: time the frame waited for the writer
+	 */
+	public static void frameSent(String topic, boolean binary, long size, long queueNanos) {
+		if(AVAILABLE)
+			JfrEvents.frameSent(topic, binary, size, queueNanos);
+	}
+
+	/**
+	 * A frame arrived and was decoded
+	 * @param topic: the topic
+	 * @param binary: true for binary frames
+	 * @param size: bytes of data, characters for text
+	 * @param parseNanos: time spent decoding the envelope
+	 */
+	public static void frameReceived(String topic, boolean binary, long size, long parseNanos) {
+		if(AVAILABLE)
+			JfrEvents.frameReceived(topic, binary, size, parseNanos);
+	}
+
+	/**
+	 * The connection was lost and a new attempt is scheduled
+	 * @param attempt: attempts since the last open connection
+	 * @param delayMillis: wait before the attempt
+	 * @param reason: why, e.g. the close reason or failure message
+	 */
+	public static void reconnect(int attempt, long delayMillis, String reason) {
+		if(AVAILABLE)
+			JfrEvents.reconnect(attempt, delayMillis, reason);
+	}
+
+	/**
+	 * A thing from the blackboard was decoded
+	 * @param type: the thing type
+	 * @param guid: the thing guid
+	 * @param decodeNanos: time spent deserializing it
+	 */
+	public static void thingAdded(String type, String guid, long decodeNanos) {
+		if(AVAILABLE)
+			JfrEvents.thingAdded(type, guid, decodeNanos);
+	}
+
+	/**
+	 * A blackboard subscriber was called
+	 * @param type: the thing type
+	 * @param eventType: e.g. TE_ADDED
+	 * @param subscriber: class of the subscriber
+	 * @param durationNanos: time spent in the callback
+	 */
+	public static void thingDispatched(String type, String eventType, Class<?> subscriber, long durationNanos) {
+		if(AVAILABLE)
+			JfrEvents.thingDispatched(type, eventType, subscriber, durationNanos);
+	}
+
+	/**
+	 * A gesture event was queued
+	 * @param queueDepth: events queued, including this one
+	 */
+	public static void gestureQueued(int queueDepth) {
+		if(AVAILABLE)
+			JfrEvents.gestureQueued(queueDepth);
+	}
+
+	/**
+	 * A gesture event was taken off the queue
+	 * @param gestureId: the gesture
+	 * @param event: e.g. execute_gesture
+	 * @param waitNanos: time the event spent queued
+	 */
+	public static void gestureStarted(String gestureId, String event, long waitNanos) {
+		if(AVAILABLE)
+			JfrEvents.gestureStarted(gestureId, event, waitNanos);
+	}
+
+	/**
+	 * A gesture reported it finished
+	 * @param gestureId: the gesture
+	 * @param error: true if it failed
+	 * @param executionNanos: time from execute to done, 0 if unknown
+	 */
+	public static void gestureDone(String gestureId, boolean error, long executionNanos) {
+		if(AVAILABLE)
+			JfrEvents.gestureDone(gestureId, error, executionNanos);
+	}
+
+	/**
+	 * A sensor handed over a frame of data
+	 * @param sensorId: the sensor
+	 * @param size: bytes of data
+	 * @param sent: false if the frame was dropped
+	 * @param durationNanos: time spent in SensorManager.sendData
+	 */
+	public static void sensorFrame(String sensorId, long size, boolean sent, long durationNanos) {
+		if(AVAILABLE)
+			JfrEvents.sensorFrame(sensorId, size, sent, durationNanos);
+	}
+}
@@ -0,0 +1,218 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder event types. Only loaded by FlightEvents once it has
+ * found jdk.jfr on the runtime, but compiling them needs a JDK with jdk.jfr. Field names must not clash with the fields
+ * every event has implicitly, such as startTime and duration.
+ */
+class JfrEvents {
+
+	static final String CATEGORY 	= "Self SDK";
+	static final String PREFIX		= "com.ibm.watson.self.";
+
+	static void frameSent(String topic, boolean binary, long size, long queueNanos) {
+		FrameSent event = new FrameSent();
+		if(event.shouldCommit()) {
+			event.topic = topic;
+			event.binary = binary;
+			event.size = size;
+			event.queueTime = queueNanos;
+			event.commit();
+		}
+	}
+
+	static void frameReceived(String topic, boolean binary, long size, long parseNanos) {
+		FrameReceived event = new FrameReceived();
+		if(event.shouldCommit()) {
+			event.topic = topic;
+			event.binary = binary;
+			event.size = size;
+			event.parseTime = parseNanos;
+			event.commit();
+		}
+	}
+
+	static void reconnect(int attempt, long delayMillis, String reason) {
+		Reconnect event = new Reconnect();
+		if(event.shouldCommit()) {
+			event.attempt = attempt;
+			event.delay = delayMillis;
+			event.reason = reason;
+			event.commit();
+		}
+	}
+
+	static void thingAdded(String type, String guid, long decodeNanos) {
+		ThingAdded event = new ThingAdded();
+		if(event.shouldCommit()) {
+			event.type = type;
+			event.guid = guid;
+			event.decodeTime = decodeNanos;
+			event.commit();
+		}
+	}
+
+	static void thingDispatched(String type, String eventType, Class<?> subscriber, long durationNanos) {
+		ThingDispatch event = new ThingDispatch();
+		if(event.shouldCommit()) {
+			event.type = type;
+			event.eventType = eventType;
+			event.subscriber = subscriber;
+			event.callTime = durationNanos;
+			event.commit();
+		}
+	}
+
+	static void gestureQueued(int queueDepth) {
+		GestureQueued event = new GestureQueued();
+		if(event.shouldCommit()) {
+			event.queueDepth = queueDepth;
+			event.commit();
+		}
+	}
+
+	static void gestureStarted(String gestureId, String eventName, long waitNanos) {
+		GestureStarted event = new GestureStarted();
+		if(event.shouldCommit()) {
+			event.gestureId = gestureId;
+			event.event = eventName;
+			event.queueWait = waitNanos;
+			event.commit();
+		}
+	}
+
+	static void gestureDone(String gestureId, boolean error, long executionNanos) {
+		GestureDone event = new GestureDone();
+		if(event.shouldCommit()) {
+			event.gestureId = gestureId;
+			event.error = error;
+			event.executionTime = executionNanos;
+			event.commit();
+		}
+	}
+
+	static void sensorFrame(String sensorId, long size, boolean sent, long durationNanos) {
+		SensorFrame event = new SensorFrame();
+		if(event.shouldCommit()) {
+			event.sensorId = sensorId;
+			event.size = size;
+			event.sent = sent;
+			event.callTime = durationNanos;
+			event.commit();
+		}
+	}
+
+	@Name(PREFIX + "FrameSent")
+	@Label("Frame Sent")
+	@Category({ CATEGORY, "Topics" })
+	@Description("A frame was written to the TopicManager socket")
+	static class FrameSent extends Event {
+		@Label("Topic") String topic;
+		@Label("Binary") boolean binary;
+		@Label("Size") @DataAmount long size;
+		@Label("Queue Time") @Timespan long queueTime;
+	}
+
+	@Name(PREFIX + "FrameReceived")
+	@Label("Frame Received")
+	@Category({ CATEGORY, "Topics" })
+	@Description("A frame from the TopicManager was decoded")
+	static class FrameReceived extends Event {
+		@Label("Topic") String topic;
+		@Label("Binary") boolean binary;
+		@Label("Size") @DataAmount long size;
+		@Label("Parse Time") @Timespan long parseTime;
+	}
+
+	@Name(PREFIX + "Reconnect")
+	@Label("Reconnect")
+	@Category({ CATEGORY, "Topics" })
+	@Description("The connection was lost and a new attempt was scheduled")
+	static class Reconnect extends Event {
+		@Label("Attempt") int attempt;
+		@Label("Delay") @Timespan(Timespan.MILLISECONDS) long delay;
+		@Label("Reason") String reason;
+	}
+
+	@Name(PREFIX + "ThingAdded")
+	@Label("Thing Added")
+	@Category({ CATEGORY, "Blackboard" })
+	@Description("A thing added to the blackboard was decoded")
+	static class ThingAdded extends Event {
+		@Label("Type") String type;
+		@Label("GUID") String guid;
+		@Label("Decode Time") @Timespan long decodeTime;
+	}
+
+	@Name(PREFIX + "ThingDispatch")
+	@Label("Thing Dispatch")
+	@Category({ CATEGORY, "Blackboard" })
+	@Description("A blackboard subscriber was called")
+	static class ThingDispatch extends Event {
+		@Label("Type") String type;
+		@Label("Event Type") String eventType;
+		@Label("Subscriber") Class<?> subscriber;
+		@Label("Call Time") @Timespan long callTime;
+	}
+
+	@Name(PREFIX + "GestureQueued")
+	@Label("Gesture Queued")
+	@Category({ CATEGORY, "Gestures" })
+	static class GestureQueued extends Event {
+		@Label("Queue Depth") int queueDepth;
+	}
+
+	@Name(PREFIX + "GestureStarted")
+	@Label("Gesture Started")
+	@Category({ CATEGORY, "Gestures" })
+	static class GestureStarted extends Event {
+		@Label("Gesture") String gestureId;
+		@Label("Event") String event;
+		@Label("Queue Wait") @Timespan long queueWait;
+	}
+
+	@Name(PREFIX + "GestureDone")
+	@Label("Gesture Done")
+	@Category({ CATEGORY, "Gestures" })
+	static class GestureDone extends Event {
+		@Label("Gesture") String gestureId;
+		@Label("Error") boolean error;
+		@Label("Execution Time") @Timespan long executionTime;
+	}
+
+	@Name(PREFIX + "SensorFrame")
+	@Label("Sensor Frame")
+	@Category({ CATEGORY, "Sensors" })
+	@Description("A sensor handed a frame of data to the SensorManager")
+	static class SensorFrame extends Event {
+		@Label("Sensor") String sensorId;
+		@Label("Size") @DataAmount long size;
+		@Label("Sent") boolean sent;
+		@Label("Call Time") @Timespan long callTime;
+	}
+}
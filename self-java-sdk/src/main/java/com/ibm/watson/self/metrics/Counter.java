@@ -0,0 +1,51 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count that only goes up, safe to bump from any thread
+ */
+public class Counter {
+
+	private final AtomicLong count = new AtomicLong();
+
+	public void increment() {
+		count.incrementAndGet();
+	}
+
+	/**
+	 * @param n: amount to add
+	 */
+	public void add(long n) {
+		count.addAndGet(n);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public void reset() {
+		count.set(0);
+	}
+
+	public String toString() {
+		return Long.toString(count.get());
+	}
+}
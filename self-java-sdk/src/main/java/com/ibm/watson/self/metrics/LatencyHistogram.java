@@ -0,0 +1,145 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of durations in nanoseconds. Every power of two is
+ * split into four buckets, so percentiles are exact to within 25% while
+ * recording costs a couple of atomic increments and no allocation.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKETS 	= 4;
+	private static final int BUCKETS 		= 64 * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record one duration
+	 * @param nanos: the duration in nanoseconds, negative values count as zero
+	 */
+	public void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		long current = max.get();
+		while(nanos > current && !max.compareAndSet(current, nanos)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Record the time elapsed since a System.nanoTime() reading
+	 * @param start: the earlier reading
+	 */
+	public void recordSince(long start) {
+		record(System.nanoTime() - start);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return sum of all recorded durations in nanoseconds
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : total.get() / n;
+	}
+
+	/**
+	 * @param percentile: between 0 and 100, e.g. 99.9
+	 * @return upper bound in nanoseconds of the bucket holding the percentile
+	 */
+	public long getPercentile(double percentile) {
+		long n = count.get();
+		if(n == 0)
+			return 0;
+		long rank = (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+		if(rank < 1)
+			rank = 1;
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if(seen >= rank)
+				return Math.min(upperBound(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * @param percentile: between 0 and 100
+	 * @param unit: unit of the result
+	 * @return the percentile converted to the unit
+	 */
+	public long getPercentile(double percentile, TimeUnit unit) {
+		return unit.convert(getPercentile(percentile), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Clear all recorded values
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	private static int bucketOf(long value) {
+		if(value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS * (exponent - 1) + sub;
+	}
+
+	private static long upperBound(int bucket) {
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+		int exponent = bucket / SUB_BUCKETS + 1;
+		int sub = bucket % SUB_BUCKETS;
+		long upper = ((long) (SUB_BUCKETS + sub + 1) << (exponent - 2)) - 1;
+		return upper < 0 ? Long.MAX_VALUE : upper;
+	}
+
+	public String toString() {
+		return "count=" + getCount() + " mean=" + getMean() + "ns p50=" + getPercentile(50) 
+				+ "ns p99=" + getPercentile(99) + "ns max=" + getMax() + "ns";
+	}
+}
@@ -0,0 +1,55 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+public class MetricsConstants {
+
+	public static final String OBJECT_NAME				= "com.ibm.watson.self:type=Metrics";
+
+	public static final String TOPICS					= "topics.";
+	public static final String MESSAGES_IN				= ".messages_in";
+	public static final String MESSAGES_OUT				= ".messages_out";
+	public static final String DATA_IN					= ".data_in";
+	public static final String DATA_OUT					= ".data_out";
+	public static final String OTHER_TOPICS				= "_other";
+
+	public static final String COUNT					= ".count";
+	public static final String MEAN						= ".mean_ns";
+	public static final String P50						= ".p50_ns";
+	public static final String P99						= ".p99_ns";
+	public static final String MAX						= ".max_ns";
+
+	public static final String PARSE_TIME				= "client.parse_time";
+	public static final String DISPATCH_TIME			= "client.dispatch_time.";
+	public static final String WRITER_QUEUE_DEPTH		= "client.writer.queue_depth";
+	public static final String WRITER_REJECTED			= "client.writer.rejected";
+	public static final String DISPATCHER_DROPPED		= "client.dispatcher.dropped";
+	public static final String OUTBOX_SIZE				= "client.outbox.size";
+
+	public static final String BLACKBOARD_DELIVERY_LATENCY	= "blackboard.delivery_latency";
+	public static final String BLACKBOARD_DROPPED		= "blackboard.mailbox.dropped";
+	public static final String BLACKBOARD_SLOW_CONSUMERS	= "blackboard.slow_consumers";
+	public static final String BLACKBOARD_SKIPPED		= "blackboard.skipped";
+
+	public static final String GESTURE_QUEUE_WAIT		= "gestures.queue_wait";
+	public static final String GESTURE_EXECUTION		= "gestures.execution_time";
+	public static final String GESTURE_QUEUE_DEPTH		= "gestures.queue_depth";
+
+	public static final String SENSOR_FRAMES_SENT		= "sensors.frames_sent";
+	public static final String SENSOR_FRAMES_DROPPED	= "sensors.frames_dropped";
+}
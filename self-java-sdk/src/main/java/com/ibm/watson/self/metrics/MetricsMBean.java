@@ -0,0 +1,96 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Shows a MetricsRegistry over JMX. Every entry of the registry's snapshot
+ * is a read only long attribute, so metrics created after registration
+ * appear the next time a client fetches the MBean info.
+ */
+class MetricsMBean implements DynamicMBean {
+
+	static final String RESET = "reset";
+
+	private final MetricsRegistry registry;
+
+	MetricsMBean(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Long value = registry.getSnapshot().get(attribute);
+		if(value == null)
+			throw new AttributeNotFoundException(attribute);
+		return value;
+	}
+
+	public AttributeList getAttributes(String[] attributes) {
+		SortedMap<String, Long> snapshot = registry.getSnapshot();
+		AttributeList list = new AttributeList();
+		for(String attribute : attributes) {
+			Long value = snapshot.get(attribute);
+			if(value != null)
+				list.add(new Attribute(attribute, value));
+		}
+		return list;
+	}
+
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+	}
+
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		if(RESET.equals(actionName)) {
+			registry.reset();
+			return null;
+		}
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for(Map.Entry<String, Long> entry : registry.getSnapshot().entrySet()) {
+			attributes.add(new MBeanAttributeInfo(entry.getKey(), Long.class.getName(), 
+					entry.getKey(), true, false, false));
+		}
+		MBeanOperationInfo reset = new MBeanOperationInfo(RESET, "Zero every counter and histogram", 
+				new MBeanParameterInfo[0], Void.TYPE.getName(), MBeanOperationInfo.ACTION);
+		return new MBeanInfo(getClass().getName(), "Self SDK metrics", 
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, 
+				new MBeanOperationInfo[] { reset }, null);
+	}
+}
@@ -0,0 +1,267 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Named counters, gauges and latency histograms for the whole SDK, plus
+ * traffic per topic. Metrics are created on first use and live for the
+ * life of the registry; callers on hot paths should look a metric up once
+ * and keep it. Read them with getSnapshot(), or over JMX once
+ * registerMBean() has been called.
+ *
+ * Topics get their own counters up to maxTopics distinct topics. Traffic on
+ * any further topic is counted under "_other", so dynamic topic names such as
+ * sensor-proxy-{id} cannot grow the registry without bound. removeTopic()
+ * frees the slot of a topic that is gone.
+ */
+public class MetricsRegistry {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(MetricsRegistry.class.getName());
+
+	private static MetricsRegistry instance = null;
+
+	public static final int DEFAULT_MAX_TOPICS = 256;
+
+	private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private final ConcurrentHashMap<String, LatencyHistogram> histograms = 
+			new ConcurrentHashMap<String, LatencyHistogram>();
+	private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+	private final ConcurrentHashMap<String, TopicMetrics> topics = new ConcurrentHashMap<String, TopicMetrics>();
+	private final TopicMetrics otherTopics = new TopicMetrics(MetricsConstants.OTHER_TOPICS);
+	private volatile int maxTopics = DEFAULT_MAX_TOPICS;
+	private ObjectName objectName;
+
+	public static synchronized MetricsRegistry getInstance() {
+		if(instance == null) {
+			instance = new MetricsRegistry();
+		}
+		return instance;
+	}
+
+	/**
+	 * @param name: the metric name
+	 * @return the counter of that name, created if needed
+	 */
+	public Counter counter(String name) {
+		Counter counter = counters.get(name);
+		if(counter == null) {
+			Counter created = new Counter();
+			counter = counters.putIfAbsent(name, created);
+			if(counter == null)
+				counter = created;
+		}
+		return counter;
+	}
+
+	/**
+	 * @param name: the metric name
+	 * @return the histogram of that name, created if needed
+	 */
+	public LatencyHistogram histogram(String name) {
+		LatencyHistogram histogram = histograms.get(name);
+		if(histogram == null) {
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = histograms.putIfAbsent(name, created);
+			if(histogram == null)
+				histogram = created;
+		}
+		return histogram;
+	}
+
+	/**
+	 * Register a gauge, replacing any gauge of the same name
+	 * @param name: the metric name
+	 * @param gauge: read whenever metrics are pulled
+	 */
+	public void gauge(String name, Gauge gauge) {
+		gauges.put(name, gauge);
+	}
+
+	public void removeGauge(String name) {
+		gauges.remove(name);
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return traffic counters of the topic, created if needed, or the shared
+	 * "_other" counters once maxTopics topics have their own
+	 */
+	public TopicMetrics topic(String topic) {
+		TopicMetrics metrics = topics.get(topic);
+		if(metrics == null) {
+			if(topics.size() >= maxTopics)
+				return otherTopics;
+			TopicMetrics created = new TopicMetrics(topic);
+			metrics = topics.putIfAbsent(topic, created);
+			if(metrics == null)
+				metrics = created;
+		}
+		return metrics;
+	}
+
+	/**
+	 * Drop the counters of a topic that will not be used again
+	 * @param topic: the topic
+	 */
+	public void removeTopic(String topic) {
+		topics.remove(topic);
+	}
+
+	/**
+	 * Set how many topics get counters of their own. Lowering it does not
+	 * drop topics that already have them.
+	 * @param maxTopics: the limit
+	 */
+	public void setMaxTopics(int maxTopics) {
+		this.maxTopics = maxTopics;
+	}
+
+	public int getMaxTopics() {
+		return maxTopics;
+	}
+
+	public Map<String, Counter> getCounters() {
+		return Collections.unmodifiableMap(counters);
+	}
+
+	public Map<String, LatencyHistogram> getHistograms() {
+		return Collections.unmodifiableMap(histograms);
+	}
+
+	public Map<String, Gauge> getGauges() {
+		return Collections.unmodifiableMap(gauges);
+	}
+
+	public Map<String, TopicMetrics> getTopics() {
+		return Collections.unmodifiableMap(topics);
+	}
+
+	/**
+	 * Read every metric as a flat, sorted map. Histograms contribute their
+	 * count, mean, p50, p99 and max in nanoseconds, topics their message
+	 * counts and data sizes in each direction.
+	 * @return metric name to current value
+	 */
+	public SortedMap<String, Long> getSnapshot() {
+		SortedMap<String, Long> snapshot = new TreeMap<String, Long>();
+		for(Map.Entry<String, Counter> entry : counters.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().getCount());
+		}
+		for(Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+			try {
+				snapshot.put(entry.getKey(), entry.getValue().getValue());
+			}
+			catch (RuntimeException e) {
+				logger.error("Gauge " + entry.getKey() + " failed: " + e.getMessage());
+			}
+		}
+		for(Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+			String name = entry.getKey();
+			LatencyHistogram histogram = entry.getValue();
+			snapshot.put(name + MetricsConstants.COUNT, histogram.getCount());
+			snapshot.put(name + MetricsConstants.MEAN, histogram.getMean());
+			snapshot.put(name + MetricsConstants.P50, histogram.getPercentile(50));
+			snapshot.put(name + MetricsConstants.P99, histogram.getPercentile(99));
+			snapshot.put(name + MetricsConstants.MAX, histogram.getMax());
+		}
+		for(TopicMetrics metrics : topics.values()) {
+			putTopic(snapshot, metrics);
+		}
+		if(otherTopics.getMessagesIn() > 0 || otherTopics.getMessagesOut() > 0)
+			putTopic(snapshot, otherTopics);
+		return snapshot;
+	}
+
+	private static void putTopic(SortedMap<String, Long> snapshot, TopicMetrics metrics) {
+		String name = MetricsConstants.TOPICS + metrics.getTopic();
+		snapshot.put(name + MetricsConstants.MESSAGES_IN, metrics.getMessagesIn());
+		snapshot.put(name + MetricsConstants.MESSAGES_OUT, metrics.getMessagesOut());
+		snapshot.put(name + MetricsConstants.DATA_IN, metrics.getDataIn());
+		snapshot.put(name + MetricsConstants.DATA_OUT, metrics.getDataOut());
+	}
+
+	/**
+	 * Zero every counter, histogram and topic. Gauges are left alone.
+	 */
+	public void reset() {
+		for(Counter counter : counters.values()) {
+			counter.reset();
+		}
+		for(LatencyHistogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+		for(TopicMetrics metrics : topics.values()) {
+			metrics.reset();
+		}
+		otherTopics.reset();
+	}
+
+	/**
+	 * Publish the registry on the platform MBean server, so jconsole or any
+	 * JMX client can read it. Does nothing if already registered.
+	 * @return the name it was registered under, or null if that failed
+	 */
+	public synchronized ObjectName registerMBean() {
+		logger.entry();
+		if(objectName == null) {
+			try {
+				ObjectName name = new ObjectName(MetricsConstants.OBJECT_NAME);
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				if(server.isRegistered(name))
+					server.unregisterMBean(name);
+				server.registerMBean(new MetricsMBean(this), name);
+				objectName = name;
+			}
+			catch (JMException e) {
+				logger.error("Failed to register metrics MBean: " + e.getMessage());
+			}
+		}
+		return logger.exit(objectName);
+	}
+
+	/**
+	 * Remove the registry from the platform MBean server
+	 */
+	public synchronized void unregisterMBean() {
+		if(objectName == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+		catch (JMException e) {
+			logger.error("Failed to unregister metrics MBean: " + e.getMessage());
+		}
+		objectName = null;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+/**
+ * Traffic on one topic. Data sizes count the data of each message as it is
+ * held in memory: bytes for binary messages and characters for text, which
+ * differs from the utf-8 bytes on the wire for non-ascii text.
+ */
+public class TopicMetrics {
+
+	private final String topic;
+	private final Counter messagesIn = new Counter();
+	private final Counter messagesOut = new Counter();
+	private final Counter dataIn = new Counter();
+	private final Counter dataOut = new Counter();
+
+	TopicMetrics(String topic) {
+		this.topic = topic;
+	}
+
+	/**
+	 * @param size: size of the message data
+	 */
+	public void recordIn(long size) {
+		messagesIn.increment();
+		dataIn.add(size);
+	}
+
+	/**
+	 * @param size: size of the message data
+	 */
+	public void recordOut(long size) {
+		messagesOut.increment();
+		dataOut.add(size);
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public long getMessagesIn() {
+		return messagesIn.getCount();
+	}
+
+	public long getMessagesOut() {
+		return messagesOut.getCount();
+	}
+
+	/**
+	 * @return total data size received, see the class comment for its unit
+	 */
+	public long getDataIn() {
+		return dataIn.getCount();
+	}
+
+	/**
+	 * @return total data size sent, see the class comment for its unit
+	 */
+	public long getDataOut() {
+		return dataOut.getCount();
+	}
+
+	void reset() {
+		messagesIn.reset();
+		messagesOut.reset();
+		dataIn.reset();
+		dataOut.reset();
+	}
+}
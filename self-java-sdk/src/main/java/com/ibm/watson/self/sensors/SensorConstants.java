@@ -35,4 +35,6 @@ public class SensorConstants {
 	public static final String RESUME_SENSOR		= "resume_sensor";
 	public static final String FAILED_EVENT			= "failed_event";
 	public static final String ERROR				= "error";
+	
+	public static final int OUTBOX_FRAMES			= 16;
 }
@@ -17,33 +17,55 @@
 
 package com.ibm.watson.self.sensors;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import com.ibm.watson.self.extractors.IFeatureExtractor;
-import com.ibm.watson.self.topics.IEvent;
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.Counter;
+import com.ibm.watson.self.metrics.MetricsConstants;
+import com.ibm.watson.self.metrics.MetricsRegistry;
+import com.ibm.watson.self.topics.FramePriority;
+import com.ibm.watson.self.topics.IMessageEvent;
+import com.ibm.watson.self.topics.OutboxPolicy;
+import com.ibm.watson.self.topics.TopicChannel;
 import com.ibm.watson.self.topics.TopicClient;
+import com.ibm.watson.self.topics.TopicDispatcher.OverflowPolicy;
+import com.ibm.watson.self.topics.TopicMessage;
 
 /**
  * Responsible for initializing all sensor objects for the local environment
  */
-public class SensorManager implements IEvent {
+public class SensorManager implements IMessageEvent {
 
 	private static SensorManager instance = null;
 	private boolean started = false;
 	private HashMap<String, ISensor> sensorMap = new HashMap<String, ISensor>();
 	private HashMap<String, Boolean> overridesMap = new HashMap<String, Boolean>();
+	private ConcurrentHashMap<String, TopicChannel> channelMap = new ConcurrentHashMap<String, TopicChannel>();
 	private Set<IFeatureExtractor> subscriberList = new HashSet<IFeatureExtractor>();
+	private final Counter framesSent = MetricsRegistry.getInstance().counter(MetricsConstants.SENSOR_FRAMES_SENT);
+	private final Counter framesDropped = MetricsRegistry.getInstance().counter(MetricsConstants.SENSOR_FRAMES_DROPPED);
 	
 	private static Logger logger = LogManager.getLogger(SensorManager.class.getName());
 	
 	public SensorManager() {
+		// Stale sensor data is worthless after a reconnect, only keep the newest frames
+		TopicClient.getInstance().getOutbox().setPolicy(SensorConstants.SENSOR_PROXY, 
+				OutboxPolicy.dropOldest(SensorConstants.OUTBOX_FRAMES));
+		// Sensor streams must not hold up subscriptions and acknowledgements
+		TopicClient.getInstance().setPriority(SensorConstants.SENSOR_PROXY, FramePriority.BULK);
+		// A subscriber behind on a sensor stream wants the newest frames, not to stall the socket
+		TopicClient.getInstance().getDispatcher().setOverflowPolicy(SensorConstants.SENSOR_PROXY, 
+				OverflowPolicy.DROP_OLDEST);
 		TopicClient.getInstance().subscribe(SensorConstants.SENSOR_MANAGER, this);
 		started = true;
 	}
@@ -96,12 +118,24 @@ public class SensorManager implements IEvent {
 	 */
 	public void sendData(ISensor sensor, byte[] data) {
 		logger.entry();
+		long start = System.nanoTime();
+		boolean sent = false;
 		if(!isRegistered(sensor)) {
 			logger.error("SendData() invoked on unregistered sensor: " + sensor.getSensorId());
+			framesDropped.increment();
 		}
 		else {
-			TopicClient.getInstance().publish(SensorConstants.SENSOR_PROXY + sensor.getSensorId(), 
-					data, false);
+			TopicChannel channel = channelMap.get(sensor.getSensorId());
+			if(channel == null) {
+				channel = TopicClient.getInstance().channel(
+						SensorConstants.SENSOR_PROXY + sensor.getSensorId(), false);
+				channelMap.put(sensor.getSensorId(), channel);
+			}
+			sent = channel.send(data);
+			if(sent)
+				framesSent.increment();
+			else
+				framesDropped.increment();
 		}
 				
 		for(IFeatureExtractor extractor : subscriberList) {
@@ -109,6 +143,7 @@ public class SensorManager implements IEvent {
 				extractor.onData(data);
 			}
 		}
+		FlightEvents.sensorFrame(sensor.getSensorId(), data.length, sent, System.nanoTime() - start);
 		logger.exit();
 	}
 	
@@ -120,6 +155,7 @@ public class SensorManager implements IEvent {
 		logger.entry();
 		if(sensorMap.containsKey(sensor.getSensorId())) {
 			sensorMap.remove(sensor.getSensorId());
+			channelMap.remove(sensor.getSensorId());
 			overridesMap.remove(sensor.getSensorId());
 			JsonObject wrapperObject = new JsonObject();
 			wrapperObject.addProperty(SensorConstants.EVENT, SensorConstants.REMOVE_SENSOR_PROXY);
@@ -165,11 +201,43 @@ public class SensorManager implements IEvent {
 	}
 
 	public void onEvent(String event) {
+		onMessage(new TopicMessage(SensorConstants.SENSOR_MANAGER, event));
+	}
+
+	/**
+	 * Only the event name and sensor id are needed, so they are streamed
+	 * out of the message without building a tree
+	 * @param message: the message from the sensor-manager topic
+	 */
+	public void onMessage(TopicMessage message) {
 		logger.entry();
-		JsonParser parser = new JsonParser();
-		JsonObject wrapperObject = parser.parse(event).getAsJsonObject();
-		String eventName = wrapperObject.get(SensorConstants.EVENT).getAsString();
-		String sensorId = wrapperObject.get(SensorConstants.SENSOR_ID).getAsString();
+		String eventName = null;
+		String sensorId = null;
+		JsonReader reader = message.getDataReader();
+		try {
+			reader.beginObject();
+			while(reader.hasNext()) {
+				String name = reader.nextName();
+				if(name.equals(SensorConstants.EVENT)) {
+					eventName = reader.nextString();
+				}
+				else if(name.equals(SensorConstants.SENSOR_ID)) {
+					sensorId = reader.nextString();
+				}
+				else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		}
+		catch (IOException e) {
+			logger.error("Failed to parse sensor event: " + e.getMessage());
+			return;
+		}
+		if(eventName == null) {
+			logger.error("Sensor event has no event name!");
+			return;
+		}
 		ISensor sensor = sensorMap.get(sensorId);
 		if(sensor == null) {
 			logger.error("Failed to find sensor: " + sensorId);
@@ -0,0 +1,30 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+/**
+ * Outbound priority classes. Control frames are always written ahead of
+ * queued bulk frames; bulk frames still get a share of the socket so a
+ * steady stream of control traffic cannot starve them.
+ */
+public enum FramePriority {
+	/** Subscriptions, proxy registration, acknowledgements, blackboard changes */
+	CONTROL,
+	/** Sensor streams such as audio and camera frames */
+	BULK
+}
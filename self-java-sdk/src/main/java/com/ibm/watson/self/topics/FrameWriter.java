@@ -0,0 +1,326 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.MetricsRegistry;
+
+/**
+ * Owns all writes to the transport session. Publishing threads enqueue frames
+ * without blocking and a single writer thread drains them, taking every frame
+ * that is already waiting in one pass so a burst costs one wake-up instead of
+ * one per frame.
+ *
+ * Control and bulk frames wait in separate queues. Every waiting control frame
+ * is written before the next bulk frame, and a batch ends after its first bulk
+ * frame so control traffic queued meanwhile does not wait behind a burst of
+ * sensor data. To keep bulk traffic moving under a steady control load, one
+ * bulk frame is let through after every bulkShare consecutive control frames.
+ */
+public class FrameWriter implements Runnable {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(FrameWriter.class.getName());
+
+	public static final int DEFAULT_CAPACITY 	= 4096;
+	public static final int DEFAULT_BATCH_SIZE 	= 64;
+	public static final int DEFAULT_BULK_SHARE 	= 8;
+
+	private static final long POLL_TIMEOUT_MS	= 500;
+
+	/*			Variables				*/
+	private final BlockingQueue<OutboundFrame> control;
+	private final BlockingQueue<OutboundFrame> bulk;
+	private final Semaphore waiting = new Semaphore(0);
+	private final List<OutboundFrame> batch;
+	private final int batchSize;
+	private volatile int bulkShare = DEFAULT_BULK_SHARE;
+	private int controlStreak = 0;
+	private volatile ITransportSession session;
+	private volatile Outbox outbox;
+	private volatile boolean running = false;
+	private Thread thread;
+
+	/*			Counters				*/
+	private final AtomicLong framesEnqueued = new AtomicLong();
+	private final AtomicLong framesWritten = new AtomicLong();
+	private final AtomicLong framesRejected = new AtomicLong();
+	private final AtomicLong bulkWritten = new AtomicLong();
+	private final AtomicLong framesFailed = new AtomicLong();
+	private final AtomicLong batchesWritten = new AtomicLong();
+	private final AtomicLong enqueueLatencyTotal = new AtomicLong();
+	private final AtomicLong enqueueLatencyMax = new AtomicLong();
+	private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+	public FrameWriter() {
+		this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param capacity: frames each priority class can hold
+	 * @param batchSize: most frames written per wake-up
+	 */
+	public FrameWriter(int capacity, int batchSize) {
+		this.control = new ArrayBlockingQueue<OutboundFrame>(capacity);
+		this.bulk = new ArrayBlockingQueue<OutboundFrame>(capacity);
+		this.batch = new ArrayList<OutboundFrame>(batchSize);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Start the writer thread
+	 */
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		thread = new Thread(this, "TopicClient-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop the writer thread, frames still in the queue are discarded
+	 */
+	public synchronized void stop() {
+		running = false;
+		if(thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+		control.clear();
+		bulk.clear();
+		waiting.drainPermits();
+	}
+
+	/**
+	 * Set the session frames are written to, null while disconnected
+	 * @param session: the open session
+	 */
+	public void setSession(ITransportSession session) {
+		this.session = session;
+	}
+
+	/**
+	 * Set where frames go when they cannot be written because the
+	 * connection is down
+	 * @param outbox: the outbox, or null to drop such frames
+	 */
+	public void setOutbox(Outbox outbox) {
+		this.outbox = outbox;
+	}
+
+	/**
+	 * Queue a frame for writing. Never blocks the caller.
+	 * @param frame: the frame
+	 * @return false if the queue is full and the frame was dropped
+	 */
+	public boolean enqueue(OutboundFrame frame) {
+		frame.markEnqueued();
+		BlockingQueue<OutboundFrame> queue = frame.getPriority() == FramePriority.BULK ? bulk : control;
+		if(!queue.offer(frame)) {
+			framesRejected.incrementAndGet();
+			logger.error("Outbound queue full, dropping " + frame);
+			return false;
+		}
+		framesEnqueued.incrementAndGet();
+		waiting.release();
+		return true;
+	}
+
+	/**
+	 * Set how many control frames in a row may be written while bulk frames
+	 * wait before one bulk frame is let through
+	 * @param bulkShare: consecutive control frames, at least 1
+	 */
+	public void setBulkShare(int bulkShare) {
+		if(bulkShare < 1)
+			throw new IllegalArgumentException("bulkShare must be at least 1");
+		this.bulkShare = bulkShare;
+	}
+
+	public int getBulkShare() {
+		return bulkShare;
+	}
+
+	public void run() {
+		while(running) {
+			try {
+				if(!waiting.tryAcquire(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+					continue;
+				do {
+					OutboundFrame frame = next();
+					batch.add(frame);
+					if(frame.getPriority() == FramePriority.BULK)
+						break;
+				} while(batch.size() < batchSize && waiting.tryAcquire());
+				writeBatch();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Take the next frame to write. Only called holding a permit, so one of
+	 * the queues is known to be non-empty.
+	 */
+	private OutboundFrame next() {
+		OutboundFrame frame;
+		if(controlStreak >= bulkShare && (frame = bulk.poll()) != null) {
+			controlStreak = 0;
+			return frame;
+		}
+		frame = control.poll();
+		if(frame != null) {
+			controlStreak = bulk.isEmpty() ? 0 : controlStreak + 1;
+			return frame;
+		}
+		controlStreak = 0;
+		return bulk.poll();
+	}
+
+	private void writeBatch() {
+		ITransportSession target = session;
+		long now = System.nanoTime();
+		for(OutboundFrame frame : batch) {
+			long latency = now - frame.getEnqueueTime();
+			recordLatency(latency);
+			if(target == null) {
+				undeliverable(frame);
+				continue;
+			}
+			try {
+				target.send(frame);
+				framesWritten.incrementAndGet();
+				if(frame.getPriority() == FramePriority.BULK)
+					bulkWritten.incrementAndGet();
+				if(frame.getTopic() != null)
+					metrics.topic(frame.getTopic()).recordOut(frame.getDataSize());
+				FlightEvents.frameSent(frame.getTopic(), frame.isBinary(), frame.getDataSize(), latency);
+			}
+			catch (Exception e) {
+				logger.error(e.getMessage());
+				undeliverable(frame);
+			}
+		}
+		batchesWritten.incrementAndGet();
+	}
+
+	private void undeliverable(OutboundFrame frame) {
+		framesFailed.incrementAndGet();
+		Outbox target = outbox;
+		if(target == null || !target.add(frame))
+			logger.info("Not Connected!");
+	}
+
+	private void recordLatency(long latency) {
+		enqueueLatencyTotal.addAndGet(latency);
+		long max = enqueueLatencyMax.get();
+		while(latency > max && !enqueueLatencyMax.compareAndSet(max, latency)) {
+			max = enqueueLatencyMax.get();
+		}
+	}
+
+	/**
+	 * @return number of frames waiting to be written
+	 */
+	public int getQueueDepth() {
+		return control.size() + bulk.size();
+	}
+
+	/**
+	 * @param priority: the priority class
+	 * @return number of frames of the class waiting to be written
+	 */
+	public int getQueueDepth(FramePriority priority) {
+		return priority == FramePriority.BULK ? bulk.size() : control.size();
+	}
+
+	public long getFramesEnqueued() {
+		return framesEnqueued.get();
+	}
+
+	public long getFramesWritten() {
+		return framesWritten.get();
+	}
+
+	/**
+	 * @return number of bulk frames written, the rest were control frames
+	 */
+	public long getBulkWritten() {
+		return bulkWritten.get();
+	}
+
+	/**
+	 * @return number of frames dropped because the queue was full
+	 */
+	public long getFramesRejected() {
+		return framesRejected.get();
+	}
+
+	/**
+	 * @return number of frames that could not be written to the session
+	 */
+	public long getFramesFailed() {
+		return framesFailed.get();
+	}
+
+	public long getBatchesWritten() {
+		return batchesWritten.get();
+	}
+
+	/**
+	 * @return total nanoseconds frames spent between enqueue and write
+	 */
+	public long getEnqueueLatencyTotal() {
+		return enqueueLatencyTotal.get();
+	}
+
+	/**
+	 * @return longest time in nanoseconds a frame waited to be written
+	 */
+	public long getEnqueueLatencyMax() {
+		return enqueueLatencyMax.get();
+	}
+
+	/**
+	 * @return mean time in nanoseconds a frame waited to be written
+	 */
+	public long getEnqueueLatencyAverage() {
+		long count = framesWritten.get() + framesFailed.get();
+		return count == 0 ? 0 : enqueueLatencyTotal.get() / count;
+	}
+}
@@ -0,0 +1,213 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.ibm.watson.self.metrics.LatencyHistogram;
+
+import okio.Buffer;
+
+/**
+ * Pings the TopicManager at a fixed interval while the session is open. Each
+ * ping carries the time it was sent, so the pong gives the round trip time.
+ * When maxMissed pings in a row go unanswered the link is declared dead,
+ * which catches a half-open connection long before the read timeout would.
+ */
+public class HeartbeatMonitor implements Runnable {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(HeartbeatMonitor.class.getName());
+
+	public static final long DEFAULT_INTERVAL 	= 2000;
+	public static final int DEFAULT_MAX_MISSED 	= 3;
+
+	/**
+	 * Told when a connection stops answering pings
+	 */
+	public interface Handler {
+		/**
+		 * @param generation: the connection that was being monitored
+		 */
+		void onDeadLink(int generation);
+	}
+
+	/*			Variables				*/
+	private final ScheduledExecutorService scheduler;
+	private final Handler handler;
+	private final LatencyHistogram roundTrips = new LatencyHistogram();
+	private volatile long interval = DEFAULT_INTERVAL;
+	private volatile int maxMissed = DEFAULT_MAX_MISSED;
+	private volatile boolean enabled = true;
+	private ITransportSession session;
+	private int generation;
+	private int missed;
+	private ScheduledFuture<?> task;
+
+	/*			Counters				*/
+	private final AtomicLong pingsSent = new AtomicLong();
+	private final AtomicLong pongsReceived = new AtomicLong();
+	private final AtomicLong deadLinks = new AtomicLong();
+
+	/**
+	 * @param scheduler: runs the pings, must not be shut down while monitoring
+	 * @param handler: told about dead links
+	 */
+	public HeartbeatMonitor(ScheduledExecutorService scheduler, Handler handler) {
+		this.scheduler = scheduler;
+		this.handler = handler;
+	}
+
+	/**
+	 * Start pinging a newly opened session, replacing any earlier one
+	 * @param session: the session
+	 * @param generation: identifies the connection to the handler
+	 */
+	public synchronized void start(ITransportSession session, int generation) {
+		stop();
+		if(!enabled)
+			return;
+		this.session = session;
+		this.generation = generation;
+		this.missed = 0;
+		this.task = scheduler.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop pinging, e.g. because the session closed
+	 */
+	public synchronized void stop() {
+		if(task != null) {
+			task.cancel(false);
+			task = null;
+		}
+		session = null;
+	}
+
+	public void run() {
+		int dead;
+		synchronized (this) {
+			if(session == null)
+				return;
+			if(missed < maxMissed) {
+				ping();
+				return;
+			}
+			dead = generation;
+			stop();
+		}
+		deadLinks.incrementAndGet();
+		logger.error("No pong for " + maxMissed + " pings, connection is dead");
+		handler.onDeadLink(dead);
+	}
+
+	private void ping() {
+		missed++;
+		try {
+			session.ping(new Buffer().writeLong(System.nanoTime()));
+			pingsSent.incrementAndGet();
+		}
+		catch (IOException e) {
+			logger.error("Ping failed: " + e.getMessage());
+		}
+		catch (IllegalStateException e) {
+			logger.error("Ping failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Record the pong of an earlier ping
+	 * @param payload: the payload echoed back, the send time of the ping
+	 */
+	public void onPong(Buffer payload) {
+		if(payload == null || payload.size() < 8)
+			return;
+		roundTrips.recordSince(payload.readLong());
+		pongsReceived.incrementAndGet();
+		synchronized (this) {
+			missed = 0;
+		}
+	}
+
+	/**
+	 * @param interval: milliseconds between pings, applies from the next connection
+	 */
+	public void setInterval(long interval) {
+		if(interval <= 0)
+			throw new IllegalArgumentException("interval must be positive");
+		this.interval = interval;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @param maxMissed: unanswered pings in a row before the link is dead
+	 */
+	public void setMaxMissed(int maxMissed) {
+		if(maxMissed < 1)
+			throw new IllegalArgumentException("maxMissed must be at least 1");
+		this.maxMissed = maxMissed;
+	}
+
+	public int getMaxMissed() {
+		return maxMissed;
+	}
+
+	/**
+	 * @param enabled: false to stop pinging from the next connection on
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return round trip times of every answered ping
+	 */
+	public LatencyHistogram getRoundTripTimes() {
+		return roundTrips;
+	}
+
+	public long getPingsSent() {
+		return pingsSent.get();
+	}
+
+	public long getPongsReceived() {
+		return pongsReceived.get();
+	}
+
+	/**
+	 * @return number of connections dropped for not answering pings
+	 */
+	public long getDeadLinks() {
+		return deadLinks.get();
+	}
+}
@@ -0,0 +1,36 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Subscribers implementing this receive binary frames published to the
+ * topic, e.g. remote camera or audio streams. Text messages are still
+ * delivered through onEvent(String).
+ */
+public interface IBinaryEvent extends IEvent {
+
+	/**
+	 * Called for every binary frame on the topic. The buffer is a read only
+	 * view of the received frame, valid for as long as the subscriber holds it.
+	 * @param header: the decoded header of the frame
+	 * @param data: the payload that followed the header and its NUL terminator
+	 */
+	public void onBinaryEvent(TopicMessage header, ByteBuffer data);
+}
@@ -0,0 +1,37 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes the data of a text frame as json, straight into the frame. The
+ * frame escapes whatever is written into the envelope's data string, so
+ * the data is never built as a tree or a string of its own.
+ */
+public interface IDataWriter {
+
+	/**
+	 * Called on the writer thread, once each time the frame is written
+	 * @param writer: receives exactly one json value
+	 * @throws IOException if the socket fails
+	 */
+	public void write(JsonWriter writer) throws IOException;
+}
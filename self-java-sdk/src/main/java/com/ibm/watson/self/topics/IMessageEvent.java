@@ -0,0 +1,32 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+/**
+ * Subscribers implementing this receive the decoded message instead of the
+ * data string, and can pick the parsed tree, a streaming reader or the raw
+ * bytes of the payload from it.
+ */
+public interface IMessageEvent extends IEvent {
+
+	/**
+	 * Called instead of onEvent(String) for every message on the topic
+	 * @param message: the decoded message
+	 */
+	public void onMessage(TopicMessage message);
+}
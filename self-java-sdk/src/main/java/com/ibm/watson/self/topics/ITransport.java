@@ -0,0 +1,39 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+/**
+ * Carries envelopes between a TopicClient and a TopicManager. Implementations
+ * decide how: WebSocketTransport over the network, LoopbackTransport within
+ * the same process.
+ */
+public interface ITransport {
+
+	/**
+	 * Start opening a session. Must not block on the network; the outcome is
+	 * reported to the listener, possibly before this method returns.
+	 * @param host: ip address
+	 * @param port: port number
+	 * @param selfId: unique self id
+	 * @param token: bearer token for authentication
+	 * @param listener: receives the events of this session only
+	 * @return the session, usable once the listener saw onOpen
+	 */
+	ITransportSession connect(String host, String port, String selfId, String token, 
+			ITransportListener listener);
+}
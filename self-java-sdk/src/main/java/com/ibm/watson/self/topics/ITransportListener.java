@@ -0,0 +1,45 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+
+import okio.Buffer;
+
+/**
+ * Events of one ITransportSession
+ */
+public interface ITransportListener {
+
+	void onOpen(ITransportSession session);
+
+	/**
+	 * @param message: an inbound envelope, already decoded
+	 */
+	void onMessage(TopicMessage message);
+
+	void onPong(Buffer payload);
+
+	void onClose(int code, String reason);
+
+	/**
+	 * The session failed to open or broke, no further events follow
+	 * @param e: the cause
+	 */
+	void onFailure(IOException e);
+}
@@ -0,0 +1,55 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+
+import okio.Buffer;
+
+/**
+ * One connection opened by an ITransport
+ */
+public interface ITransportSession {
+
+	/**
+	 * Send a frame. Only ever called from one thread at a time.
+	 * @param frame: the frame
+	 * @throws IOException if the session is not open or the write fails
+	 */
+	void send(OutboundFrame frame) throws IOException;
+
+	/**
+	 * Send a ping, answered by onPong with the same payload
+	 * @param payload: the payload
+	 * @throws IOException if the session is not open or the write fails
+	 */
+	void ping(Buffer payload) throws IOException;
+
+	/**
+	 * Close the session gracefully, the listener sees onClose
+	 * @param code: the close code
+	 * @param reason: the reason
+	 * @throws IOException if the close cannot be sent
+	 */
+	void close(int code, String reason) throws IOException;
+
+	/**
+	 * Abandon the session immediately, whether or not it has opened
+	 */
+	void cancel();
+}
@@ -0,0 +1,132 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escapes everything written through it as the contents of a json string,
+ * the way JsonWriter.value(String) would, without holding the text
+ */
+class JsonStringEscaper extends Writer {
+
+	private static final String HEX = "0123456789abcdef";
+
+	private final Writer out;
+	private long count = 0;
+
+	JsonStringEscaper(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public void write(char[] buffer, int offset, int length) throws IOException {
+		int start = offset;
+		int end = offset + length;
+		for(int i = offset; i < end; i++) {
+			char c = buffer[i];
+			if(c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029')
+				continue;
+			if(i > start)
+				out.write(buffer, start, i - start);
+			escape(c);
+			start = i + 1;
+		}
+		if(end > start)
+			out.write(buffer, start, end - start);
+		count += length;
+	}
+
+	@Override
+	public void write(String text, int offset, int length) throws IOException {
+		int start = offset;
+		int end = offset + length;
+		for(int i = offset; i < end; i++) {
+			char c = text.charAt(i);
+			if(c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029')
+				continue;
+			if(i > start)
+				out.write(text, start, i - start);
+			escape(c);
+			start = i + 1;
+		}
+		if(end > start)
+			out.write(text, start, end - start);
+		count += length;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		char ch = (char) c;
+		if(ch >= 0x20 && ch != '"' && ch != '\\' && ch != '\u2028' && ch != '\u2029')
+			out.write(ch);
+		else
+			escape(ch);
+		count++;
+	}
+
+	private void escape(char c) throws IOException {
+		switch(c) {
+		case '"':
+			out.write("\\\"");
+			break;
+		case '\\':
+			out.write("\\\\");
+			break;
+		case '\n':
+			out.write("\\n");
+			break;
+		case '\r':
+			out.write("\\r");
+			break;
+		case '\t':
+			out.write("\\t");
+			break;
+		case '\b':
+			out.write("\\b");
+			break;
+		case '\f':
+			out.write("\\f");
+			break;
+		default:
+			out.write("\\u");
+			out.write(HEX.charAt((c >> 12) & 0xf));
+			out.write(HEX.charAt((c >> 8) & 0xf));
+			out.write(HEX.charAt((c >> 4) & 0xf));
+			out.write(HEX.charAt(c & 0xf));
+		}
+	}
+
+	/**
+	 * @return characters written before escaping
+	 */
+	long getCount() {
+		return count;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,158 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+
+import okio.Buffer;
+
+/**
+ * Connects a TopicClient to a Peer in the same process, e.g. a stand-in for
+ * the TopicManager in benchmarks, or a co-located one. Nothing is serialized
+ * or copied: the peer receives the client's frames as objects and hands it
+ * decoded TopicMessages. All events are delivered on the calling thread, so
+ * a peer must not block in its callbacks.
+ */
+public class LoopbackTransport implements ITransport {
+
+	/**
+	 * The other end of every session, i.e. the side acting as TopicManager
+	 */
+	public interface Peer {
+
+		/**
+		 * A client connected. Messages can be delivered once this returns.
+		 * @param link: the new session, used to send messages to the client
+		 * @param selfId: the self id the client connected with
+		 * @param token: the token the client connected with
+		 * @return false to refuse the connection
+		 */
+		boolean onConnect(Link link, String selfId, String token);
+
+		/**
+		 * A client sent a frame. Envelopes built from json objects are passed
+		 * as is and must not be modified.
+		 * @param link: the session
+		 * @param frame: the frame, see OutboundFrame.getEnvelope() and getPayload()
+		 */
+		void onFrame(Link link, OutboundFrame frame);
+
+		/**
+		 * A session ended, from either side
+		 * @param link: the session
+		 */
+		void onDisconnect(Link link);
+	}
+
+	private final Peer peer;
+
+	/**
+	 * @param peer: receives every session opened through this transport
+	 */
+	public LoopbackTransport(Peer peer) {
+		this.peer = peer;
+	}
+
+	public ITransportSession connect(String host, String port, String selfId, String token,
+			ITransportListener listener) {
+		Link link = new Link(listener);
+		if(peer.onConnect(link, selfId, token)) {
+			link.open = true;
+			listener.onOpen(link);
+		}
+		else {
+			listener.onFailure(new IOException("Connection refused by loopback peer"));
+		}
+		return link;
+	}
+
+	/**
+	 * One in-process session. The client sends through the ITransportSession
+	 * methods, the peer through deliver and disconnect.
+	 */
+	public class Link implements ITransportSession {
+
+		private final ITransportListener listener;
+		private volatile boolean open = false;
+
+		Link(ITransportListener listener) {
+			this.listener = listener;
+		}
+
+		public void send(OutboundFrame frame) throws IOException {
+			checkOpen();
+			peer.onFrame(this, frame);
+		}
+
+		public void ping(Buffer payload) throws IOException {
+			checkOpen();
+			listener.onPong(payload);
+		}
+
+		public void close(int code, String reason) throws IOException {
+			if(end())
+				listener.onClose(code, reason);
+		}
+
+		public void cancel() {
+			if(end())
+				listener.onFailure(new IOException("Canceled"));
+		}
+
+		/**
+		 * Hand a message to the client, as if it arrived from the TopicManager
+		 * @param message: the message
+		 * @return false if the session is closed
+		 */
+		public boolean deliver(TopicMessage message) {
+			if(!open)
+				return false;
+			listener.onMessage(message);
+			return true;
+		}
+
+		/**
+		 * Close the session from the peer's side
+		 * @param code: the close code
+		 * @param reason: the reason
+		 */
+		public void disconnect(int code, String reason) {
+			if(end())
+				listener.onClose(code, reason);
+		}
+
+		public boolean isOpen() {
+			return open;
+		}
+
+		private boolean end() {
+			synchronized (this) {
+				if(!open)
+					return false;
+				open = false;
+			}
+			peer.onDisconnect(this);
+			return true;
+		}
+
+		private void checkOpen() throws IOException {
+			if(!open)
+				throw new IOException("Loopback session is closed");
+		}
+	}
+}
@@ -0,0 +1,333 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonWriter;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ws.WebSocket;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * A single message waiting in the outbound queue. The frame is serialized
+ * straight into the WebSocket message sink by the writer thread, so the
+ * publishing thread only pays for building the envelope.
+ */
+public class OutboundFrame extends RequestBody {
+
+	private final MediaType type;
+	private final String topic;
+	private final JsonObject message;
+	private final ByteString header;
+	private final ByteBuffer payload;
+	private final String text;
+	private final IDataWriter content;
+	private final boolean prefixed;
+	private volatile long contentSize;
+	private volatile long enqueueTime;
+	private volatile FramePriority priority = FramePriority.CONTROL;
+	private volatile boolean sessionOnly = false;
+	private final long sequence;
+
+	private static final AtomicLong nextSequence = new AtomicLong();
+
+	/**
+	 * Text frame holding a json envelope
+	 * @param topic: the topic published to, or null for control messages
+	 * @param message: the envelope, must not be modified after it is queued
+	 */
+	public OutboundFrame(String topic, JsonObject message) {
+		this(WebSocket.TEXT, topic, message, null, null, null, null, false);
+	}
+
+	/**
+	 * Binary frame laid out as header, NUL, payload. The payload is not copied,
+	 * its bytes between position and limit are written as they are when the
+	 * frame reaches the socket.
+	 * @param topic: the topic published to
+	 * @param header: the encoded json header
+	 * @param payload: the binary data, must not be modified until written
+	 */
+	public OutboundFrame(String topic, ByteString header, ByteBuffer payload) {
+		this(WebSocket.BINARY, topic, null, header, payload.duplicate(), null, null, false);
+	}
+
+	private OutboundFrame(MediaType type, String topic, JsonObject message, ByteString header, 
+			ByteBuffer payload, String text, IDataWriter content, boolean prefixed) {
+		this.type = type;
+		this.topic = topic;
+		this.message = message;
+		this.header = header;
+		this.payload = payload;
+		this.text = text;
+		this.content = content;
+		this.prefixed = prefixed;
+		this.enqueueTime = System.nanoTime();
+		this.sequence = nextSequence.incrementAndGet();
+	}
+
+	/**
+	 * Text frame built from a pre-encoded envelope that stops right after
+	 * "data":, followed by the data string escaped as it is written
+	 * @param topic: the topic published to
+	 * @param prefix: the encoded envelope up to the data value
+	 * @param data: the data string
+	 */
+	static OutboundFrame prefixed(String topic, ByteString prefix, String data) {
+		return new OutboundFrame(WebSocket.TEXT, topic, null, prefix, null, data, null, true);
+	}
+
+	/**
+	 * Text frame built from a pre-encoded envelope that stops right after
+	 * "data":, followed by json streamed from the writer and escaped as it
+	 * goes into the data string
+	 * @param topic: the topic published to
+	 * @param prefix: the encoded envelope up to the data value
+	 * @param content: writes the data, must write the same json every time
+	 */
+	static OutboundFrame prefixed(String topic, ByteString prefix, IDataWriter content) {
+		return new OutboundFrame(WebSocket.TEXT, topic, null, prefix, null, null, content, true);
+	}
+
+	/**
+	 * Binary frame built from a pre-encoded header that stops right after
+	 * "data":, completed by the payload length as it is written
+	 * @param topic: the topic published to
+	 * @param prefix: the encoded header up to the data value
+	 * @param payload: the binary data, must not be modified until written
+	 */
+	static OutboundFrame prefixed(String topic, ByteString prefix, ByteBuffer payload) {
+		return new OutboundFrame(WebSocket.BINARY, topic, null, prefix, payload.duplicate(), null, null, true);
+	}
+
+	/**
+	 * Encode a json header for a binary frame
+	 * @param header: the header object
+	 * @return the utf-8 bytes
+	 */
+	public static ByteString encodeHeader(JsonObject header) {
+		return ByteString.encodeUtf8(header.toString());
+	}
+
+	public boolean isBinary() {
+		return type == WebSocket.BINARY;
+	}
+
+	/**
+	 * @return the topic published to, null for control messages
+	 */
+	public String getTopic() {
+		return topic;
+	}
+
+	/**
+	 * @return: System.nanoTime() at the moment the frame was last queued
+	 */
+	public long getEnqueueTime() {
+		return enqueueTime;
+	}
+
+	void markEnqueued() {
+		this.enqueueTime = System.nanoTime();
+	}
+
+	/**
+	 * @return position of the frame in publish order, fixed when it is built
+	 * so a frame keeps its place however often it is queued again
+	 */
+	long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return the class the writer queues this frame in
+	 */
+	public FramePriority getPriority() {
+		return priority;
+	}
+
+	void setPriority(FramePriority priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * @return true if the frame only means something on the connection it
+	 * was built for, e.g. a subscribe, which the client sends again for
+	 * every topic on open, so the outbox never keeps it
+	 */
+	boolean isSessionOnly() {
+		return sessionOnly;
+	}
+
+	void setSessionOnly(boolean sessionOnly) {
+		this.sessionOnly = sessionOnly;
+	}
+
+	/**
+	 * The envelope as an object, for consumers in the same process. Frames
+	 * built from a json object return it as is, which must not be modified;
+	 * others decode their header. The binary payload is not included.
+	 * @return the envelope
+	 */
+	public JsonObject getEnvelope() {
+		if(message != null)
+			return message;
+		if(text != null) {
+			JsonObject envelope = parse(header.utf8() + "null}");
+			envelope.addProperty(TopicConstants.DATA, text);
+			return envelope;
+		}
+		if(content != null) {
+			JsonObject envelope = parse(header.utf8() + "null}");
+			envelope.addProperty(TopicConstants.DATA, render());
+			return envelope;
+		}
+		if(prefixed)
+			return parse(header.utf8() + payload.remaining() + "}");
+		return parse(header.utf8());
+	}
+
+	private static JsonObject parse(String json) {
+		return new JsonParser().parse(json).getAsJsonObject();
+	}
+
+	/**
+	 * @return size of the data: bytes of a binary payload, characters of text
+	 */
+	int getDataSize() {
+		if(payload != null)
+			return payload.remaining();
+		if(text != null)
+			return text.length();
+		if(content != null)
+			return (int) contentSize;
+		if(message != null && message.has(TopicConstants.DATA) && message.get(TopicConstants.DATA).isJsonPrimitive())
+			return message.get(TopicConstants.DATA).getAsString().length();
+		return 0;
+	}
+
+	/**
+	 * @return a read only view of the binary payload, or null for text frames
+	 */
+	public ByteBuffer getPayload() {
+		return payload != null ? payload.asReadOnlyBuffer() : null;
+	}
+
+	@Override
+	public MediaType contentType() {
+		return type;
+	}
+
+	@Override
+	public long contentLength() {
+		if(payload == null)
+			return -1;
+		long length = header.size() + 1 + payload.remaining();
+		if(prefixed)
+			length += Integer.toString(payload.remaining()).length() + 1;
+		return length;
+	}
+
+	@Override
+	public void writeTo(BufferedSink sink) throws IOException {
+		if(payload != null) {
+			sink.write(header);
+			if(prefixed) {
+				sink.writeDecimalLong(payload.remaining());
+				sink.writeByte('}');
+			}
+			sink.writeByte(0);
+			writePayload(sink, payload.duplicate());
+		}
+		else if(text != null) {
+			sink.write(header);
+			JsonWriter writer = new JsonWriter(new Utf8SinkWriter(sink));
+			writer.setLenient(true);
+			writer.value(text);
+			writer.flush();
+			sink.writeByte('}');
+		}
+		else if(content != null) {
+			sink.write(header);
+			sink.writeByte('"');
+			Writer out = new Utf8SinkWriter(sink);
+			JsonStringEscaper escaper = new JsonStringEscaper(out);
+			JsonWriter writer = new JsonWriter(escaper);
+			writer.setLenient(true);
+			content.write(writer);
+			writer.flush();
+			contentSize = escaper.getCount();
+			sink.writeByte('"');
+			sink.writeByte('}');
+		}
+		else {
+			JsonWriter writer = new JsonWriter(new Utf8SinkWriter(sink));
+			writer.setLenient(true);
+			Streams.write(message, writer);
+			writer.flush();
+		}
+	}
+
+	/**
+	 * @return the streamed data as a string
+	 */
+	private String render() {
+		StringWriter out = new StringWriter();
+		try {
+			JsonWriter writer = new JsonWriter(out);
+			writer.setLenient(true);
+			content.write(writer);
+			writer.flush();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	private static void writePayload(BufferedSink sink, ByteBuffer data) throws IOException {
+		if(data.hasArray()) {
+			sink.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		}
+		else {
+			Channels.newChannel(sink.outputStream()).write(data);
+		}
+	}
+
+	public String toString() {
+		if(message != null)
+			return message.toString();
+		if(text != null)
+			return header.utf8() + text;
+		if(content != null)
+			return header.utf8() + render();
+		return header.utf8() + " (" + payload.remaining() + " bytes)";
+	}
+}
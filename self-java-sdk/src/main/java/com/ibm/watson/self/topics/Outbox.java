@@ -0,0 +1,245 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds publishes made while the client is disconnected so they can be
+ * replayed, in their original order, once the connection is back. Each
+ * topic follows the policy of the longest matching topic prefix, and the
+ * outbox as a whole never holds more than its capacity.
+ *
+ * Control messages, which have no topic, follow the control policy and
+ * are kept until their time to live runs out by default. Subscribes and
+ * unsubscribes are never kept: the client subscribes to every topic it
+ * still has subscribers for when the connection opens.
+ */
+public class Outbox {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(Outbox.class.getName());
+
+	public static final int DEFAULT_CAPACITY 	= 1024;
+	public static final long DEFAULT_TTL 		= 60000;
+
+	private final int capacity;
+	private final PrefixMap<OutboxPolicy> policies = new PrefixMap<OutboxPolicy>(OutboxPolicy.keepAll(DEFAULT_TTL));
+	private volatile OutboxPolicy controlPolicy = OutboxPolicy.keepAll(DEFAULT_TTL);
+	private final Map<String, ArrayDeque<Entry>> pending = new HashMap<String, ArrayDeque<Entry>>();
+	private int size = 0;
+
+	/*			Counters				*/
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong expired = new AtomicLong();
+	private final AtomicLong replayed = new AtomicLong();
+
+	public Outbox() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public Outbox(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Set the policy for every topic starting with the prefix
+	 * @param prefix: the topic prefix, e.g. "sensor-proxy-"
+	 * @param policy: the policy
+	 */
+	public void setPolicy(String prefix, OutboxPolicy policy) {
+		policies.put(prefix, policy);
+	}
+
+	/**
+	 * Set the policy for topics that match no prefix
+	 * @param policy: the policy
+	 */
+	public void setDefaultPolicy(OutboxPolicy policy) {
+		policies.setDefault(policy);
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return the policy of the longest prefix matching the topic
+	 */
+	public OutboxPolicy getPolicy(String topic) {
+		return policies.get(topic);
+	}
+
+	/**
+	 * Set the policy for control messages, which have no topic
+	 * @param policy: the policy
+	 */
+	public void setControlPolicy(OutboxPolicy policy) {
+		this.controlPolicy = policy;
+	}
+
+	public OutboxPolicy getControlPolicy() {
+		return controlPolicy;
+	}
+
+	/**
+	 * Keep a frame for replay. Frames are replayed in the order they were
+	 * built, not the order they were added, so a frame the writer failed to
+	 * send still goes out ahead of later publishes.
+	 * @param frame: a frame that could not be sent
+	 * @return false if the frame was dropped
+	 */
+	public synchronized boolean add(OutboundFrame frame) {
+		if(frame.isSessionOnly())
+			return false;
+		String topic = frame.getTopic();
+		OutboxPolicy policy = topic != null ? getPolicy(topic) : controlPolicy;
+		if(policy.getMode() == OutboxPolicy.Mode.DISCARD) {
+			dropped.incrementAndGet();
+			return false;
+		}
+
+		ArrayDeque<Entry> queue = pending.get(topic);
+		if(queue == null) {
+			queue = new ArrayDeque<Entry>();
+			pending.put(topic, queue);
+		}
+		if(queue.size() >= policy.getCapacity()) {
+			queue.poll();
+			size--;
+			dropped.incrementAndGet();
+		}
+		if(size >= capacity) {
+			purgeExpired(System.nanoTime());
+			if(size >= capacity) {
+				dropped.incrementAndGet();
+				logger.error("Outbox full, dropping " + (topic != null ? "message for " + topic : "control message"));
+				return false;
+			}
+		}
+
+		long expiresAt = policy.getTtl() == Long.MAX_VALUE ? Long.MAX_VALUE
+				: System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getTtl());
+		queue.add(new Entry(frame, expiresAt));
+		size++;
+		return true;
+	}
+
+	/**
+	 * Take every frame that is still valid, oldest first, leaving the outbox empty
+	 * @return the frames to replay
+	 */
+	public synchronized List<OutboundFrame> drain() {
+		if(size == 0)
+			return Collections.emptyList();
+		long now = System.nanoTime();
+		List<Entry> entries = new ArrayList<Entry>(size);
+		for(ArrayDeque<Entry> queue : pending.values()) {
+			for(Entry entry : queue) {
+				if(entry.expiresAt < now)
+					expired.incrementAndGet();
+				else
+					entries.add(entry);
+			}
+		}
+		pending.clear();
+		size = 0;
+
+		Collections.sort(entries, new Comparator<Entry>() {
+			public int compare(Entry a, Entry b) {
+				return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+			}
+		});
+		List<OutboundFrame> frames = new ArrayList<OutboundFrame>(entries.size());
+		for(Entry entry : entries) {
+			frames.add(entry.frame);
+		}
+		replayed.addAndGet(frames.size());
+		return frames;
+	}
+
+	private void purgeExpired(long now) {
+		for(Iterator<ArrayDeque<Entry>> queues = pending.values().iterator(); queues.hasNext();) {
+			ArrayDeque<Entry> queue = queues.next();
+			for(Iterator<Entry> entries = queue.iterator(); entries.hasNext();) {
+				if(entries.next().expiresAt < now) {
+					entries.remove();
+					size--;
+					expired.incrementAndGet();
+				}
+			}
+			if(queue.isEmpty())
+				queues.remove();
+		}
+	}
+
+	/**
+	 * @return number of frames waiting for replay
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of frames dropped by a policy or because the outbox was full
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return number of frames that outlived their time to live
+	 */
+	public long getExpired() {
+		return expired.get();
+	}
+
+	/**
+	 * @return number of frames handed back for sending after a reconnect
+	 */
+	public long getReplayed() {
+		return replayed.get();
+	}
+
+	private static class Entry {
+
+		final OutboundFrame frame;
+		final long sequence;
+		final long expiresAt;
+
+		Entry(OutboundFrame frame, long expiresAt) {
+			this.frame = frame;
+			this.sequence = frame.getSequence();
+			this.expiresAt = expiresAt;
+		}
+	}
+}
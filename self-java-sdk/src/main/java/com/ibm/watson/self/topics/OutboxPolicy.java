@@ -0,0 +1,81 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+/**
+ * How the outbox treats messages for a topic while the client is disconnected
+ */
+public class OutboxPolicy {
+
+	public enum Mode {
+		/** Keep the newest messages up to a fixed count, e.g. sensor streams */
+		DROP_OLDEST,
+		/** Keep every message until it is older than its time to live */
+		KEEP_ALL,
+		/** Do not keep messages at all */
+		DISCARD
+	}
+
+	private final Mode mode;
+	private final int capacity;
+	private final long ttl;
+
+	private OutboxPolicy(Mode mode, int capacity, long ttl) {
+		this.mode = mode;
+		this.capacity = capacity;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * @param capacity: number of messages kept for each topic
+	 */
+	public static OutboxPolicy dropOldest(int capacity) {
+		if(capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		return new OutboxPolicy(Mode.DROP_OLDEST, capacity, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param ttl: milliseconds a message stays eligible for replay
+	 */
+	public static OutboxPolicy keepAll(long ttl) {
+		if(ttl <= 0)
+			throw new IllegalArgumentException("ttl must be positive");
+		return new OutboxPolicy(Mode.KEEP_ALL, Integer.MAX_VALUE, ttl);
+	}
+
+	public static OutboxPolicy discard() {
+		return new OutboxPolicy(Mode.DISCARD, 0, 0);
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	public String toString() {
+		return mode + "(capacity=" + capacity + ", ttl=" + ttl + ")";
+	}
+}
@@ -0,0 +1,100 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rules keyed by topic prefix, where a topic follows the rule of the
+ * longest prefix it starts with.
+ *
+ * Lookups never lock: the rules are kept longest prefix first in a list
+ * that is replaced, never modified, whenever a rule changes.
+ */
+class PrefixMap<V> {
+
+	private static final Comparator<Rule<?>> LONGEST_FIRST = new Comparator<Rule<?>>() {
+		public int compare(Rule<?> a, Rule<?> b) {
+			return b.prefix.length() - a.prefix.length();
+		}
+	};
+
+	private volatile List<Rule<V>> rules = Collections.emptyList();
+	private volatile V defaultValue;
+
+	PrefixMap(V defaultValue) {
+		this.defaultValue = defaultValue;
+	}
+
+	synchronized void put(String prefix, V value) {
+		List<Rule<V>> next = new ArrayList<Rule<V>>(rules.size() + 1);
+		for(Rule<V> rule : rules) {
+			if(!rule.prefix.equals(prefix))
+				next.add(rule);
+		}
+		next.add(new Rule<V>(prefix, value));
+		Collections.sort(next, LONGEST_FIRST);
+		rules = next;
+	}
+
+	synchronized V remove(String prefix) {
+		List<Rule<V>> next = new ArrayList<Rule<V>>(rules);
+		for(int i = 0; i < next.size(); i++) {
+			if(next.get(i).prefix.equals(prefix)) {
+				V value = next.remove(i).value;
+				rules = next;
+				return value;
+			}
+		}
+		return null;
+	}
+
+	void setDefault(V value) {
+		this.defaultValue = value;
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return the value of the longest matching prefix, or the default
+	 */
+	V get(String topic) {
+		if(topic == null)
+			return defaultValue;
+		List<Rule<V>> current = rules;
+		for(int i = 0; i < current.size(); i++) {
+			Rule<V> rule = current.get(i);
+			if(topic.startsWith(rule.prefix))
+				return rule.value;
+		}
+		return defaultValue;
+	}
+
+	private static final class Rule<V> {
+
+		final String prefix;
+		final V value;
+
+		Rule(String prefix, V value) {
+			this.prefix = prefix;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with full jitter for reconnect attempts. Attempt n
+ * waits a random time between zero and min(maxDelay, baseDelay * multiplier^n),
+ * so a fleet that loses the server together does not reconnect in lockstep.
+ */
+public class ReconnectPolicy {
+
+	public static final long DEFAULT_BASE_DELAY 	= 1000;
+	public static final long DEFAULT_MAX_DELAY 		= 60000;
+	public static final double DEFAULT_MULTIPLIER 	= 2.0;
+
+	private final long baseDelay;
+	private final long maxDelay;
+	private final double multiplier;
+	private final boolean jitter;
+	private final Random random = new Random();
+
+	public ReconnectPolicy() {
+		this(DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_MULTIPLIER, true);
+	}
+
+	/**
+	 * @param baseDelay: delay before the first attempt in milliseconds
+	 * @param maxDelay: upper bound for any delay in milliseconds
+	 * @param multiplier: growth of the delay per failed attempt
+	 * @param jitter: true to pick a random delay up to the computed one
+	 */
+	public ReconnectPolicy(long baseDelay, long maxDelay, double multiplier, boolean jitter) {
+		if(baseDelay < 0 || maxDelay < baseDelay || multiplier < 1.0)
+			throw new IllegalArgumentException("Invalid reconnect policy");
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * @param attempt: number of attempts that already failed, starting at 0
+	 * @return milliseconds to wait before the next attempt
+	 */
+	public long getDelay(int attempt) {
+		double ceiling = baseDelay * Math.pow(multiplier, attempt);
+		long delay = (long) Math.min(maxDelay, ceiling);
+		if(jitter && delay > 0) {
+			synchronized (random) {
+				delay = (long) (random.nextDouble() * (delay + 1));
+			}
+		}
+		return delay;
+	}
+
+	public long getBaseDelay() {
+		return baseDelay;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	public double getMultiplier() {
+		return multiplier;
+	}
+
+	public boolean hasJitter() {
+		return jitter;
+	}
+}
@@ -0,0 +1,175 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Matches replies to outstanding requests. Each request carries a unique
+ * request_id in its data, and the responder is expected to echo it in the
+ * data of the reply. A message sent by the requesting client itself is never
+ * taken as a reply, since a client subscribed to the topic it sends requests
+ * to receives its own requests too. Futures are completed on the dispatcher lane of the
+ * reply's topic, so dependent stages that are not async run there too and
+ * must not block.
+ */
+public class RequestTracker {
+
+	public static final long DEFAULT_TIMEOUT = 10000;
+
+	private final ScheduledExecutorService scheduler;
+	private final String prefix = UUID.randomUUID().toString() + "-";
+	private final AtomicLong nextId = new AtomicLong();
+	private final ConcurrentHashMap<String, CompletableFuture<TopicMessage>> pending = 
+			new ConcurrentHashMap<String, CompletableFuture<TopicMessage>>();
+
+	/*			Counters				*/
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong timedOut = new AtomicLong();
+
+	/**
+	 * @param scheduler: runs the timeouts
+	 */
+	public RequestTracker(ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * @return an id no other request of any client will use
+	 */
+	public String nextId() {
+		return prefix + nextId.incrementAndGet();
+	}
+
+	/**
+	 * Wait for the reply to a request. Must be called before the request is
+	 * sent, so a fast reply cannot arrive unmatched.
+	 * @param id: the request id
+	 * @param timeout: how long to wait
+	 * @param unit: unit of the timeout
+	 * @return the future of the reply, failing with a TimeoutException
+	 */
+	public CompletableFuture<TopicMessage> register(final String id, long timeout, TimeUnit unit) {
+		final CompletableFuture<TopicMessage> future = new CompletableFuture<TopicMessage>();
+		pending.put(id, future);
+		final ScheduledFuture<?> expiry = scheduler.schedule(new Runnable() {
+			public void run() {
+				if(pending.remove(id, future)) {
+					timedOut.incrementAndGet();
+					future.completeExceptionally(new TimeoutException("No reply to request " + id));
+				}
+			}
+		}, timeout, unit);
+		future.whenComplete(new BiConsumer<TopicMessage, Throwable>() {
+			public void accept(TopicMessage message, Throwable error) {
+				pending.remove(id, future);
+				expiry.cancel(false);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Complete the request a message replies to, if any
+	 * @param message: an inbound message
+	 * @param self: origin of the requesting client, whose own messages are
+	 * requests rather than replies
+	 * @return true if the message was a reply and has been consumed
+	 */
+	public boolean complete(TopicMessage message, String self) {
+		if(pending.isEmpty() || (self != null && self.equals(message.getOrigin())))
+			return false;
+		String id = findId(message.getData());
+		if(id == null)
+			return false;
+		CompletableFuture<TopicMessage> future = pending.remove(id);
+		if(future == null)
+			return false;
+		completed.incrementAndGet();
+		future.complete(message);
+		return true;
+	}
+
+	/**
+	 * Fail every request still waiting for a reply, e.g. when the client
+	 * closes and its timeouts will no longer run
+	 */
+	public void cancelAll() {
+		for(CompletableFuture<TopicMessage> future : pending.values()) {
+			future.cancel(false);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Read the request id from the top level of a json object without
+	 * building a tree, skipping the read entirely when the text cannot hold one
+	 */
+	static String findId(String data) {
+		if(data == null || data.indexOf(TopicConstants.REQUEST_ID) < 0)
+			return null;
+		JsonReader reader = new JsonReader(new StringReader(data));
+		reader.setLenient(true);
+		try {
+			if(reader.peek() != JsonToken.BEGIN_OBJECT)
+				return null;
+			reader.beginObject();
+			while(reader.hasNext()) {
+				if(reader.nextName().equals(TopicConstants.REQUEST_ID) 
+						&& reader.peek() == JsonToken.STRING)
+					return reader.nextString();
+				reader.skipValue();
+			}
+		}
+		catch (IOException e) {
+			// not json, so not a reply
+		}
+		catch (IllegalStateException e) {
+			// not json, so not a reply
+		}
+		return null;
+	}
+
+	/**
+	 * @return number of requests still waiting for a reply
+	 */
+	public int getPending() {
+		return pending.size();
+	}
+
+	public long getCompleted() {
+		return completed.get();
+	}
+
+	public long getTimedOut() {
+		return timedOut.get();
+	}
+}
@@ -0,0 +1,154 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.nio.ByteBuffer;
+
+import com.google.gson.JsonObject;
+
+import okio.ByteString;
+
+/**
+ * A path bound for repeated publishing. Everything in the envelope except
+ * the data is encoded once, in an order that puts data last, so a send only
+ * appends the data (or the payload length for binary frames) to the cached
+ * bytes. The cache is rebuilt if the self id of the client changes.
+ */
+public class TopicChannel {
+
+	private final TopicClient client;
+	private final String path;
+	private final boolean persisted;
+	private volatile FramePriority priority;
+	private volatile Prefixes prefixes;
+
+	TopicChannel(TopicClient client, String path, boolean persisted) {
+		this.client = client;
+		this.path = path;
+		this.persisted = persisted;
+		this.priority = client.getPriority(path);
+	}
+
+	/**
+	 * Publish data to the channel's path
+	 * @param data: data in the form of key/ val pairs
+	 * @return false if the frame was dropped
+	 */
+	public boolean send(String data) {
+		return send(OutboundFrame.prefixed(path, getPrefixes().text, data));
+	}
+
+	/**
+	 * Publish json data to the channel's path, streamed into the frame by the
+	 * writer thread instead of being built as a string first
+	 * @param data: writes the data, must write the same json every time
+	 * the frame is sent, e.g. again from the outbox after a reconnect, and
+	 * must only fail when the stream does, since what it wrote before a
+	 * failure is already on its way to the socket
+	 * @return false if the frame was dropped
+	 */
+	public boolean send(IDataWriter data) {
+		return send(OutboundFrame.prefixed(path, getPrefixes().text, data));
+	}
+
+	/**
+	 * Publish binary data to the channel's path
+	 * @param data: binary data
+	 * @return false if the frame was dropped
+	 */
+	public boolean send(byte[] data) {
+		return send(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Publish binary data to the channel's path without copying it. The bytes
+	 * between the buffer's position and limit are sent once the frame reaches
+	 * the socket, so the caller must not reuse that region until then.
+	 * @param data: binary data
+	 * @return false if the frame was dropped
+	 */
+	public boolean send(ByteBuffer data) {
+		return send(OutboundFrame.prefixed(path, getPrefixes().binary, data));
+	}
+
+	private boolean send(OutboundFrame frame) {
+		frame.setPriority(priority);
+		return client.send(frame);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public boolean isPersisted() {
+		return persisted;
+	}
+
+	public FramePriority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Override the outbound class taken from the client's prefix rules
+	 * @param priority: the outbound class
+	 */
+	public void setPriority(FramePriority priority) {
+		this.priority = priority;
+	}
+
+	private Prefixes getPrefixes() {
+		String selfId = client.getSelfId();
+		Prefixes current = prefixes;
+		if(current == null || !equals(current.selfId, selfId)) {
+			current = new Prefixes(selfId, encode(false), encode(true));
+			prefixes = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Encode the envelope up to and including "data":
+	 */
+	private ByteString encode(boolean binary) {
+		JsonObject envelope = client.createEnvelope(path, binary, persisted);
+		envelope.addProperty(TopicConstants.ORIGIN, client.getOrigin());
+		String json = envelope.toString();
+		return ByteString.encodeUtf8(json.substring(0, json.length() - 1) 
+				+ ",\"" + TopicConstants.DATA + "\":");
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	/**
+	 * Encoded envelope prefixes for one self id
+	 */
+	private static class Prefixes {
+
+		final String selfId;
+		final ByteString text;
+		final ByteString binary;
+
+		Prefixes(String selfId, ByteString text, ByteString binary) {
+			this.selfId = selfId;
+			this.text = text;
+			this.binary = binary;
+		}
+	}
+}
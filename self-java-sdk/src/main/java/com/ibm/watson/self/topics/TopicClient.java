@@ -18,8 +18,15 @@
 package com.ibm.watson.self.topics;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
@@ -27,48 +34,88 @@ import org.apache.logging.log4j.Logger;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.Gauge;
+import com.ibm.watson.self.metrics.LatencyHistogram;
+import com.ibm.watson.self.metrics.MetricsConstants;
+import com.ibm.watson.self.metrics.MetricsRegistry;
 
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Request.Builder;
-import okhttp3.RequestBody;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
-import okhttp3.ws.WebSocket;
-import okhttp3.ws.WebSocketCall;
-import okhttp3.ws.WebSocketListener;
 import okio.Buffer;
 
 /**
  * A client to make WebSocket connections to the TopicManager. This
- * enables the user to access publish/subscribe events on the instance
+ * enables the user to access publish/subscribe events on the instance.
+ * The connection itself is made by an ITransport, a WebSocketTransport
+ * unless another one is set.
  */
-public class TopicClient implements WebSocketListener {
+public class TopicClient {
 
 	/*          Logging                 */
 
     private static Logger logger = LogManager.getLogger(TopicClient.class.getName());
     
     /*			Variables				*/
-    private WebSocket socket;
-    private boolean socketOpen;
-    private OkHttpClient client;
-    private final Map<String, IEvent> subscriptionMap = new HashMap<String, IEvent>();
+    private ITransportSession socket;
+    private volatile boolean socketOpen;
+    private final FrameWriter writer;
+    private ITransport transport = new WebSocketTransport();
+    private final TopicRegistry registry = new TopicRegistry();
+    private final Outbox outbox = new Outbox();
+    private final PrefixMap<FramePriority> priorities = new PrefixMap<FramePriority>(FramePriority.CONTROL);
+    private final TopicDispatcher dispatcher;
     private static TopicClient instance = null;
     private String selfId;
     private String token;
     private String host;
     private String port;
-    private WebSocketListener listener;
-    private WebSocketCall call;
+    private ITransportSession session;
     private boolean disconnected = false;
     
+    /*			Connection state		*/
+    private final ScheduledExecutorService scheduler;
+    private final List<IConnectionListener> connectionListeners = new CopyOnWriteArrayList<IConnectionListener>();
+    private ReconnectPolicy reconnectPolicy = new ReconnectPolicy();
+    private ConnectionState state = ConnectionState.CLOSED;
+    private long stateTime = System.currentTimeMillis();
+    private int reconnectAttempts = 0;
+    private ScheduledFuture<?> pendingReconnect;
+    private volatile boolean closing = false;
+    private volatile int generation = 0;
+    private final HeartbeatMonitor heartbeat;
+    private final RequestTracker requests;
+    
+    /*			Metrics					*/
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final ConcurrentHashMap<Class<?>, LatencyHistogram> dispatchTimes = 
+    		new ConcurrentHashMap<Class<?>, LatencyHistogram>();
+    
     public TopicClient() {
-    	this.client = configureHttpClient();
     	this.socketOpen = false;
-    	this.listener = this;
+    	this.writer = new FrameWriter();
+    	this.writer.setOutbox(this.outbox);
+    	this.writer.start();
+    	this.dispatcher = new TopicDispatcher(new TopicDispatcher.Handler() {
+			public void handle(TopicMessage message) {
+				dispatch(message);
+			}
+		});
+    	ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TopicClient-scheduler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+    	// request timeouts are cancelled far more often than they fire
+    	executor.setRemoveOnCancelPolicy(true);
+    	this.scheduler = executor;
+    	this.requests = new RequestTracker(this.scheduler);
+    	this.heartbeat = new HeartbeatMonitor(this.scheduler, new HeartbeatMonitor.Handler() {
+			public void onDeadLink(int generation) {
+				TopicClient.this.onDeadLink(generation);
+			}
+		});
     }
     
     /**
@@ -77,20 +124,48 @@ public class TopicClient implements WebSocketListener {
     public static TopicClient getInstance() {
     	if(instance == null) {
     		instance = new TopicClient();
+    		instance.registerGauges();
     	}    	
     	return instance;
     }
     
-    private OkHttpClient configureHttpClient() {
-    	logger.entry();
-    	
-    	OkHttpClient.Builder builder = new OkHttpClient.Builder();    	
-    	builder.connectTimeout(60,  TimeUnit.SECONDS);
-    	builder.writeTimeout(60, TimeUnit.SECONDS);
-    	builder.readTimeout(90, TimeUnit.SECONDS);
-    	
-    	return logger.exit(builder.build());
-    	
+    /**
+     * Report the queues of this client through the metrics registry. Only the
+     * shared instance does so, other clients are read through their getters.
+     */
+    private void registerGauges() {
+    	metrics.gauge(MetricsConstants.WRITER_QUEUE_DEPTH, new Gauge() {
+			public long getValue() {
+				return writer.getQueueDepth();
+			}
+		});
+    	metrics.gauge(MetricsConstants.WRITER_REJECTED, new Gauge() {
+			public long getValue() {
+				return writer.getFramesRejected();
+			}
+		});
+    	metrics.gauge(MetricsConstants.DISPATCHER_DROPPED, new Gauge() {
+			public long getValue() {
+				return dispatcher.getDropped();
+			}
+		});
+    	metrics.gauge(MetricsConstants.OUTBOX_SIZE, new Gauge() {
+			public long getValue() {
+				return outbox.getSize();
+			}
+		});
+    }
+    
+    /**
+     * Set how connections are made. Takes effect on the next connect.
+     * @param transport: the transport, e.g. a LoopbackTransport
+     */
+    public void setTransport(ITransport transport) {
+    	this.transport = transport;
+    }
+    
+    public ITransport getTransport() {
+    	return this.transport;
     }
     
 	/**
@@ -105,59 +180,74 @@ public class TopicClient implements WebSocketListener {
 	 */
 	public boolean connect(String host, String port)  {
 		logger.entry();
+		if(this.scheduler.isShutdown())
+			throw new IllegalStateException("TopicClient has been closed");
 		this.host = host;
 		this.port = port;
-		Builder builder = new Request.Builder().url(TopicConstants.WS + this.host 
-				+ TopicConstants.COLON + this.port + TopicConstants.STREAM);
-		builder.addHeader(TopicConstants.SELF_ID, this.selfId);
-		builder.addHeader(TopicConstants.TOKEN, this.token);
-		this.call = WebSocketCall.create(this.client, builder.build());
-		this.call.enqueue(this.listener);
+		this.closing = false;
+		setState(ConnectionState.CONNECTING);
+		int current;
+		synchronized (this) {
+			current = ++this.generation;
+		}
+		this.session = transport.connect(this.host, this.port, this.selfId, this.token, new Connection(current));
 		
 		return logger.exit(true);
 	}
 	
 	/**
-	 * Send off the message via the WebSocket connection
+	 * Queue the message to be sent via the WebSocket connection. The message
+	 * is serialized and written on the writer thread, not the caller's.
 	 * @param message: message in the form of a json
 	 */
     public void sendMessage(JsonObject message) {
+    	sendMessage(null, message, FramePriority.CONTROL);
+    }
+    
+    private void sendMessage(String topic, JsonObject message, FramePriority priority) {
     	logger.entry();
-    	try {
-    		if(this.socketOpen) {
-    			message.addProperty(TopicConstants.ORIGIN, this.selfId + TopicConstants.ROOT);
-    			socket.sendMessage(RequestBody.create(WebSocket.TEXT, message.toString()));
-    		}
-    		else
-    			logger.info("Not Connected!");
-    	}
-    	catch (IOException e) {
-    		logger.error(e.getMessage());
-    	}
+    	message.addProperty(TopicConstants.ORIGIN, getOrigin());
+    	OutboundFrame frame = new OutboundFrame(topic, message);
+    	frame.setPriority(priority);
+    	send(frame);
 		logger.exit();
     }
     
-    private void sendMessage(JsonObject wrapperObject, byte[] data) {
+    private void sendMessage(String topic, JsonObject wrapperObject, ByteBuffer data, FramePriority priority) {
     	logger.entry();
-		wrapperObject.addProperty(TopicConstants.DATA, data.length);
-		wrapperObject.addProperty(TopicConstants.ORIGIN, this.selfId + TopicConstants.ROOT);
-		try {
-			byte[] header = wrapperObject.toString().getBytes(TopicConstants.UTF8);
-			byte[] frame = new byte[header.length + data.length + 1];
-			System.arraycopy(header, 0, frame, 0, header.length);
-			System.arraycopy(data, 0, frame, header.length + 1, data.length);
-			if(this.socketOpen) {
-				socket.sendMessage(RequestBody.create(WebSocket.BINARY, frame));
-			}
-			else
-				logger.info("Not Connected!");
-		}
-		catch (Exception e) {
-			logger.error(e.getMessage());
-		}
+		wrapperObject.addProperty(TopicConstants.DATA, data.remaining());
+		wrapperObject.addProperty(TopicConstants.ORIGIN, getOrigin());
+		OutboundFrame frame = new OutboundFrame(topic, OutboundFrame.encodeHeader(wrapperObject), data);
+		frame.setPriority(priority);
+		send(frame);
 		logger.exit();
 	}
     
+    /**
+     * Queue a frame for the writer, or keep it in the outbox while disconnected.
+     * Control messages are kept under the outbox's control policy, except
+     * subscribes and unsubscribes, which are rebuilt from the registry when
+     * the connection opens.
+     * @param frame: the frame
+     * @return false if the frame was dropped
+     */
+    boolean send(OutboundFrame frame) {
+    	if(this.socketOpen) {
+    		return writer.enqueue(frame);
+    	}
+    	synchronized (outbox) {
+    		// the outbox may have been replayed while waiting for it
+    		if(this.socketOpen) {
+    			return writer.enqueue(frame);
+    		}
+    		if(!outbox.add(frame)) {
+    			logger.info("Not Connected!");
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    
     /**
      * Publish data to the topic
      * @param path: the path
@@ -165,16 +255,21 @@ public class TopicClient implements WebSocketListener {
      * @param persisted: true if data needs to be persisted
      */
     public void publish(String path, String data, boolean persisted) {
+    	publish(path, data, persisted, getPriority(path));
+    }
+    
+    /**
+     * Publish data to the topic in the given priority class
+     * @param path: the path
+     * @param data: data in the form of key/ val pairs
+     * @param persisted: true if data needs to be persisted
+     * @param priority: the outbound class, overriding the one set for the path
+     */
+    public void publish(String path, String data, boolean persisted, FramePriority priority) {
     	logger.entry();
-    	JsonObject wrapperObject = new JsonObject();
-    	JsonArray pathArray = new JsonArray();
-    	pathArray.add(new JsonPrimitive(path));
-    	wrapperObject.add(TopicConstants.TARGETS, pathArray);
-    	wrapperObject.addProperty(TopicConstants.MSG, TopicConstants.PUBLISH_AT);
+    	JsonObject wrapperObject = createEnvelope(path, false, persisted);
     	wrapperObject.addProperty(TopicConstants.DATA, data);
-    	wrapperObject.addProperty(TopicConstants.BINARY, false);
-    	wrapperObject.addProperty(TopicConstants.PERSISTED, persisted);
-    	this.sendMessage(wrapperObject);
+    	this.sendMessage(path, wrapperObject, priority);
     	logger.exit();
     }
     
@@ -185,59 +280,333 @@ public class TopicClient implements WebSocketListener {
      * @param persisted: true if data needs to be persisted
      */
     public void publish(String path, byte[] data, boolean persisted) {
+    	publish(path, ByteBuffer.wrap(data), persisted);
+    }
+    
+    /**
+     * Publish binary data to the topic without copying it. The bytes between
+     * the buffer's position and limit are sent once the frame reaches the
+     * socket, so the caller must not reuse that region until then.
+     * @param path: the path
+     * @param data: binary data
+     * @param persisted: true if data needs to be persisted
+     */
+    public void publish(String path, ByteBuffer data, boolean persisted) {
+    	publish(path, data, persisted, getPriority(path));
+    }
+    
+    /**
+     * Publish binary data to the topic in the given priority class, without
+     * copying it
+     * @param path: the path
+     * @param data: binary data
+     * @param persisted: true if data needs to be persisted
+     * @param priority: the outbound class, overriding the one set for the path
+     */
+    public void publish(String path, ByteBuffer data, boolean persisted, FramePriority priority) {
     	logger.entry();
+    	JsonObject wrapperObject = createEnvelope(path, true, persisted);
+    	this.sendMessage(path, wrapperObject, data, priority);
+    	logger.exit();
+    }
+    
+    /**
+     * Publish a request and wait for its reply, using the default timeout
+     * @param path: the path
+     * @param data: the request, stamped with a request_id before it is sent
+     * @return the reply, or a TimeoutException if none arrives in time
+     */
+    public CompletableFuture<TopicMessage> request(String path, JsonObject data) {
+    	return request(path, data, RequestTracker.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Publish a request and wait for its reply. The responder must echo the
+     * request_id in the data of its reply, which has to arrive on a topic this
+     * client is subscribed to, from another origin than this client's own.
+     * Replies are consumed by the future and are not passed to the subscribers
+     * of the topic.
+     * @param path: the path
+     * @param data: the request, stamped with a request_id before it is sent
+     * @param timeout: how long to wait for the reply
+     * @param unit: unit of the timeout
+     * @return the reply, or a TimeoutException if none arrives in time
+     */
+    public CompletableFuture<TopicMessage> request(String path, JsonObject data, long timeout, TimeUnit unit) {
+    	logger.entry();
+    	String id = requests.nextId();
+    	data.addProperty(TopicConstants.REQUEST_ID, id);
+    	CompletableFuture<TopicMessage> future = requests.register(id, timeout, unit);
+    	publish(path, data.toString(), false);
+    	return logger.exit(future);
+    }
+    
+    /**
+     * Bind a path for repeated publishing. The channel encodes the parts of
+     * the envelope that never change once, so each send only adds the data.
+     * @param path: the path
+     * @param persisted: true if data needs to be persisted
+     * @return the channel
+     */
+    public TopicChannel channel(String path, boolean persisted) {
+    	return new TopicChannel(this, path, persisted);
+    }
+    
+    /**
+     * Build a publish envelope without its data or origin
+     * @param path: the path
+     * @param binary: true for binary frames
+     * @param persisted: true if data needs to be persisted
+     * @return the envelope
+     */
+    JsonObject createEnvelope(String path, boolean binary, boolean persisted) {
     	JsonObject wrapperObject = new JsonObject();
     	JsonArray pathArray = new JsonArray();
     	pathArray.add(new JsonPrimitive(path));
     	wrapperObject.add(TopicConstants.TARGETS, pathArray);
     	wrapperObject.addProperty(TopicConstants.MSG, TopicConstants.PUBLISH_AT);
-    	wrapperObject.addProperty(TopicConstants.BINARY, true);
+    	wrapperObject.addProperty(TopicConstants.BINARY, binary);
     	wrapperObject.addProperty(TopicConstants.PERSISTED, persisted);
-    	this.sendMessage(wrapperObject, data);
-    	logger.exit();
+    	return wrapperObject;
+    }
+    
+    /**
+     * @return the origin stamped on every outgoing message
+     */
+    String getOrigin() {
+    	return this.selfId + TopicConstants.ROOT;
+    }
+    
+    String getSelfId() {
+    	return this.selfId;
     }
 
     /**
-     * Subscribe to a topic if possible
+     * Subscribe to a topic if possible. Any number of subscribers can share a
+     * topic. A path ending in '*' subscribes to every topic this client
+     * receives that starts with the text before it; patterns are matched
+     * locally and are not sent to the TopicManager. The TopicManager is only
+     * told when the first subscriber of a topic arrives; after a reconnect the
+     * client subscribes to every topic again by itself.
      * @param path: the path
      * @param event: the event to subscribe to
      */
 	public void subscribe(String path, IEvent event) {
 		logger.entry();
-    	if(!subscriptionMap.containsKey(path)) {
-    		subscriptionMap.put(path, event);
-    	}
+		if(registry.add(path, event) && !TopicRegistry.isPattern(path)) {
+			sendSubscribe(path);
+		}
+    	logger.exit();
+    }
+    
+    private void sendSubscribe(String path) {
+    	send(createSubscribe(path));
+    }
+    
+    private OutboundFrame createSubscribe(String path) {
     	JsonObject wrapperObject = new JsonObject();
     	JsonArray wrapperArray = new JsonArray();
     	wrapperArray.add(new JsonPrimitive(path));
     	wrapperObject.add(TopicConstants.TARGETS, wrapperArray);
     	wrapperObject.addProperty(TopicConstants.MSG, TopicConstants.SUBSCRIBE);
-    	this.sendMessage(wrapperObject);
-    	logger.exit();
+    	wrapperObject.addProperty(TopicConstants.ORIGIN, getOrigin());
+    	OutboundFrame frame = new OutboundFrame(null, wrapperObject);
+    	frame.setSessionOnly(true);
+    	return frame;
     }
     
 	/**
-	 * Unsubscribe from a given topic
+	 * Unsubscribe from a given topic. The TopicManager is only told once the
+	 * last subscriber of the topic has gone.
 	 * @param path: the path
 	 * @param event: the event to unsubscribe from
-	 * @return: true if successfully unscubscribed
+	 * @return: true if the topic has no subscribers left
 	 */
     public boolean unsubscribe(String path, IEvent event) {
     	logger.entry();
-    	if(subscriptionMap.containsKey(path)) {
-    		subscriptionMap.remove(path);
+    	if(registry.remove(path, event)) {
+    		if(TopicRegistry.isPattern(path))
+    			return logger.exit(true);
     		JsonObject wrapperObject = new JsonObject();
     		JsonArray wrapperArray = new JsonArray();
     		wrapperArray.add(new JsonPrimitive(path));
     		wrapperObject.add(TopicConstants.TARGETS, wrapperArray);
     		wrapperObject.addProperty(TopicConstants.MSG, TopicConstants.UNSUBSCRIBE);
-    		this.sendMessage(wrapperObject);
+    		wrapperObject.addProperty(TopicConstants.ORIGIN, getOrigin());
+    		// a new connection only gets the topics still subscribed, so this is not kept
+    		OutboundFrame frame = new OutboundFrame(null, wrapperObject);
+    		frame.setSessionOnly(true);
+    		send(frame);
     		return logger.exit(true);
     	}
     	
     	return logger.exit(false);
     }
 	
+    /**
+     * Subscribers of every topic and pattern
+     * @return the registry
+     */
+    public TopicRegistry getRegistry() {
+    	return this.registry;
+    }
+    
+    /**
+     * Publishes held while disconnected, with their policies and counters
+     * @return the outbox
+     */
+    public Outbox getOutbox() {
+    	return this.outbox;
+    }
+    
+    /**
+     * Set the outbound class of every topic starting with a prefix. Topics
+     * without a matching prefix are sent as control traffic.
+     * @param prefix: the topic prefix, e.g. "sensor-proxy-"
+     * @param priority: the outbound class
+     */
+    public void setPriority(String prefix, FramePriority priority) {
+    	priorities.put(prefix, priority);
+    }
+    
+    /**
+     * @param topic: the topic
+     * @return the outbound class publishes to the topic are sent in
+     */
+    public FramePriority getPriority(String topic) {
+    	return priorities.get(topic);
+    }
+    
+    /**
+     * Lanes that run subscriber callbacks, with their queue latencies
+     * @return the dispatcher
+     */
+    public TopicDispatcher getDispatcher() {
+    	return this.dispatcher;
+    }
+    
+    /**
+     * Requests waiting for replies
+     * @return the request tracker
+     */
+    public RequestTracker getRequests() {
+    	return this.requests;
+    }
+    
+    /**
+     * Ping schedule, dead link detection and round trip times
+     * @return the heartbeat monitor
+     */
+    public HeartbeatMonitor getHeartbeat() {
+    	return this.heartbeat;
+    }
+    
+    /**
+     * Outbound queue and its counters
+     * @return the frame writer
+     */
+    public FrameWriter getWriter() {
+    	return this.writer;
+    }
+    
+    /**
+     * Close the connection and stop reconnecting
+     */
+    public void disconnect() {
+    	logger.entry();
+    	synchronized (this) {
+    		this.closing = true;
+    		this.heartbeat.stop();
+    		if(pendingReconnect != null) {
+    			pendingReconnect.cancel(false);
+    			pendingReconnect = null;
+    		}
+    	}
+    	if(this.socketOpen) {
+    		try {
+    			socket.close(1000, "closing");
+    		}
+    		catch (IOException e) {
+    			logger.error(e.getMessage());
+    		}
+    	}
+    	else if(this.session != null) {
+    		this.session.cancel();
+    	}
+    	this.socketOpen = false;
+    	this.writer.setSession(null);
+    	setState(ConnectionState.CLOSED);
+    	logger.exit();
+    }
+    
+    /**
+     * Disconnect and stop the writer, dispatcher and scheduler threads this
+     * client owns. Queued frames and messages are discarded and requests still
+     * waiting for a reply fail. The client cannot connect again afterwards.
+     */
+    public void close() {
+    	logger.entry();
+    	disconnect();
+    	this.writer.stop();
+    	this.dispatcher.shutdown();
+    	this.scheduler.shutdownNow();
+    	this.requests.cancelAll();
+    	logger.exit();
+    }
+    
+    /**
+     * Set how long to wait between reconnect attempts
+     * @param policy: the backoff policy
+     */
+    public void setReconnectPolicy(ReconnectPolicy policy) {
+    	this.reconnectPolicy = policy;
+    }
+    
+    public ReconnectPolicy getReconnectPolicy() {
+    	return this.reconnectPolicy;
+    }
+    
+    public void addConnectionListener(IConnectionListener listener) {
+    	connectionListeners.add(listener);
+    }
+    
+    public void removeConnectionListener(IConnectionListener listener) {
+    	connectionListeners.remove(listener);
+    }
+    
+    public synchronized ConnectionState getState() {
+    	return this.state;
+    }
+    
+    /**
+     * @return time of the last state change in milliseconds since the epoch
+     */
+    public synchronized long getStateTimestamp() {
+    	return this.stateTime;
+    }
+    
+    private void setState(ConnectionState newState) {
+    	ConnectionState previous;
+    	long timestamp;
+    	synchronized (this) {
+    		if(this.state == newState)
+    			return;
+    		previous = this.state;
+    		timestamp = System.currentTimeMillis();
+    		this.state = newState;
+    		this.stateTime = timestamp;
+    	}
+    	logger.info("Connection state " + previous + " -> " + newState);
+    	for(IConnectionListener listener : connectionListeners) {
+    		try {
+    			listener.onStateChanged(previous, newState, timestamp);
+    		}
+    		catch (RuntimeException e) {
+    			logger.error("Connection listener failed: " + e.getMessage());
+    		}
+    	}
+    }
+    
     /**
      * Check if socket is open.
      * @return
@@ -257,75 +626,237 @@ public class TopicClient implements WebSocketListener {
 		logger.exit();
     }
 
-	public void onClose(int arg0, String arg1) {
+	private void onClose(int arg0, String arg1) {
     	logger.entry();
     	this.socketOpen = false;
+    	this.writer.setSession(null);
+    	this.heartbeat.stop();
         logger.info("closing websocket");
-        onReconnect();
+        onReconnect("closed " + arg0 + " " + arg1);
         logger.exit();	
 	}
 
-	public void onFailure(IOException arg0, Response arg1) {
+	private void onFailure(IOException arg0) {
 		logger.entry();
+		logger.error("WebSocket failure: " + (arg0 != null ? arg0.getMessage() : null));
 		this.socketOpen = false;
-		onReconnect();
+		this.writer.setSession(null);
+		this.heartbeat.stop();
+		onReconnect("failure " + (arg0 != null ? arg0.getMessage() : null));
 		logger.exit();		
 	}
 	
-	private void onReconnect() {
-		if (this.socket != null) {
-			try {
-				this.disconnected = true;
-				for(String topic : subscriptionMap.keySet()) {
-					subscriptionMap.get(topic).onDisconnect();
-				}
-				logger.info("Client reconnecting in 5 seconds...");
-				Thread.sleep(5000);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	/**
+	 * Drop a connection that stopped answering pings and reconnect. The
+	 * generation moves on first, so whatever the dead socket reports later
+	 * is ignored.
+	 * @param dead: the generation of the dead connection
+	 */
+	private void onDeadLink(int dead) {
+		ITransportSession stale;
+		synchronized (this) {
+			if(dead != this.generation || this.closing)
+				return;
+			this.generation++;
+			stale = this.session;
+		}
+		this.socketOpen = false;
+		this.writer.setSession(null);
+		if(stale != null) {
+			stale.cancel();
+		}
+		onReconnect("no pong");
+	}
+	
+	private void onReconnect(String reason) {
+		if(this.closing) {
+			setState(ConnectionState.CLOSED);
+			return;
+		}
+		if(this.socket != null && !this.disconnected) {
+			this.disconnected = true;
+			for(IEvent event : registry.getSubscribers()) {
+				event.onDisconnect();
 			}
-			connect(this.host, this.port);
 		}
+		scheduleReconnect(reason);
+	}
+	
+	/**
+	 * Schedule the next connection attempt according to the reconnect policy.
+	 * Never blocks the calling thread, which is usually an OkHttp dispatcher.
+	 * @param reason: why the connection is down
+	 */
+	private void scheduleReconnect(String reason) {
+		long delay;
+		int attempt;
+		synchronized (this) {
+			if(this.closing || (pendingReconnect != null && !pendingReconnect.isDone()))
+				return;
+			attempt = reconnectAttempts++;
+			delay = reconnectPolicy.getDelay(attempt);
+			pendingReconnect = scheduler.schedule(new Runnable() {
+				public void run() {
+					if(!closing)
+						connect(host, port);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		setState(ConnectionState.BACKOFF);
+		FlightEvents.reconnect(attempt + 1, delay, reason);
+		logger.info("Client reconnecting in " + delay + " ms...");
 	}
 
 	/**
 	 * Handle incoming messages
-	 * @param message: the incoming message
+	 * @param message: the decoded message
 	 */
-	public void onMessage(ResponseBody message) throws IOException {
-		logger.entry();
-		String response = message.string();
-		JsonParser parser = new JsonParser();
-		JsonObject wrapperObject = parser.parse(response).getAsJsonObject();
-		if(!wrapperObject.has(TopicConstants.BINARY)) {
+	private void onMessage(TopicMessage message) {
+		if(message.hasBinary()) {
+			metrics.topic(message.getTopic()).recordIn(message.getDataSize());
+			dispatcher.dispatch(message);
+		}
+	}
+	
+	/**
+	 * Hand a message to every subscriber of its topic. Runs on the
+	 * dispatcher lane of the topic, never on the socket reader.
+	 * @param message: the decoded message
+	 */
+	private void dispatch(TopicMessage message) {
+		if(requests.complete(message, getOrigin()))
 			return;
+		IEvent[] events = registry.get(message.getTopic());
+		for(int i = 0; i < events.length; i++) {
+			long start = System.nanoTime();
+			try {
+				deliver(events[i], message);
+				dispatchTime(events[i]).recordSince(start);
+			}
+			catch (RuntimeException e) {
+				logger.error("Subscriber of " + message.getTopic() + " failed: " + e.getMessage());
+			}
+		}
+	}
+	
+	private LatencyHistogram dispatchTime(IEvent event) {
+		LatencyHistogram histogram = dispatchTimes.get(event.getClass());
+		if(histogram == null) {
+			histogram = metrics.histogram(MetricsConstants.DISPATCH_TIME + event.getClass().getName());
+			dispatchTimes.put(event.getClass(), histogram);
 		}
-		else if(!wrapperObject.get(TopicConstants.BINARY).getAsBoolean()) {
-			if(subscriptionMap.containsKey(wrapperObject.get(TopicConstants.TOPIC).getAsString())) {
-				subscriptionMap.get(wrapperObject.get(TopicConstants.TOPIC).getAsString())
-					.onEvent(wrapperObject.get(TopicConstants.DATA).getAsString());
+		return histogram;
+	}
+	
+	private void deliver(IEvent event, TopicMessage message) {
+		if(message.isBinary()) {
+			if(event instanceof IBinaryEvent) {
+				((IBinaryEvent) event).onBinaryEvent(message, message.getPayload());
 			}
 		}
-		logger.exit();
-		
+		else if(event instanceof IMessageEvent) {
+			((IMessageEvent) event).onMessage(message);
+		}
+		else {
+			event.onEvent(message.getData());
+		}
 	}
 
-	public void onOpen(WebSocket socket, Response arg1) {
+	private void onOpen(ITransportSession socket) {
 		logger.entry();
 		this.socket = socket;
-		this.socketOpen = true;
+		this.writer.setSession(socket);
+		synchronized (this) {
+			this.reconnectAttempts = 0;
+		}
 		logger.info("opening websocket!");	
+		// subscribes made while disconnected were dropped, send them all now
+		for(String path : registry.getPaths()) {
+			writer.enqueue(createSubscribe(path));
+		}
 		if(this.disconnected) {
-			for(String topic : subscriptionMap.keySet()) {
-				subscriptionMap.get(topic).onReconnect();
+			// publishes made here still go to the outbox, behind the backlog
+			for(IEvent event : registry.getSubscribers()) {
+				event.onReconnect();
 			}
 			this.disconnected = false;
 		}
+		flushOutbox();
+		this.heartbeat.start(socket, this.generation);
+		setState(ConnectionState.OPEN);
 		logger.exit();
 		
 	}
+	
+	/**
+	 * Replay everything published while disconnected, in publish order, then
+	 * let publishes through to the writer. Both happen under the outbox lock,
+	 * so no publish can reach the socket ahead of the backlog.
+	 */
+	private void flushOutbox() {
+		synchronized (outbox) {
+			List<OutboundFrame> frames = outbox.drain();
+			if(!frames.isEmpty()) {
+				logger.info("Replaying " + frames.size() + " messages published while disconnected");
+			}
+			for(OutboundFrame frame : frames) {
+				writer.enqueue(frame);
+			}
+			this.socketOpen = true;
+		}
+	}
 
-	public void onPong(Buffer arg0) {
-		logger.info("OnPong() called"); 
+	private void onPong(Buffer arg0) {
+		heartbeat.onPong(arg0);
+	}
+	
+	/**
+	 * Forwards the callbacks of one connection attempt to the client,
+	 * dropping them once a newer attempt has replaced it
+	 */
+	private class Connection implements ITransportListener {
+		
+		private final int generation;
+		
+		Connection(int generation) {
+			this.generation = generation;
+		}
+		
+		private boolean isCurrent() {
+			return this.generation == TopicClient.this.generation;
+		}
+
+		public void onOpen(ITransportSession session) {
+			if(isCurrent()) {
+				TopicClient.this.onOpen(session);
+				return;
+			}
+			try {
+				session.close(1000, "superseded");
+			}
+			catch (IOException e) {
+				logger.error(e.getMessage());
+			}
+		}
+
+		public void onFailure(IOException e) {
+			if(isCurrent())
+				TopicClient.this.onFailure(e);
+		}
+
+		public void onMessage(TopicMessage message) {
+			if(isCurrent())
+				TopicClient.this.onMessage(message);
+		}
+
+		public void onPong(Buffer payload) {
+			if(isCurrent())
+				TopicClient.this.onPong(payload);
+		}
+
+		public void onClose(int code, String reason) {
+			if(isCurrent())
+				TopicClient.this.onClose(code, reason);
+		}
 	}
 }
@@ -0,0 +1,360 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Spreads topics over several TopicClient connections, to one or more hosts.
+ * A topic goes to the connection of the longest matching routing rule, e.g.
+ * "sensor-proxy-" on a connection of its own, and otherwise to the owner of
+ * its hash on a consistent hash ring, so adding or removing a connection only
+ * moves the topics of that connection. Every connection keeps its own
+ * subscriptions, outbox and reconnect state.
+ *
+ * The pool remembers which connection each subscription was made on. When
+ * a connection is added or removed, or a rule changes, subscriptions whose
+ * topic now belongs to another connection are moved to it. Patterns are
+ * subscribed on every connection, including ones added later.
+ */
+public class TopicClientPool {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(TopicClientPool.class.getName());
+
+	public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+	/*			Variables				*/
+	private final int virtualNodes;
+	private final List<TopicClient> clients = new ArrayList<TopicClient>();
+	private final List<String> names = new ArrayList<String>();
+	private final PrefixMap<TopicClient> rules = new PrefixMap<TopicClient>(null);
+	private volatile Ring ring = new Ring(new int[0], new TopicClient[0]);
+	// connection each subscriber of a topic is subscribed on, null while the pool is empty
+	private final Map<String, Map<IEvent, TopicClient>> subscriptions = new HashMap<String, Map<IEvent, TopicClient>>();
+	private final Map<String, List<IEvent>> patterns = new HashMap<String, List<IEvent>>();
+
+	public TopicClientPool() {
+		this(DEFAULT_VIRTUAL_NODES);
+	}
+
+	/**
+	 * @param virtualNodes: points each connection takes on the hash ring,
+	 * more points spread topics more evenly
+	 */
+	public TopicClientPool(int virtualNodes) {
+		if(virtualNodes < 1)
+			throw new IllegalArgumentException("virtualNodes must be at least 1");
+		this.virtualNodes = virtualNodes;
+	}
+
+	/**
+	 * Open a new connection and add it to the pool
+	 * @param host: ip address
+	 * @param port: port number
+	 * @param selfId: unique self id
+	 * @param token: bearer token for authentication
+	 * @return the new connection
+	 */
+	public TopicClient connect(String host, String port, String selfId, String token) {
+		TopicClient client = new TopicClient();
+		client.setHeaders(selfId, token);
+		add(client, host + TopicConstants.COLON + port);
+		client.connect(host, port);
+		return client;
+	}
+
+	/**
+	 * Add a connection to the hash ring, moving to it the subscriptions of
+	 * the topics it now carries
+	 * @param client: the connection
+	 * @param name: identifies the connection on the ring, must be unique in
+	 * the pool and stay the same across restarts for topics to keep their owner
+	 * @throws IllegalArgumentException if the name is already in the pool
+	 */
+	public synchronized void add(TopicClient client, String name) {
+		if(names.contains(name))
+			throw new IllegalArgumentException("Connection " + name + " is already in the pool");
+		clients.add(client);
+		names.add(name);
+		rebuild();
+		for(Map.Entry<String, List<IEvent>> pattern : patterns.entrySet()) {
+			for(IEvent event : pattern.getValue()) {
+				client.subscribe(pattern.getKey(), event);
+			}
+		}
+		rehome();
+	}
+
+	/**
+	 * Remove a connection from the hash ring and close it. Its subscriptions
+	 * move to the connections that now carry their topics. Rules routing to
+	 * it stay in place.
+	 * @param client: the connection
+	 * @return true if the connection was in the pool
+	 */
+	public boolean remove(TopicClient client) {
+		synchronized (this) {
+			int index = clients.indexOf(client);
+			if(index < 0)
+				return false;
+			clients.remove(index);
+			names.remove(index);
+			rebuild();
+			for(Map<IEvent, TopicClient> subscribers : subscriptions.values()) {
+				for(Map.Entry<IEvent, TopicClient> subscriber : subscribers.entrySet()) {
+					if(subscriber.getValue() == client)
+						subscriber.setValue(null);
+				}
+			}
+			rehome();
+		}
+		client.close();
+		return true;
+	}
+
+	/**
+	 * Send every topic starting with a prefix to one connection, overriding
+	 * the hash ring
+	 * @param prefix: the topic prefix, e.g. "sensor-proxy-"
+	 * @param client: the connection, which need not be on the ring
+	 */
+	public synchronized void route(String prefix, TopicClient client) {
+		rules.put(prefix, client);
+		rehome();
+	}
+
+	public synchronized void unroute(String prefix) {
+		rules.remove(prefix);
+		rehome();
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return the connection that carries the topic, or null if the pool is empty
+	 */
+	public TopicClient getClient(String topic) {
+		TopicClient client = rules.get(topic);
+		if(client != null)
+			return client;
+		return ring.get(hash(topic));
+	}
+
+	/**
+	 * @return every connection on the hash ring
+	 */
+	public synchronized List<TopicClient> getClients() {
+		return Collections.unmodifiableList(new ArrayList<TopicClient>(clients));
+	}
+
+	public void publish(String path, String data, boolean persisted) {
+		clientFor(path).publish(path, data, persisted);
+	}
+
+	public void publish(String path, byte[] data, boolean persisted) {
+		clientFor(path).publish(path, data, persisted);
+	}
+
+	public void publish(String path, ByteBuffer data, boolean persisted) {
+		clientFor(path).publish(path, data, persisted);
+	}
+
+	public TopicChannel channel(String path, boolean persisted) {
+		return clientFor(path).channel(path, persisted);
+	}
+
+	public CompletableFuture<TopicMessage> request(String path, JsonObject data, long timeout, TimeUnit unit) {
+		return clientFor(path).request(path, data, timeout, unit);
+	}
+
+	/**
+	 * Subscribe on the connection carrying the path. A pattern can match
+	 * topics of any connection, so it is subscribed on all of them.
+	 * @param path: the path or pattern
+	 * @param event: the subscriber
+	 */
+	public synchronized void subscribe(String path, IEvent event) {
+		if(TopicRegistry.isPattern(path)) {
+			List<IEvent> events = patterns.get(path);
+			if(events == null) {
+				events = new ArrayList<IEvent>();
+				patterns.put(path, events);
+			}
+			if(!events.contains(event))
+				events.add(event);
+			for(TopicClient client : clients) {
+				client.subscribe(path, event);
+			}
+		}
+		else {
+			TopicClient client = clientFor(path);
+			client.subscribe(path, event);
+			Map<IEvent, TopicClient> subscribers = subscriptions.get(path);
+			if(subscribers == null) {
+				subscribers = new IdentityHashMap<IEvent, TopicClient>();
+				subscriptions.put(path, subscribers);
+			}
+			subscribers.put(event, client);
+		}
+	}
+
+	/**
+	 * Unsubscribe on the connection the subscription was made on
+	 * @param path: the path or pattern
+	 * @param event: the subscriber
+	 * @return true if the path has no subscribers left
+	 */
+	public synchronized boolean unsubscribe(String path, IEvent event) {
+		if(TopicRegistry.isPattern(path)) {
+			List<IEvent> events = patterns.get(path);
+			if(events != null && events.remove(event) && events.isEmpty())
+				patterns.remove(path);
+			boolean empty = true;
+			for(TopicClient client : clients) {
+				empty &= client.unsubscribe(path, event);
+			}
+			return empty;
+		}
+		Map<IEvent, TopicClient> subscribers = subscriptions.get(path);
+		if(subscribers == null || !subscribers.containsKey(event))
+			return clientFor(path).unsubscribe(path, event);
+		TopicClient client = subscribers.remove(event);
+		if(subscribers.isEmpty())
+			subscriptions.remove(path);
+		if(client == null)
+			return !subscriptions.containsKey(path);
+		return client.unsubscribe(path, event);
+	}
+
+	/**
+	 * Close every connection on the ring and stop its threads
+	 */
+	public void disconnect() {
+		for(TopicClient client : getClients()) {
+			client.close();
+		}
+	}
+
+	private TopicClient clientFor(String path) {
+		TopicClient client = getClient(path);
+		if(client == null)
+			throw new IllegalStateException("No connections in the pool");
+		return client;
+	}
+
+	/**
+	 * Move every subscription whose topic is now carried by another
+	 * connection. Subscriptions stay unowned while the pool is empty.
+	 */
+	private void rehome() {
+		for(Map.Entry<String, Map<IEvent, TopicClient>> entry : subscriptions.entrySet()) {
+			String path = entry.getKey();
+			TopicClient owner = getClient(path);
+			if(owner == null)
+				continue;
+			for(Map.Entry<IEvent, TopicClient> subscriber : entry.getValue().entrySet()) {
+				TopicClient previous = subscriber.getValue();
+				if(previous == owner)
+					continue;
+				if(previous != null)
+					previous.unsubscribe(path, subscriber.getKey());
+				owner.subscribe(path, subscriber.getKey());
+				subscriber.setValue(owner);
+			}
+		}
+	}
+
+	private void rebuild() {
+		int[] points = new int[clients.size() * virtualNodes];
+		TopicClient[] owners = new TopicClient[points.length];
+		long[] sorted = new long[points.length];
+		for(int c = 0; c < clients.size(); c++) {
+			for(int v = 0; v < virtualNodes; v++) {
+				int point = hash(names.get(c) + "-" + v);
+				// sort by point, keeping the owner index in the low bits
+				sorted[c * virtualNodes + v] = ((long) point << 32) | c;
+			}
+		}
+		Arrays.sort(sorted);
+		for(int i = 0; i < sorted.length; i++) {
+			points[i] = (int) (sorted[i] >> 32);
+			owners[i] = clients.get((int) sorted[i]);
+		}
+		ring = new Ring(points, owners);
+		logger.info("Topic pool has " + clients.size() + " connections");
+	}
+
+	/**
+	 * FNV-1a over the characters, then the murmur3 finalizer so that
+	 * similar topics land far apart
+	 */
+	static int hash(String key) {
+		int h = 0x811c9dc5;
+		for(int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= 0x01000193;
+		}
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/**
+	 * Sorted ring points and their owners, replaced as a whole on change
+	 */
+	private static class Ring {
+
+		final int[] points;
+		final TopicClient[] owners;
+
+		Ring(int[] points, TopicClient[] owners) {
+			this.points = points;
+			this.owners = owners;
+		}
+
+		/**
+		 * @return the owner of the first point at or after the hash
+		 */
+		TopicClient get(int hash) {
+			if(points.length == 0)
+				return null;
+			int index = Arrays.binarySearch(points, hash);
+			if(index < 0)
+				index = -index - 1;
+			return owners[index == points.length ? 0 : index];
+		}
+	}
+}
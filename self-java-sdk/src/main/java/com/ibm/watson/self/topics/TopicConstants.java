@@ -38,4 +38,5 @@ public class TopicConstants {
 	public static final String UNSUBSCRIBE		= "unsubscribe";
 	public static final String CONTROL		 	= "control";
 	public static final String AUTHENTICATE	 	= "authenticate";
+	public static final String REQUEST_ID		= "request_id";
 }
@@ -0,0 +1,271 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.ibm.watson.self.metrics.LatencyHistogram;
+
+/**
+ * Moves subscriber callbacks off the socket reader thread. Every topic is
+ * pinned to one of a fixed number of single threaded lanes, so messages of
+ * a topic are handled in order while different topics run in parallel and
+ * a slow subscriber only delays the topics sharing its lane.
+ *
+ * What happens when a lane is full follows the policy of the longest
+ * matching topic prefix. By default the dispatching thread waits for room,
+ * so control and gesture topics lose nothing; streams where only the
+ * newest data matters, e.g. "sensor-proxy-", are set to drop their oldest
+ * message instead.
+ */
+public class TopicDispatcher {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(TopicDispatcher.class.getName());
+
+	public static final int DEFAULT_LANES		= Math.max(2, Runtime.getRuntime().availableProcessors());
+	public static final int DEFAULT_CAPACITY	= 1024;
+	public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.BLOCK;
+
+	/**
+	 * What to do with a message when its lane is full
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Wait for room, pushing back on the thread that dispatches. Nothing is
+		 * lost, but a dispatcher fed by the socket reader stops reading pongs
+		 * too while it waits, so a subscriber that stays behind for longer than
+		 * the heartbeat timeout gets the connection taken for dead. Use one of
+		 * the drop policies for high rate streams.
+		 */
+		BLOCK,
+		/** Drop the message that just arrived */
+		DROP_NEWEST,
+		/** Drop the oldest message waiting in the lane */
+		DROP_OLDEST
+	}
+
+	/**
+	 * Receives messages on the lane threads
+	 */
+	public interface Handler {
+		public void handle(TopicMessage message);
+	}
+
+	private final Handler handler;
+	private final Lane[] lanes;
+	private final PrefixMap<OverflowPolicy> overflowPolicies;
+	private final AtomicLong dropped = new AtomicLong();
+
+	public TopicDispatcher(Handler handler) {
+		this(handler, DEFAULT_LANES, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+	}
+
+	/**
+	 * @param handler: called for every message on its lane thread
+	 * @param laneCount: number of lanes and threads
+	 * @param capacity: messages each lane can hold
+	 * @param overflowPolicy: what to do when a lane is full, for topics
+	 * without a policy of their own
+	 */
+	public TopicDispatcher(Handler handler, int laneCount, int capacity, OverflowPolicy overflowPolicy) {
+		if(laneCount <= 0 || capacity <= 0)
+			throw new IllegalArgumentException("laneCount and capacity must be positive");
+		this.handler = handler;
+		this.overflowPolicies = new PrefixMap<OverflowPolicy>(overflowPolicy);
+		this.lanes = new Lane[laneCount];
+		for(int i = 0; i < laneCount; i++) {
+			lanes[i] = new Lane(i, capacity);
+		}
+	}
+
+	/**
+	 * Queue a message on the lane of its topic
+	 * @param message: the message
+	 */
+	public void dispatch(TopicMessage message) {
+		Lane lane = lanes[laneOf(message.getTopic())];
+		Task task = new Task(message);
+		switch(overflowPolicies.get(message.getTopic())) {
+		case BLOCK:
+			try {
+				lane.queue.put(task);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				drop(message);
+			}
+			break;
+		case DROP_NEWEST:
+			if(!lane.queue.offer(task))
+				drop(message);
+			break;
+		case DROP_OLDEST:
+			while(!lane.queue.offer(task)) {
+				Task oldest = lane.queue.poll();
+				if(oldest != null)
+					drop(oldest.message);
+			}
+			break;
+		}
+	}
+
+	private void drop(TopicMessage message) {
+		dropped.incrementAndGet();
+		logger.error("Dispatch lane full, dropping message for " + message.getTopic());
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return index of the lane that handles the topic
+	 */
+	public int laneOf(String topic) {
+		int hash = topic == null ? 0 : topic.hashCode();
+		hash ^= (hash >>> 16);
+		return (hash & 0x7fffffff) % lanes.length;
+	}
+
+	/**
+	 * Stop every lane thread, queued messages are discarded
+	 */
+	public void shutdown() {
+		for(Lane lane : lanes) {
+			lane.stop();
+		}
+	}
+
+	/**
+	 * Set what to do when a lane is full for every topic starting with a prefix
+	 * @param prefix: the topic prefix, e.g. "sensor-proxy-"
+	 * @param overflowPolicy: the policy
+	 */
+	public void setOverflowPolicy(String prefix, OverflowPolicy overflowPolicy) {
+		overflowPolicies.put(prefix, overflowPolicy);
+	}
+
+	/**
+	 * Set what to do when a lane is full for topics that match no prefix
+	 * @param overflowPolicy: the policy
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		overflowPolicies.setDefault(overflowPolicy);
+	}
+
+	/**
+	 * @return the policy of topics that match no prefix
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicies.get(null);
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return the policy of the longest prefix matching the topic
+	 */
+	public OverflowPolicy getOverflowPolicy(String topic) {
+		return overflowPolicies.get(topic);
+	}
+
+	public int getLaneCount() {
+		return lanes.length;
+	}
+
+	/**
+	 * @param lane: the lane index
+	 * @return number of messages waiting in the lane
+	 */
+	public int getQueueDepth(int lane) {
+		return lanes[lane].queue.size();
+	}
+
+	/**
+	 * @param lane: the lane index
+	 * @return time messages spent waiting in the lane before being handled
+	 */
+	public LatencyHistogram getQueueLatency(int lane) {
+		return lanes[lane].latency;
+	}
+
+	/**
+	 * @return number of messages dropped by the overflow policy
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	private static class Task {
+
+		final TopicMessage message;
+		final long enqueueTime;
+
+		Task(TopicMessage message) {
+			this.message = message;
+			this.enqueueTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * A bounded queue drained by its own thread
+	 */
+	private class Lane implements Runnable {
+
+		final BlockingQueue<Task> queue;
+		final LatencyHistogram latency = new LatencyHistogram();
+		final Thread thread;
+		volatile boolean running = true;
+
+		Lane(int index, int capacity) {
+			this.queue = new ArrayBlockingQueue<Task>(capacity);
+			this.thread = new Thread(this, "TopicClient-dispatch-" + index);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		void stop() {
+			running = false;
+			thread.interrupt();
+			queue.clear();
+		}
+
+		public void run() {
+			while(running) {
+				Task task;
+				try {
+					task = queue.take();
+				}
+				catch (InterruptedException e) {
+					break;
+				}
+				latency.recordSince(task.enqueueTime);
+				try {
+					handler.handle(task.message);
+				}
+				catch (RuntimeException e) {
+					logger.error("Failed to handle message for " + task.message.getTopic() 
+							+ ": " + e.getMessage());
+				}
+			}
+		}
+	}
+}
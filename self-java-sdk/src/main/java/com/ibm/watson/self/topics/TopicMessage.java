@@ -0,0 +1,230 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * An inbound message from the TopicManager. Only the routing fields of the
+ * envelope are decoded; the data payload is kept as the raw string and turned
+ * into a tree, a reader or bytes only when a subscriber asks for it.
+ */
+public class TopicMessage {
+
+	private static final Charset UTF8 = Charset.forName(TopicConstants.UTF8);
+
+	private String topic;
+	private String origin;
+	private boolean binary;
+	private boolean hasBinary;
+	private String data;
+	private volatile JsonElement dataTree;
+	private volatile byte[] dataBytes;
+	private ByteBuffer payload;
+
+	public TopicMessage(String topic, String data) {
+		this.topic = topic;
+		this.data = data;
+		this.hasBinary = true;
+	}
+
+	/**
+	 * A binary message, as delivered by an in-process transport
+	 * @param topic: the topic
+	 * @param payload: the data between position and limit, not copied
+	 */
+	public TopicMessage(String topic, ByteBuffer payload) {
+		this.topic = topic;
+		this.payload = payload.slice().asReadOnlyBuffer();
+		this.data = Integer.toString(this.payload.remaining());
+		this.binary = true;
+		this.hasBinary = true;
+	}
+
+	private TopicMessage() {
+	}
+
+	/**
+	 * Read an envelope from the stream without building a tree for it.
+	 * Reading stops at the end of the top level object, so anything that
+	 * follows it (e.g. the payload of a binary frame) is left unread.
+	 * @param source: the envelope json
+	 * @return the decoded message
+	 * @throws MalformedJsonException if the json is malformed or truncated
+	 * @throws IOException if the stream fails
+	 */
+	public static TopicMessage parse(Reader source) throws IOException {
+		JsonReader reader = new JsonReader(source);
+		reader.setLenient(true);
+		TopicMessage message = new TopicMessage();
+		try {
+			reader.beginObject();
+			while(reader.hasNext()) {
+				String name = reader.nextName();
+				if(name.equals(TopicConstants.TOPIC)) {
+					message.topic = reader.nextString();
+				}
+				else if(name.equals(TopicConstants.DATA)) {
+					if(reader.peek() == JsonToken.STRING) {
+						message.data = reader.nextString();
+					}
+					else {
+						message.data = Streams.parse(reader).toString();
+					}
+				}
+				else if(name.equals(TopicConstants.BINARY)) {
+					message.binary = reader.nextBoolean();
+					message.hasBinary = true;
+				}
+				else if(name.equals(TopicConstants.ORIGIN)) {
+					message.origin = reader.nextString();
+				}
+				else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		}
+		catch (EOFException e) {
+			throw new MalformedJsonException("Truncated envelope");
+		}
+		catch (IllegalStateException e) {
+			// a value of the wrong type, e.g. an array where the envelope should be
+			throw new MalformedJsonException(e.getMessage());
+		}
+		catch (JsonParseException e) {
+			throw new MalformedJsonException(e.getMessage());
+		}
+		return message;
+	}
+
+	/**
+	 * Split a binary frame into its header and payload. The payload is a
+	 * read only view of the frame, nothing is copied.
+	 * @param frame: the frame laid out as header, NUL, payload
+	 * @return the decoded message carrying the payload
+	 * @throws MalformedJsonException if the header is malformed
+	 */
+	public static TopicMessage parse(byte[] frame) throws IOException {
+		int end = 0;
+		while(end < frame.length && frame[end] != 0) {
+			end++;
+		}
+		TopicMessage message = parse(new InputStreamReader(
+				new ByteArrayInputStream(frame, 0, end), UTF8));
+		int start = Math.min(end + 1, frame.length);
+		message.payload = ByteBuffer.wrap(frame, start, frame.length - start).slice().asReadOnlyBuffer();
+		return message;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * @return true if the envelope carried the binary flag at all
+	 */
+	public boolean hasBinary() {
+		return hasBinary;
+	}
+
+	public boolean isBinary() {
+		return binary;
+	}
+
+	/**
+	 * @return the data payload as it arrived
+	 */
+	public String getData() {
+		return data;
+	}
+
+	/**
+	 * Parse the data payload. The tree is built once and shared by every
+	 * subscriber of the message, so it must be treated as read only.
+	 * @return the parsed data
+	 */
+	public JsonElement getDataAsJson() {
+		JsonElement tree = dataTree;
+		if(tree == null) {
+			tree = new JsonParser().parse(data);
+			dataTree = tree;
+		}
+		return tree;
+	}
+
+	/**
+	 * @return a new streaming reader positioned at the start of the data payload
+	 */
+	public JsonReader getDataReader() {
+		return new JsonReader(new StringReader(data));
+	}
+
+	/**
+	 * The encoding is done once per message; each call returns its own copy,
+	 * so callers may modify it.
+	 * @return the data payload encoded as utf-8
+	 */
+	public byte[] getDataBytes() {
+		byte[] bytes = dataBytes;
+		if(bytes == null) {
+			bytes = data.getBytes(UTF8);
+			dataBytes = bytes;
+		}
+		return bytes.clone();
+	}
+
+	/**
+	 * @return size of the data: bytes of a binary payload, characters of text
+	 */
+	public int getDataSize() {
+		if(payload != null)
+			return payload.remaining();
+		return data != null ? data.length() : 0;
+	}
+
+	/**
+	 * @return a read only view of the binary payload, or null for text messages
+	 */
+	public ByteBuffer getPayload() {
+		return payload != null ? payload.duplicate() : null;
+	}
+
+	public String toString() {
+		return topic + ": " + data;
+	}
+}
@@ -0,0 +1,235 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe map from topic paths to their subscribers. Any number of
+ * subscribers can share a path. A path ending in '*' is a pattern that
+ * matches every topic starting with the text before it, e.g. "sensor-proxy-*".
+ *
+ * Lookups never lock: subscriber arrays are replaced, never modified, and
+ * patterns live in a character trie so matching costs O(topic length).
+ */
+public class TopicRegistry {
+
+	public static final String WILDCARD = "*";
+
+	private static final IEvent[] EMPTY = new IEvent[0];
+
+	private final ConcurrentHashMap<String, IEvent[]> exact = new ConcurrentHashMap<String, IEvent[]>();
+	private final Node root = new Node();
+	private volatile int patternCount = 0;
+
+	/**
+	 * @param path: the path
+	 * @return true if the path is a pattern rather than a single topic
+	 */
+	public static boolean isPattern(String path) {
+		return path.endsWith(WILDCARD);
+	}
+
+	/**
+	 * Add a subscriber to a path or pattern
+	 * @param path: the path or pattern
+	 * @param event: the subscriber
+	 * @return true if this is the first subscriber of the path
+	 */
+	public synchronized boolean add(String path, IEvent event) {
+		if(isPattern(path)) {
+			Node node = root;
+			String prefix = path.substring(0, path.length() - 1);
+			for(int i = 0; i < prefix.length(); i++) {
+				node = node.child(prefix.charAt(i), true);
+			}
+			IEvent[] current = node.subscribers;
+			if(contains(current, event))
+				return false;
+			node.subscribers = append(current, event);
+			patternCount++;
+			return current.length == 0;
+		}
+
+		IEvent[] current = exact.get(path);
+		if(current == null) {
+			exact.put(path, new IEvent[] { event });
+			return true;
+		}
+		if(!contains(current, event)) {
+			exact.put(path, append(current, event));
+		}
+		return false;
+	}
+
+	/**
+	 * Remove a subscriber from a path or pattern
+	 * @param path: the path or pattern
+	 * @param event: the subscriber
+	 * @return true if the path has no subscribers left
+	 */
+	public synchronized boolean remove(String path, IEvent event) {
+		if(isPattern(path)) {
+			Node node = root;
+			String prefix = path.substring(0, path.length() - 1);
+			for(int i = 0; i < prefix.length() && node != null; i++) {
+				node = node.child(prefix.charAt(i), false);
+			}
+			if(node == null || !contains(node.subscribers, event))
+				return false;
+			node.subscribers = without(node.subscribers, event);
+			patternCount--;
+			return node.subscribers.length == 0;
+		}
+
+		IEvent[] current = exact.get(path);
+		if(current == null || !contains(current, event))
+			return false;
+		if(current.length == 1) {
+			exact.remove(path);
+			return true;
+		}
+		exact.put(path, without(current, event));
+		return false;
+	}
+
+	/**
+	 * @param path: the path or pattern
+	 * @return true if anything is subscribed to exactly this path or pattern
+	 */
+	public boolean contains(String path) {
+		if(isPattern(path)) {
+			Node node = root;
+			String prefix = path.substring(0, path.length() - 1);
+			for(int i = 0; i < prefix.length() && node != null; i++) {
+				node = node.child(prefix.charAt(i), false);
+			}
+			return node != null && node.subscribers.length > 0;
+		}
+		return exact.containsKey(path);
+	}
+
+	/**
+	 * Find every subscriber that should receive a message on a topic
+	 * @param topic: the topic of the message
+	 * @return the subscribers, never null. Must not be modified.
+	 */
+	public IEvent[] get(String topic) {
+		if(topic == null)
+			return EMPTY;
+		IEvent[] matches = exact.get(topic);
+		if(matches == null)
+			matches = EMPTY;
+		if(patternCount == 0)
+			return matches;
+
+		Node node = root;
+		for(int i = 0; node != null; i++) {
+			if(node.subscribers.length > 0)
+				matches = merge(matches, node.subscribers);
+			if(i == topic.length())
+				break;
+			node = node.child(topic.charAt(i), false);
+		}
+		return matches;
+	}
+
+	/**
+	 * @return every registered topic path, excluding patterns
+	 */
+	public Set<String> getPaths() {
+		return Collections.unmodifiableSet(new HashSet<String>(exact.keySet()));
+	}
+
+	/**
+	 * @return every distinct subscriber of any path or pattern
+	 */
+	public synchronized Set<IEvent> getSubscribers() {
+		Set<IEvent> subscribers = new LinkedHashSet<IEvent>();
+		for(IEvent[] events : exact.values()) {
+			subscribers.addAll(Arrays.asList(events));
+		}
+		collect(root, subscribers);
+		return subscribers;
+	}
+
+	private void collect(Node node, Set<IEvent> subscribers) {
+		subscribers.addAll(Arrays.asList(node.subscribers));
+		for(Node child : node.children.values()) {
+			collect(child, subscribers);
+		}
+	}
+
+	private static boolean contains(IEvent[] events, IEvent event) {
+		for(IEvent e : events) {
+			if(e == event)
+				return true;
+		}
+		return false;
+	}
+
+	private static IEvent[] append(IEvent[] events, IEvent event) {
+		IEvent[] result = Arrays.copyOf(events, events.length + 1);
+		result[events.length] = event;
+		return result;
+	}
+
+	private static IEvent[] without(IEvent[] events, IEvent event) {
+		IEvent[] result = new IEvent[events.length - 1];
+		int j = 0;
+		for(IEvent e : events) {
+			if(e != event)
+				result[j++] = e;
+		}
+		return result;
+	}
+
+	private static IEvent[] merge(IEvent[] first, IEvent[] second) {
+		if(first.length == 0)
+			return second;
+		IEvent[] result = first;
+		for(IEvent e : second) {
+			if(!contains(result, e))
+				result = append(result, e);
+		}
+		return result;
+	}
+
+	/**
+	 * A node of the pattern trie, one per character of a pattern prefix
+	 */
+	private static class Node {
+
+		final ConcurrentHashMap<Character, Node> children = new ConcurrentHashMap<Character, Node>();
+		volatile IEvent[] subscribers = EMPTY;
+
+		Node child(char c, boolean create) {
+			Node node = children.get(c);
+			if(node == null && create) {
+				node = new Node();
+				children.put(c, node);
+			}
+			return node;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import okio.BufferedSink;
+
+/**
+ * Encodes characters as utf-8 straight into an okio sink. Unlike an
+ * OutputStreamWriter it holds no buffer or lock of its own, so it is cheap
+ * to create per frame and to call once per json token.
+ */
+public class Utf8SinkWriter extends Writer {
+
+	private final BufferedSink sink;
+	private char highSurrogate = 0;
+
+	public Utf8SinkWriter(BufferedSink sink) {
+		this.sink = sink;
+	}
+
+	@Override
+	public void write(String text, int offset, int length) throws IOException {
+		if(length == 0)
+			return;
+		int start = offset;
+		int end = offset + length;
+		if(highSurrogate != 0) {
+			write(text.charAt(start++));
+		}
+		if(end > start && Character.isHighSurrogate(text.charAt(end - 1))) {
+			end--;
+			sink.writeUtf8(text, start, end);
+			highSurrogate = text.charAt(end);
+			return;
+		}
+		sink.writeUtf8(text, start, end);
+	}
+
+	@Override
+	public void write(char[] buffer, int offset, int length) throws IOException {
+		write(new String(buffer, offset, length), 0, length);
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		char ch = (char) c;
+		if(highSurrogate != 0) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if(Character.isLowSurrogate(ch)) {
+				sink.writeUtf8CodePoint(Character.toCodePoint(high, ch));
+				return;
+			}
+			sink.writeUtf8CodePoint(high);
+		}
+		if(Character.isHighSurrogate(ch))
+			highSurrogate = ch;
+		else if(ch < 0x80)
+			sink.writeByte(ch);
+		else
+			sink.writeUtf8CodePoint(ch);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if(highSurrogate != 0) {
+			sink.writeUtf8CodePoint(highSurrogate);
+			highSurrogate = 0;
+		}
+	}
+
+	/**
+	 * Does not close the sink, which belongs to the caller
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+}
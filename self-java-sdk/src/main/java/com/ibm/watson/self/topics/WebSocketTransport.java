@@ -0,0 +1,180 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.stream.MalformedJsonException;
+import com.ibm.watson.self.jfr.FlightEvents;
+import com.ibm.watson.self.metrics.LatencyHistogram;
+import com.ibm.watson.self.metrics.MetricsConstants;
+import com.ibm.watson.self.metrics.MetricsRegistry;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Request.Builder;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.ws.WebSocket;
+import okhttp3.ws.WebSocketCall;
+import okhttp3.ws.WebSocketListener;
+import okio.Buffer;
+
+/**
+ * Connects to the /stream endpoint of a TopicManager over an okhttp WebSocket
+ */
+public class WebSocketTransport implements ITransport {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(WebSocketTransport.class.getName());
+
+	private final OkHttpClient client;
+
+	public WebSocketTransport() {
+		this(configureHttpClient());
+	}
+
+	/**
+	 * @param client: the client to open sockets with, e.g. to share its
+	 * connection pool or change its timeouts
+	 */
+	public WebSocketTransport(OkHttpClient client) {
+		this.client = client;
+	}
+
+	private static OkHttpClient configureHttpClient() {
+		logger.entry();
+
+		OkHttpClient.Builder builder = new OkHttpClient.Builder();
+		builder.connectTimeout(60,  TimeUnit.SECONDS);
+		builder.writeTimeout(60, TimeUnit.SECONDS);
+		builder.readTimeout(90, TimeUnit.SECONDS);
+
+		return logger.exit(builder.build());
+	}
+
+	public ITransportSession connect(String host, String port, String selfId, String token,
+			ITransportListener listener) {
+		Builder builder = new Request.Builder().url(TopicConstants.WS + host 
+				+ TopicConstants.COLON + port + TopicConstants.STREAM);
+		builder.addHeader(TopicConstants.SELF_ID, selfId);
+		builder.addHeader(TopicConstants.TOKEN, token);
+		WebSocketCall call = WebSocketCall.create(this.client, builder.build());
+		Session session = new Session(call, listener);
+		call.enqueue(session);
+		return session;
+	}
+
+	/**
+	 * One socket, translating okhttp callbacks into transport events
+	 */
+	private static class Session implements ITransportSession, WebSocketListener {
+
+		private final WebSocketCall call;
+		private final ITransportListener listener;
+		private final LatencyHistogram parseTime = 
+				MetricsRegistry.getInstance().histogram(MetricsConstants.PARSE_TIME);
+		private volatile WebSocket socket;
+
+		Session(WebSocketCall call, ITransportListener listener) {
+			this.call = call;
+			this.listener = listener;
+		}
+
+		public void send(OutboundFrame frame) throws IOException {
+			open().sendMessage(frame);
+		}
+
+		public void ping(Buffer payload) throws IOException {
+			open().sendPing(payload);
+		}
+
+		public void close(int code, String reason) throws IOException {
+			if(socket != null)
+				socket.close(code, reason);
+			else
+				call.cancel();
+		}
+
+		public void cancel() {
+			call.cancel();
+		}
+
+		private WebSocket open() throws IOException {
+			WebSocket current = socket;
+			if(current == null)
+				throw new IOException("WebSocket is not open");
+			return current;
+		}
+
+		public void onOpen(WebSocket webSocket, Response response) {
+			this.socket = webSocket;
+			listener.onOpen(this);
+		}
+
+		public void onFailure(IOException e, Response response) {
+			this.socket = null;
+			listener.onFailure(e);
+		}
+
+		/**
+		 * Decode an envelope straight from the socket. Binary frames carry a
+		 * json header, a NUL and the payload.
+		 */
+		public void onMessage(ResponseBody message) throws IOException {
+			TopicMessage topicMessage = null;
+			long start = System.nanoTime();
+			try {
+				if(WebSocket.BINARY.equals(message.contentType())) {
+					topicMessage = TopicMessage.parse(message.bytes());
+				}
+				else {
+					topicMessage = TopicMessage.parse(message.charStream());
+				}
+			}
+			catch (MalformedJsonException e) {
+				logger.error("Failed to parse message: " + e.getMessage());
+			}
+			finally {
+				message.close();
+			}
+
+			if(topicMessage != null) {
+				long elapsed = System.nanoTime() - start;
+				parseTime.record(elapsed);
+				FlightEvents.frameReceived(topicMessage.getTopic(), topicMessage.isBinary(), 
+						topicMessage.getDataSize(), elapsed);
+				listener.onMessage(topicMessage);
+			}
+		}
+
+		public void onPong(Buffer payload) {
+			listener.onPong(payload);
+		}
+
+		public void onClose(int code, String reason) {
+			this.socket = null;
+			listener.onClose(code, reason);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.blackboard.IThing.ThingCategory;
+import com.ibm.watson.self.blackboard.IThing.ThingEventType;
+
+import junit.framework.TestCase;
+
+public class BlackBoardDispatchTest extends TestCase {
+
+	private BlackBoard blackboard;
+
+	protected void setUp() {
+		blackboard = new BlackBoard();
+		blackboard.setExecutor(new Executor() {
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+	}
+
+	protected void tearDown() {
+		blackboard.shutdown();
+	}
+
+	public void testEventMask() {
+		Recorder addedOrState = new Recorder();
+		Recorder added = new Recorder();
+		blackboard.subscribeToType("Text", ThingEventType.mask(ThingEventType.TE_ADDED, 
+				ThingEventType.TE_STATE), addedOrState, "");
+		blackboard.subscribeToType("Text", ThingEventType.TE_ADDED, added, "");
+
+		String guid = add("Text");
+		JsonObject state = new JsonObject();
+		state.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.SET_OBJECT_STATE);
+		state.addProperty(BlackBoardConstants.TYPE, "Text");
+		state.addProperty(BlackBoardConstants.THING_GUID, guid);
+		state.addProperty(BlackBoardConstants.STATE, "PROCESSING");
+		blackboard.onEvent(state.toString());
+		JsonObject importance = new JsonObject();
+		importance.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.SET_OBJECT_IMPORTANCE);
+		importance.addProperty(BlackBoardConstants.TYPE, "Text");
+		importance.addProperty(BlackBoardConstants.THING_GUID, guid);
+		importance.addProperty(BlackBoardConstants.IMPORTANCE, 0.5);
+		blackboard.onEvent(importance.toString());
+
+		assertEquals(2, addedOrState.events.size());
+		assertEquals(ThingEventType.TE_STATE, addedOrState.events.get(1).getEventType());
+		assertEquals("PROCESSING", addedOrState.events.get(1).getThing().getState());
+		assertEquals(guid, blackboard.getThingStore().findByState("PROCESSING").get(0).getGuid());
+		assertEquals(1, added.events.size());
+		add("Person");
+		assertEquals(1, added.events.size());
+	}
+
+	public void testUnsubscribe() {
+		Recorder first = new Recorder();
+		Recorder second = new Recorder();
+		blackboard.subscribeToType("Text", ThingEventType.TE_ADDED, first, "");
+		blackboard.subscribeToType("Text", ThingEventType.TE_ADDED, second, "");
+		add("Text");
+		blackboard.unsubscribeFromType("Text", first, "");
+		add("Text");
+
+		assertEquals(1, first.events.size());
+		assertEquals(2, second.events.size());
+		assertEquals(2, blackboard.getThingStore().findByType("Text").size());
+	}
+
+	public void testEvictionIsDispatched() {
+		Recorder removed = new Recorder();
+		blackboard.subscribeToType("Text", ThingEventType.TE_REMOVED, removed, "");
+		String first = add("Text");
+		add("Text");
+		blackboard.setThingCapacity(1);
+
+		assertEquals(1, removed.events.size());
+		ThingEvent event = removed.events.get(0);
+		assertEquals(first, event.getThing().getGuid());
+		assertEquals(BlackBoardConstants.EVICTED, event.getEvent().get(BlackBoardConstants.REASON).getAsString());
+	}
+
+	public void testUnsubscribedTypeIsSkipped() {
+		Recorder added = new Recorder();
+		blackboard.subscribeToType("Text", ThingEventType.TE_ADDED, added, "");
+		String skipped = add("Person");
+		String kept = add("Text");
+
+		assertNull(blackboard.getThingStore().get(skipped));
+		IThing thing = blackboard.getThingStore().get(kept);
+		assertEquals(ThingCategory.TT_PERCEPTION, thing.getCategory());
+		assertEquals(1, added.events.size());
+	}
+
+	private String add(String type) {
+		IThing thing = new IThing();
+		thing.setType(type);
+		JsonObject added = new JsonObject();
+		added.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.ADD_OBJECT);
+		added.addProperty(BlackBoardConstants.TYPE, type);
+		added.add(BlackBoardConstants.THING, thing.serialize());
+		blackboard.onEvent(added.toString());
+		return thing.getGuid();
+	}
+
+	private static class Recorder implements IBlackBoard {
+
+		final List<ThingEvent> events = new ArrayList<ThingEvent>();
+
+		public void onThingEvent(ThingEvent thingEvent) {
+			events.add(thingEvent);
+		}
+	}
+}
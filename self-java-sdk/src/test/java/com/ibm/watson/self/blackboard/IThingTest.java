@@ -0,0 +1,105 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import junit.framework.TestCase;
+
+public class IThingTest extends TestCase {
+
+	public void testLazyThing() {
+		IThing thing = thing("Say");
+		thing.setState("PROCESSING");
+		long before = System.currentTimeMillis() / 1000;
+		// serialize() leaves out the create time, as things from the wire do
+		IThing lazy = IThing.deserializeLazily(thing.serialize());
+		long after = System.currentTimeMillis() / 1000;
+		assertTrue(lazy.isPending());
+		assertEquals("Say", lazy.getType());
+		assertEquals(thing.getGuid(), lazy.getGuid());
+		assertEquals("PROCESSING", lazy.getState());
+		assertEquals(thing.getLifeSpan(), lazy.getLifeSpan());
+		assertTrue(lazy.getCreateTime() >= before && lazy.getCreateTime() <= after);
+
+		ThingStore store = new ThingStore();
+		store.add(lazy);
+		assertTrue(lazy.isPending());
+		long created = lazy.getCreateTime() * 1000;
+		assertTrue(store.expire(created + 1000).isEmpty());
+		assertSame(lazy, store.expire(created + (long) (lazy.getLifeSpan() * 1000) + 1000).get(0));
+		assertTrue(lazy.isPending());
+		assertEquals(IThing.ThingCategory.TT_PERCEPTION, lazy.getCategory());
+		assertFalse(lazy.isPending());
+	}
+
+	public void testStreamedSerialize() throws IOException {
+		JsonObject body = new JsonObject();
+		body.addProperty("m_Text", "hello");
+		body.addProperty("m_fConfidence", 0.75);
+		body.addProperty("m_bLocalDialog", false);
+		body.addProperty(BlackBoardConstants.M_STATE, "stale");
+		IThing thing = thing("Text");
+		thing.setBody(body);
+		JsonObject data = new JsonObject();
+		data.addProperty("count", 3);
+		thing.setData(data);
+
+		StringWriter out = new StringWriter();
+		thing.serialize(new JsonWriter(out));
+		JsonObject streamed = new JsonParser().parse(out.toString()).getAsJsonObject();
+		assertEquals(thing.serialize(), streamed);
+		assertEquals(0.75, streamed.get("m_fConfidence").getAsJsonPrimitive().getAsDouble());
+		assertTrue(streamed.get("m_bLocalDialog").getAsJsonPrimitive().isBoolean());
+		assertEquals(BlackBoardConstants.ADDED, streamed.get(BlackBoardConstants.M_STATE).getAsString());
+	}
+
+	public void testSnapshot() throws IOException {
+		IThing thing = thing("Text");
+		thing.setParentId("parent");
+		JsonObject before = thing.serialize();
+		IThing snapshot = thing.snapshot();
+		thing.setState("PROCESSING");
+		thing.setImportance(5);
+		thing.setParentId(null);
+
+		StringWriter out = new StringWriter();
+		snapshot.serialize(new JsonWriter(out));
+		assertEquals(before, new JsonParser().parse(out.toString()));
+		assertEquals("parent", snapshot.getParentId());
+
+		thing.setCategory(null);
+		try {
+			thing.snapshot();
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	private static IThing thing(String type) {
+		IThing thing = new IThing();
+		thing.setType(type);
+		return thing;
+	}
+}
@@ -0,0 +1,122 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.topics.TopicDispatcher.OverflowPolicy;
+
+import junit.framework.TestCase;
+
+public class MailboxTest extends TestCase {
+
+	private BlackBoard blackboard;
+
+	protected void setUp() {
+		blackboard = new BlackBoard();
+	}
+
+	protected void tearDown() {
+		blackboard.shutdown();
+	}
+
+	public void testSlowSubscriberDoesNotDelayOthers() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch fastDone = new CountDownLatch(20);
+		IBlackBoard slow = new IBlackBoard() {
+			public void onThingEvent(ThingEvent thingEvent) {
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		IBlackBoard fast = new IBlackBoard() {
+			public void onThingEvent(ThingEvent thingEvent) {
+				order.add(thingEvent.getThing().getGuid());
+				fastDone.countDown();
+			}
+		};
+		blackboard.subscribeToType("Text", IThing.ThingEventType.TE_ADDED, slow, "");
+		blackboard.subscribeToType("Text", IThing.ThingEventType.TE_ADDED, fast, "");
+
+		List<String> sent = new ArrayList<String>();
+		for(int i = 0; i < 20; i++) {
+			sent.add(add("Text"));
+		}
+		assertTrue(fastDone.await(2, TimeUnit.SECONDS));
+		assertEquals(sent, order);
+		assertTrue(blackboard.getMailbox(slow).getDepth() > 0);
+		release.countDown();
+	}
+
+	public void testSlowConsumerIsReported() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch reported = new CountDownLatch(1);
+		final IBlackBoard slow = new IBlackBoard() {
+			public void onThingEvent(ThingEvent thingEvent) {
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		final List<IBlackBoard> reports = Collections.synchronizedList(new ArrayList<IBlackBoard>());
+		blackboard.addSlowConsumerListener(new ISlowConsumerListener() {
+			public void onSlowConsumer(IBlackBoard subscriber, int queueDepth, long waitNanos) {
+				reports.add(subscriber);
+				reported.countDown();
+			}
+		});
+		blackboard.setMailboxCapacity(4);
+		blackboard.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		blackboard.subscribeToType("Text", IThing.ThingEventType.TE_ADDED, slow, "");
+
+		for(int i = 0; i < 10; i++) {
+			add("Text");
+		}
+		assertTrue(reported.await(2, TimeUnit.SECONDS));
+		assertEquals(1, reports.size());
+		assertSame(slow, reports.get(0));
+		Mailbox mailbox = blackboard.getMailbox(slow);
+		assertTrue(mailbox.isSlow());
+		assertTrue(mailbox.getDropped() > 0);
+		release.countDown();
+	}
+
+	private String add(String type) {
+		IThing thing = new IThing();
+		thing.setType(type);
+		JsonObject added = new JsonObject();
+		added.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.ADD_OBJECT);
+		added.addProperty(BlackBoardConstants.TYPE, type);
+		added.add(BlackBoardConstants.THING, thing.serialize());
+		blackboard.onEvent(added.toString());
+		return thing.getGuid();
+	}
+}
@@ -0,0 +1,68 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.self.blackboard.things.MusicBeat;
+import com.ibm.watson.self.blackboard.things.Person;
+import com.ibm.watson.self.blackboard.things.ProxyIntent;
+
+import junit.framework.TestCase;
+
+public class ThingCodecsTest extends TestCase {
+
+	private static final String INTENT = "{\"conversation\":{"
+			+ "\"intents\":[{\"intent\":\"animal_intent\",\"confidence\":0.9},{\"intent\":\"game_intent\",\"confidence\":0.1}],"
+			+ "\"entities\":[{\"entity\":\"colors\",\"value\":\"red\"},{\"entity\":\"animals\",\"value\":\"cow\"}]}}";
+
+	public void testProxyIntent() {
+		JsonObject body = new JsonObject();
+		body.add("m_Intent", new JsonParser().parse(INTENT));
+		body.addProperty("m_Text", "is it a cow");
+		IThing thing = new IThing();
+		thing.setType(ProxyIntent.TYPE);
+		thing.setBody(body);
+		ThingEvent event = new ThingEvent();
+		event.setThing(IThing.deserializeLazily(thing.serialize()));
+
+		ProxyIntent intent = event.getDecoded(ProxyIntent.class);
+		assertEquals("animal_intent", intent.getIntent());
+		assertEquals(0.9, intent.getIntents().get(0).getConfidence());
+		assertEquals("cow", intent.getEntity("animals"));
+		assertEquals("is it a cow", intent.getText());
+		assertSame(intent, event.getDecoded());
+		assertNull(event.getDecoded(Person.class));
+	}
+
+	public void testDataFields() {
+		JsonObject data = new JsonObject();
+		data.addProperty("BPM", 120);
+		IThing thing = new IThing();
+		thing.setType(MusicBeat.TYPE);
+		thing.setData(data);
+		ThingEvent event = new ThingEvent();
+		event.setThing(thing);
+		assertEquals(120, event.getDecoded(MusicBeat.class).getBpm());
+
+		IThing unknown = new IThing();
+		unknown.setType("Object");
+		event.setThing(unknown);
+		assertNull(event.getDecoded());
+	}
+}
@@ -0,0 +1,111 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ThingStoreTest extends TestCase {
+
+	public void testIndexes() {
+		ThingStore store = new ThingStore();
+		IThing parent = thing("Person", null);
+		IThing first = thing("Say", parent.getGuid());
+		IThing second = thing("Say", parent.getGuid());
+		store.add(parent);
+		store.add(first);
+		store.add(second);
+
+		assertEquals(3, store.size());
+		assertEquals(1, store.findByType("Person").size());
+		List<IThing> children = store.childrenOf(parent.getGuid());
+		assertEquals(2, children.size());
+		assertSame(first, children.get(0));
+		assertTrue(store.findByType("Goal").isEmpty());
+
+		store.setState(first.getGuid(), "PROCESSING");
+		assertEquals(1, store.findByState("PROCESSING").size());
+		assertSame(first, store.findByState("PROCESSING").get(0));
+
+		store.remove(first.getGuid());
+		assertTrue(store.findByState("PROCESSING").isEmpty());
+		assertEquals(1, store.childrenOf(parent.getGuid()).size());
+		assertEquals(1, store.findByType("Say").size());
+	}
+
+	public void testReplace() {
+		ThingStore store = new ThingStore();
+		IThing thing = thing("Text", null);
+		store.add(thing);
+		IThing copy = thing("Person", null);
+		copy.deserialize(thing.serialize());
+		copy.setType("Person");
+		assertSame(thing, store.add(copy));
+
+		assertEquals(1, store.size());
+		assertTrue(store.findByType("Text").isEmpty());
+		assertSame(copy, store.findByType("Person").get(0));
+	}
+
+	public void testExpiry() {
+		ThingStore store = new ThingStore();
+		IThing shortLived = thing("Say", null);
+		shortLived.setLifeSpan(5);
+		IThing longLived = thing("Say", null);
+		store.add(shortLived);
+		store.add(longLived);
+		long created = shortLived.getCreateTime() * 1000;
+
+		assertTrue(store.expire(created + 4000).isEmpty());
+		List<IThing> expired = store.expire(created + 6000);
+		assertEquals(1, expired.size());
+		assertSame(shortLived, expired.get(0));
+		assertNull(store.get(shortLived.getGuid()));
+		assertEquals(1, store.findByType("Say").size());
+	}
+
+	public void testEvictsLeastImportant() {
+		ThingStore store = new ThingStore();
+		store.setCapacity(2);
+		IThing important = thing("Goal", null);
+		important.setImportance(5);
+		IThing first = thing("Text", null);
+		IThing second = thing("Text", null);
+		store.add(important);
+		store.add(first);
+		List<IThing> evicted = new ArrayList<IThing>();
+		store.add(second, evicted);
+		assertEquals(1, evicted.size());
+		assertSame(first, evicted.get(0));
+
+		store.setImportance(important.getGuid(), 0);
+		evicted = store.setCapacity(1);
+		assertSame(important, evicted.get(0));
+		assertSame(second, store.getAll().get(0));
+	}
+
+	private static IThing thing(String type, String parent) {
+		IThing thing = new IThing();
+		thing.setType(type);
+		if(parent != null)
+			thing.setParentId(parent);
+		return thing;
+	}
+}
@@ -0,0 +1,62 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.blackboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TimerWheelTest extends TestCase {
+
+	public void testExpiresInDeadlineOrder() {
+		TimerWheel<String> wheel = new TimerWheel<String>(8, 100, 0);
+		wheel.schedule("late", 2500);
+		wheel.schedule("soon", 250);
+		TimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 300);
+		assertTrue(wheel.cancel(cancelled));
+		assertFalse(wheel.cancel(cancelled));
+
+		List<String> expired = new ArrayList<String>();
+		wheel.advance(200, expired);
+		assertTrue(expired.isEmpty());
+		wheel.advance(300, expired);
+		assertEquals(1, expired.size());
+		assertEquals("soon", expired.get(0));
+
+		// "late" shares a slot with tick 9 and must survive it
+		wheel.advance(900, expired);
+		assertEquals(1, expired.size());
+		assertEquals(1, wheel.size());
+		wheel.advance(2500, expired);
+		assertEquals("late", expired.get(1));
+		assertEquals(0, wheel.size());
+	}
+
+	public void testPastDeadlineAndLongJump() {
+		TimerWheel<String> wheel = new TimerWheel<String>(4, 10, 1000);
+		wheel.schedule("overdue", 0);
+		wheel.schedule("far", 1000000);
+		List<String> expired = new ArrayList<String>();
+		wheel.advance(1000, expired);
+		assertEquals(1, expired.size());
+		wheel.advance(2000000, expired);
+		assertEquals(2, expired.size());
+		assertEquals("far", expired.get(1));
+	}
+}
@@ -0,0 +1,90 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.jfr;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.blackboard.BlackBoard;
+import com.ibm.watson.self.blackboard.BlackBoardConstants;
+import com.ibm.watson.self.blackboard.IBlackBoard;
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.blackboard.ThingEvent;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+public class FlightEventsTest extends TestCase {
+
+	public void testEventsRecorded() throws Exception {
+		assertTrue(FlightEvents.isAvailable());
+		Recording recording = new Recording();
+		for(String name : new String[] { "FrameSent", "Reconnect", "ThingAdded", "ThingDispatch", "SensorFrame" }) {
+			recording.enable(JfrEvents.PREFIX + name);
+		}
+		recording.start();
+
+		FlightEvents.frameSent("conversation", false, 42, 1500);
+		FlightEvents.reconnect(2, 400, "no pong");
+		FlightEvents.sensorFrame("mic", 3200, true, 800);
+		BlackBoard blackboard = new BlackBoard();
+		blackboard.setExecutor(new Executor() {
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+		blackboard.subscribeToType("Text", IThing.ThingEventType.TE_ADDED, new IBlackBoard() {
+			public void onThingEvent(ThingEvent thingEvent) {}
+		}, "");
+		IThing thing = new IThing();
+		thing.setType("Text");
+		JsonObject added = new JsonObject();
+		added.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.ADD_OBJECT);
+		added.addProperty(BlackBoardConstants.TYPE, "Text");
+		added.add(BlackBoardConstants.THING, thing.serialize());
+		blackboard.onEvent(added.toString());
+
+		recording.stop();
+		File file = File.createTempFile("self-sdk", ".jfr");
+		try {
+			recording.dump(file.toPath());
+			Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+			List<RecordedEvent> recorded = RecordingFile.readAllEvents(file.toPath());
+			for(RecordedEvent event : recorded) {
+				events.put(event.getEventType().getName().substring(JfrEvents.PREFIX.length()), event);
+			}
+			assertEquals("conversation", events.get("FrameSent").getString("topic"));
+			assertEquals(1500, events.get("FrameSent").getDuration("queueTime").toNanos());
+			assertEquals(2, events.get("Reconnect").getInt("attempt"));
+			assertEquals("no pong", events.get("Reconnect").getString("reason"));
+			assertEquals(3200, events.get("SensorFrame").getLong("size"));
+			assertEquals(thing.getGuid(), events.get("ThingAdded").getString("guid"));
+			assertEquals("TE_ADDED", events.get("ThingDispatch").getString("eventType"));
+		}
+		finally {
+			recording.close();
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.SortedMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+public class MetricsRegistryTest extends TestCase {
+
+	private MetricsRegistry registry;
+
+	protected void setUp() {
+		registry = new MetricsRegistry();
+	}
+
+	protected void tearDown() {
+		registry.unregisterMBean();
+	}
+
+	public void testSnapshot() {
+		registry.counter("sensors.frames_sent").add(3);
+		assertSame(registry.counter("sensors.frames_sent"), registry.counter("sensors.frames_sent"));
+		registry.histogram("client.parse_time").record(1000);
+		registry.topic("conversation").recordIn(12);
+		registry.topic("conversation").recordOut(5);
+		registry.gauge("client.writer.queue_depth", new Gauge() {
+			public long getValue() {
+				return 7;
+			}
+		});
+
+		SortedMap<String, Long> snapshot = registry.getSnapshot();
+		assertEquals(3L, snapshot.get("sensors.frames_sent").longValue());
+		assertEquals(7L, snapshot.get("client.writer.queue_depth").longValue());
+		assertEquals(1L, snapshot.get("client.parse_time.count").longValue());
+		assertEquals(1000L, snapshot.get("client.parse_time.max_ns").longValue());
+		assertEquals(12L, snapshot.get("topics.conversation.data_in").longValue());
+		assertEquals(1L, snapshot.get("topics.conversation.messages_out").longValue());
+
+		registry.reset();
+		assertEquals(0L, registry.getSnapshot().get("topics.conversation.messages_in").longValue());
+		assertEquals(7L, registry.getSnapshot().get("client.writer.queue_depth").longValue());
+	}
+
+	public void testTopicCountIsCapped() {
+		registry.setMaxTopics(2);
+		registry.topic("conversation").recordIn(1);
+		registry.topic("sensor-proxy-1").recordIn(1);
+		registry.topic("sensor-proxy-2").recordIn(3);
+		registry.topic("sensor-proxy-3").recordOut(4);
+		assertSame(registry.topic("sensor-proxy-2"), registry.topic("sensor-proxy-3"));
+		assertEquals(2, registry.getTopics().size());
+
+		SortedMap<String, Long> snapshot = registry.getSnapshot();
+		assertFalse(snapshot.containsKey("topics.sensor-proxy-2.messages_in"));
+		assertEquals(1L, snapshot.get("topics._other.messages_in").longValue());
+		assertEquals(3L, snapshot.get("topics._other.data_in").longValue());
+		assertEquals(4L, snapshot.get("topics._other.data_out").longValue());
+
+		registry.removeTopic("sensor-proxy-1");
+		assertNotSame(registry.topic("sensor-proxy-2"), registry.topic("sensor-proxy-3"));
+	}
+
+	public void testMBean() throws Exception {
+		registry.counter("gestures.executed").add(2);
+		ObjectName name = registry.registerMBean();
+		assertNotNull(name);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(2L, server.getAttribute(name, "gestures.executed"));
+		assertTrue(server.getMBeanInfo(name).getAttributes().length > 0);
+		server.invoke(name, "reset", new Object[0], new String[0]);
+		assertEquals(0L, server.getAttribute(name, "gestures.executed"));
+
+		registry.unregisterMBean();
+		assertFalse(server.isRegistered(name));
+	}
+}
@@ -0,0 +1,739 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.simulator;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.ibm.watson.self.agents.AgentConstants;
+import com.ibm.watson.self.blackboard.BlackBoardConstants;
+import com.ibm.watson.self.blackboard.IThing.ThingEventType;
+import com.ibm.watson.self.classifiers.ClassifierConstants;
+import com.ibm.watson.self.extractors.FeatureExtractorConstants;
+import com.ibm.watson.self.gestures.GestureConstants;
+import com.ibm.watson.self.sensors.SensorConstants;
+import com.ibm.watson.self.topics.LoopbackTransport;
+import com.ibm.watson.self.topics.OutboundFrame;
+import com.ibm.watson.self.topics.TopicConstants;
+import com.ibm.watson.self.topics.TopicMessage;
+
+/**
+ * A stand-in for the TopicManager of an Intu instance, for measuring the SDK
+ * without a robot. It speaks the /stream envelope protocol over WebSockets on
+ * a local port, or in process through getPeer(), and implements:
+ *
+ * - topic routing: subscribe, unsubscribe and publish_at between clients
+ * - the blackboard: subscribe_to_type, add_object, remove_object,
+ *   set_object_state, set_object_importance and get_parent
+ * - the proxy handshakes of the sensor, gesture, agent, feature and
+ *   classifier managers, answering each add with its start event
+ *
+ * Inbound load is generated with load(topic), see LoadGenerator.
+ */
+public class IntuSimulator {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(IntuSimulator.class.getName());
+
+	public static final String ORIGIN = "intu-simulator" + TopicConstants.ROOT;
+
+	private static final ProxyService[] SERVICES = {
+		new ProxyService(SensorConstants.SENSOR_MANAGER, SensorConstants.ADD_SENSOR_PROXY,
+				SensorConstants.REMOVE_SENSOR_PROXY, SensorConstants.SENSOR_ID,
+				SensorConstants.START_SENSOR, SensorConstants.STOP_SENSOR),
+		new ProxyService(GestureConstants.GESTURE_MANAGER, GestureConstants.ADD_GESTURE_PROXY,
+				GestureConstants.REMOVE_GESTURE_PROXY, GestureConstants.GESTURE_ID, null, null),
+		new ProxyService(AgentConstants.AGENT_SOCIETY, AgentConstants.ADD_AGENT_PROXY,
+				AgentConstants.REMOVE_AGENT_PROXY, AgentConstants.AGENT_ID,
+				AgentConstants.START_AGENT, AgentConstants.STOP_AGENT),
+		new ProxyService(FeatureExtractorConstants.FEATURE_MANAGER, FeatureExtractorConstants.ADD_EXTRACTOR_PROXY,
+				FeatureExtractorConstants.REMOVE_EXTRACTOR_PROXY, FeatureExtractorConstants.EXTRACTOR_ID,
+				FeatureExtractorConstants.START_EXTRACTOR, FeatureExtractorConstants.STOP_EXTRACTOR),
+		new ProxyService(ClassifierConstants.CLASSIFIER_MANAGER, ClassifierConstants.ADD_CLASSIFIER_PROXY,
+				ClassifierConstants.REMOVE_CLASSIFIER_PROXY, ClassifierConstants.CLASSIFIER_ID,
+				ClassifierConstants.START_CLASSIFIER, ClassifierConstants.STOP_CLASSIFIER)
+	};
+
+	/**
+	 * Told about every publish the simulator receives, e.g. to time it
+	 */
+	public interface PublishListener {
+		void onPublish(SimulatorClient from, String topic, JsonObject envelope, ByteBuffer payload);
+	}
+
+	/*			Variables				*/
+	private final Set<SimulatorClient> clients = new CopyOnWriteArraySet<SimulatorClient>();
+	private final ConcurrentHashMap<String, Set<SimulatorClient>> subscriptions = 
+			new ConcurrentHashMap<String, Set<SimulatorClient>>();
+	private final List<TypeSubscription> typeSubscriptions = new CopyOnWriteArrayList<TypeSubscription>();
+	private final ConcurrentHashMap<String, JsonObject> things = new ConcurrentHashMap<String, JsonObject>();
+	private final ConcurrentHashMap<String, String> parents = new ConcurrentHashMap<String, String>();
+	private final ConcurrentHashMap<String, Proxy> proxies = new ConcurrentHashMap<String, Proxy>();
+	private final ConcurrentHashMap<String, AtomicLong> events = new ConcurrentHashMap<String, AtomicLong>();
+	private final List<PublishListener> publishListeners = new CopyOnWriteArrayList<PublishListener>();
+	private final AtomicInteger connectionCount = new AtomicInteger();
+	private volatile String token;
+	private volatile boolean autoStart = true;
+	private ServerSocket server;
+	private Thread acceptor;
+
+	/*			Counters				*/
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicLong receivedBinary = new AtomicLong();
+	private final AtomicLong receivedBytes = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+
+	/**
+	 * Listen for WebSocket connections on a free local port
+	 * @return the port
+	 * @throws IOException if no port can be bound
+	 */
+	public int start() throws IOException {
+		return start(0);
+	}
+
+	/**
+	 * Listen for WebSocket connections on the loopback interface
+	 * @param port: the port, 0 for any free one
+	 * @return the port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public synchronized int start(int port) throws IOException {
+		server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		acceptor = new Thread(new Runnable() {
+			public void run() {
+				accept();
+			}
+		}, "IntuSimulator-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		logger.info("Intu simulator listening on port " + server.getLocalPort());
+		return server.getLocalPort();
+	}
+
+	public synchronized int getPort() {
+		return server != null ? server.getLocalPort() : -1;
+	}
+
+	/**
+	 * Stop listening and drop every client
+	 */
+	public void stop() {
+		synchronized (this) {
+			if(server != null) {
+				try {
+					server.close();
+				}
+				catch (IOException e) {
+					logger.error(e.getMessage());
+				}
+				server = null;
+			}
+		}
+		for(SimulatorClient client : clients) {
+			client.close();
+		}
+	}
+
+	private void accept() {
+		ServerSocket listening;
+		synchronized (this) {
+			listening = server;
+		}
+		while(listening != null && !listening.isClosed()) {
+			try {
+				Socket socket = listening.accept();
+				socket.setTcpNoDelay(true);
+				Thread thread = new Thread(new WebSocketConnection(this, socket), 
+						"IntuSimulator-connection-" + connectionCount.incrementAndGet());
+				thread.setDaemon(true);
+				thread.start();
+			}
+			catch (IOException e) {
+				if(!listening.isClosed())
+					logger.error("Accept failed: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * @return a peer that connects LoopbackTransport clients to this simulator
+	 */
+	public LoopbackTransport.Peer getPeer() {
+		return new LoopbackPeer();
+	}
+
+	/**
+	 * Require a token from connecting clients
+	 * @param token: the token, or null to accept any
+	 */
+	public void setToken(String token) {
+		this.token = token;
+	}
+
+	/**
+	 * @param autoStart: true to answer every proxy registration with its
+	 * start event, e.g. start_sensor for add_sensor_proxy
+	 */
+	public void setAutoStart(boolean autoStart) {
+		this.autoStart = autoStart;
+	}
+
+	public void addPublishListener(PublishListener listener) {
+		publishListeners.add(listener);
+	}
+
+	public void removePublishListener(PublishListener listener) {
+		publishListeners.remove(listener);
+	}
+
+	boolean authenticate(String selfId, String token) {
+		String required = this.token;
+		return selfId != null && (required == null || required.equals(token));
+	}
+
+	void onConnect(SimulatorClient client) {
+		clients.add(client);
+		logger.info("Client connected: " + client.getSelfId());
+	}
+
+	void onDisconnect(SimulatorClient client) {
+		clients.remove(client);
+		for(Set<SimulatorClient> subscribers : subscriptions.values()) {
+			subscribers.remove(client);
+		}
+		for(TypeSubscription subscription : typeSubscriptions) {
+			if(subscription.client == client)
+				typeSubscriptions.remove(subscription);
+		}
+		for(Map.Entry<String, Proxy> entry : proxies.entrySet()) {
+			if(entry.getValue().client == client)
+				proxies.remove(entry.getKey(), entry.getValue());
+		}
+		logger.info("Client disconnected: " + client.getSelfId());
+	}
+
+	/**
+	 * Handle one envelope from a client
+	 * @param client: the sender
+	 * @param envelope: the envelope, or the header of a binary frame
+	 * @param payload: the binary payload, null for text frames
+	 */
+	void onEnvelope(SimulatorClient client, JsonObject envelope, ByteBuffer payload) {
+		received.incrementAndGet();
+		if(payload != null) {
+			receivedBinary.incrementAndGet();
+			receivedBytes.addAndGet(payload.remaining());
+		}
+		String msg = envelope.get(TopicConstants.MSG).getAsString();
+		JsonArray targets = envelope.getAsJsonArray(TopicConstants.TARGETS);
+		for(JsonElement target : targets) {
+			String topic = target.getAsString();
+			if(msg.equals(TopicConstants.SUBSCRIBE)) {
+				subscribersOf(topic).add(client);
+			}
+			else if(msg.equals(TopicConstants.UNSUBSCRIBE)) {
+				subscribersOf(topic).remove(client);
+			}
+			else if(msg.equals(TopicConstants.PUBLISH_AT)) {
+				onPublish(client, topic, envelope, payload);
+			}
+		}
+	}
+
+	private void onPublish(SimulatorClient client, String topic, JsonObject envelope, ByteBuffer payload) {
+		for(PublishListener listener : publishListeners) {
+			listener.onPublish(client, topic, envelope, payload);
+		}
+		if(payload == null) {
+			String data = envelope.get(TopicConstants.DATA).getAsString();
+			if(topic.endsWith(BlackBoardConstants.BLACKBOARD)) {
+				onBlackBoard(client, topic, parse(data));
+				return;
+			}
+			ProxyService service = serviceOf(topic);
+			if(service != null) {
+				onService(client, service, parse(data));
+				return;
+			}
+		}
+		String origin = envelope.has(TopicConstants.ORIGIN) 
+				? envelope.get(TopicConstants.ORIGIN).getAsString() : client.getSelfId();
+		if(payload != null)
+			publish(topic, payload, origin);
+		else
+			publish(topic, envelope.get(TopicConstants.DATA).getAsString(), origin);
+	}
+
+	/**
+	 * Send a text message to every subscriber of a topic
+	 * @param topic: the topic
+	 * @param data: the data string
+	 * @return the number of clients reached
+	 */
+	public int publish(String topic, String data) {
+		return publish(topic, data, ORIGIN);
+	}
+
+	/**
+	 * Send a binary message to every subscriber of a topic
+	 * @param topic: the topic
+	 * @param payload: the data
+	 * @return the number of clients reached
+	 */
+	public int publish(String topic, ByteBuffer payload) {
+		return publish(topic, payload, ORIGIN);
+	}
+
+	private int publish(String topic, String data, String origin) {
+		int reached = 0;
+		for(SimulatorClient subscriber : subscribersOf(topic)) {
+			if(subscriber.deliver(topic, data, origin))
+				reached++;
+		}
+		delivered.addAndGet(reached);
+		return reached;
+	}
+
+	private int publish(String topic, ByteBuffer payload, String origin) {
+		int reached = 0;
+		for(SimulatorClient subscriber : subscribersOf(topic)) {
+			if(subscriber.deliver(topic, payload, origin))
+				reached++;
+		}
+		delivered.addAndGet(reached);
+		return reached;
+	}
+
+	private void send(SimulatorClient client, String topic, JsonObject data) {
+		if(client.deliver(topic, data.toString(), ORIGIN))
+			delivered.incrementAndGet();
+	}
+
+	private Set<SimulatorClient> subscribersOf(String topic) {
+		Set<SimulatorClient> subscribers = subscriptions.get(topic);
+		if(subscribers == null) {
+			subscribers = new CopyOnWriteArraySet<SimulatorClient>();
+			Set<SimulatorClient> existing = subscriptions.putIfAbsent(topic, subscribers);
+			if(existing != null)
+				subscribers = existing;
+		}
+		return subscribers;
+	}
+
+	private static JsonObject parse(String data) {
+		return new JsonParser().parse(data).getAsJsonObject();
+	}
+
+	/*			Blackboard				*/
+
+	private void onBlackBoard(SimulatorClient client, String topic, JsonObject request) {
+		String event = request.get(BlackBoardConstants.EVENT).getAsString();
+		count(topic, event);
+		if(event.equals(BlackBoardConstants.SUBSCRIBE_TO_TYPE)) {
+			int mask = request.has(BlackBoardConstants.EVENT_MASK) 
+					? request.get(BlackBoardConstants.EVENT_MASK).getAsInt() : ThingEventType.TE_ALL.getId();
+			typeSubscriptions.add(new TypeSubscription(client, topic,
+					request.get(BlackBoardConstants.TYPE).getAsString(), mask));
+		}
+		else if(event.equals(BlackBoardConstants.UNSUBSCRIBE_FROM_TYPE)) {
+			String type = request.get(BlackBoardConstants.TYPE).getAsString();
+			for(TypeSubscription subscription : typeSubscriptions) {
+				if(subscription.client == client && subscription.topic.equals(topic) 
+						&& subscription.type.equals(type))
+					typeSubscriptions.remove(subscription);
+			}
+		}
+		else if(event.equals(BlackBoardConstants.ADD_OBJECT)) {
+			String parent = request.has(BlackBoardConstants.PARENT) 
+					? request.get(BlackBoardConstants.PARENT).getAsString() : null;
+			addThing(request.getAsJsonObject(BlackBoardConstants.THING), parent);
+		}
+		else if(event.equals(BlackBoardConstants.REMOVE_OBJECT)) {
+			String guid = request.get(BlackBoardConstants.THING_GUID).getAsString();
+			JsonObject thing = things.remove(guid);
+			parents.remove(guid);
+			if(thing != null) {
+				JsonObject notice = notice(BlackBoardConstants.REMOVE_OBJECT, thing);
+				notice.addProperty(BlackBoardConstants.THING_GUID, guid);
+				notify(ThingEventType.TE_REMOVED, notice);
+			}
+		}
+		else if(event.equals(BlackBoardConstants.SET_OBJECT_STATE)) {
+			JsonObject thing = things.get(request.get(BlackBoardConstants.THING_GUID).getAsString());
+			if(thing != null) {
+				thing.add(BlackBoardConstants.M_STATE, request.get(BlackBoardConstants.STATE));
+				JsonObject notice = notice(BlackBoardConstants.SET_OBJECT_STATE, thing);
+				notice.add(BlackBoardConstants.THING_GUID, request.get(BlackBoardConstants.THING_GUID));
+				notice.add(BlackBoardConstants.STATE, request.get(BlackBoardConstants.STATE));
+				notice.add(BlackBoardConstants.THING, thing);
+				notify(ThingEventType.TE_STATE, notice);
+			}
+		}
+		else if(event.equals(BlackBoardConstants.SET_OBJECT_IMPORTANCE)) {
+			JsonObject thing = things.get(request.get(BlackBoardConstants.THING_GUID).getAsString());
+			if(thing != null) {
+				thing.add(BlackBoardConstants.M_IMPORTANCE, request.get(BlackBoardConstants.IMPORTANCE));
+				JsonObject notice = notice(BlackBoardConstants.SET_OBJECT_IMPORTANCE, thing);
+				notice.add(BlackBoardConstants.THING_GUID, request.get(BlackBoardConstants.THING_GUID));
+				notice.add(BlackBoardConstants.IMPORTANCE, request.get(BlackBoardConstants.IMPORTANCE));
+				notify(ThingEventType.TE_IMPORTANCE, notice);
+			}
+		}
+		else if(event.equals(BlackBoardConstants.GET_PARENT)) {
+			String guid = request.get(BlackBoardConstants.THING_GUID).getAsString();
+			String parent = parents.get(guid);
+			JsonObject reply = new JsonObject();
+			reply.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.GET_PARENT);
+			reply.addProperty(BlackBoardConstants.THING_GUID, guid);
+			reply.add(BlackBoardConstants.PARENT, parent != null ? new JsonPrimitive(parent) : JsonNull.INSTANCE);
+			JsonObject parentThing = parent != null ? things.get(parent) : null;
+			if(parentThing != null) {
+				reply.add(BlackBoardConstants.TYPE, parentThing.get(BlackBoardConstants.TYPE_));
+				reply.add(BlackBoardConstants.THING, parentThing);
+			}
+			if(request.has(TopicConstants.REQUEST_ID))
+				reply.add(TopicConstants.REQUEST_ID, request.get(TopicConstants.REQUEST_ID));
+			send(client, topic, reply);
+		}
+	}
+
+	/**
+	 * Put a thing on the blackboard, notifying subscribers of its type
+	 * @param thing: the serialized thing, with at least Type_ and GUID_
+	 * @param parent: guid of the parent, or null
+	 */
+	public void addThing(JsonObject thing, String parent) {
+		String guid = thing.get(BlackBoardConstants.GUID).getAsString();
+		things.put(guid, thing);
+		if(parent != null)
+			parents.put(guid, parent);
+		JsonObject notice = notice(BlackBoardConstants.ADD_OBJECT, thing);
+		notice.add(BlackBoardConstants.THING, thing);
+		if(parent != null)
+			notice.addProperty(BlackBoardConstants.PARENT, parent);
+		notify(ThingEventType.TE_ADDED, notice);
+	}
+
+	/**
+	 * @return number of things on the blackboard
+	 */
+	public int getThingCount() {
+		return things.size();
+	}
+
+	private static JsonObject notice(String event, JsonObject thing) {
+		JsonObject notice = new JsonObject();
+		notice.addProperty(BlackBoardConstants.EVENT, event);
+		notice.add(BlackBoardConstants.TYPE, thing.get(BlackBoardConstants.TYPE_));
+		return notice;
+	}
+
+	private void notify(ThingEventType eventType, JsonObject notice) {
+		String type = notice.get(BlackBoardConstants.TYPE).getAsString();
+		String data = notice.toString();
+		for(TypeSubscription subscription : typeSubscriptions) {
+			if(subscription.type.equals(type) && (subscription.mask & eventType.getId()) != 0) {
+				if(subscription.client.deliver(subscription.topic, data, ORIGIN))
+					delivered.incrementAndGet();
+			}
+		}
+	}
+
+	/*			Proxy managers			*/
+
+	private static ProxyService serviceOf(String topic) {
+		for(ProxyService service : SERVICES) {
+			if(service.topic.equals(topic))
+				return service;
+		}
+		return null;
+	}
+
+	private void onService(SimulatorClient client, ProxyService service, JsonObject request) {
+		String event = request.has(SensorConstants.EVENT) ? request.get(SensorConstants.EVENT).getAsString() : null;
+		count(service.topic, event);
+		if(event == null || !request.has(service.idKey))
+			return;
+		String id = request.get(service.idKey).getAsString();
+		if(event.equals(service.addEvent)) {
+			proxies.put(id, new Proxy(client, service, request));
+			if(autoStart && service.startEvent != null)
+				sendProxyEvent(id, service.startEvent, null);
+		}
+		else if(event.equals(service.removeEvent)) {
+			proxies.remove(id);
+		}
+	}
+
+	/**
+	 * Send an event to the client owning a proxy, e.g. stop_sensor
+	 * @param id: the sensor, gesture, agent, extractor or classifier id
+	 * @param event: the event name
+	 * @param params: further fields of the event, or null
+	 * @return false if no client registered the id
+	 */
+	public boolean sendProxyEvent(String id, String event, JsonObject params) {
+		Proxy proxy = proxies.get(id);
+		if(proxy == null)
+			return false;
+		JsonObject data = new JsonObject();
+		data.addProperty(SensorConstants.EVENT, event);
+		data.addProperty(proxy.service.idKey, id);
+		if(proxy.registration.has(GestureConstants.INSTANCE_ID))
+			data.add(GestureConstants.INSTANCE_ID, proxy.registration.get(GestureConstants.INSTANCE_ID));
+		if(params != null)
+			data.add(GestureConstants.PARAMS, params);
+		send(proxy.client, proxy.service.topic, data);
+		return true;
+	}
+
+	/**
+	 * Tell the client owning a proxy to stop it, e.g. stop_sensor
+	 * @param id: the proxy id
+	 * @return false if no client registered the id or its manager has no stop event
+	 */
+	public boolean stopProxy(String id) {
+		Proxy proxy = proxies.get(id);
+		if(proxy == null || proxy.service.stopEvent == null)
+			return false;
+		return sendProxyEvent(id, proxy.service.stopEvent, null);
+	}
+
+	/**
+	 * Ask the client owning a gesture to execute it
+	 * @param gestureId: the gesture
+	 * @param params: the gesture parameters
+	 * @return false if no client registered the gesture
+	 */
+	public boolean executeGesture(String gestureId, JsonObject params) {
+		return sendProxyEvent(gestureId, GestureConstants.EXECUTE_GESTURE, 
+				params != null ? params : new JsonObject());
+	}
+
+	/**
+	 * @return ids of every registered proxy
+	 */
+	public Set<String> getProxies() {
+		return proxies.keySet();
+	}
+
+	/*			Load and counters		*/
+
+	/**
+	 * Start describing inbound load on a topic
+	 * @param topic: the topic to publish on
+	 * @return the generator, started with LoadGenerator.start()
+	 */
+	public LoadGenerator load(String topic) {
+		return new LoadGenerator(this, topic);
+	}
+
+	private void count(String topic, String event) {
+		String key = topic + "/" + event;
+		AtomicLong counter = events.get(key);
+		if(counter == null) {
+			AtomicLong created = new AtomicLong();
+			counter = events.putIfAbsent(key, created);
+			if(counter == null)
+				counter = created;
+		}
+		counter.incrementAndGet();
+	}
+
+	/**
+	 * @param topic: a manager or blackboard topic
+	 * @param event: an event name, e.g. execute_done
+	 * @return how often clients sent the event on the topic
+	 */
+	public long getEventCount(String topic, String event) {
+		AtomicLong counter = events.get(topic + "/" + event);
+		return counter != null ? counter.get() : 0;
+	}
+
+	/**
+	 * @param topic: the topic
+	 * @return number of clients subscribed to it
+	 */
+	public int getSubscriberCount(String topic) {
+		return subscribersOf(topic).size();
+	}
+
+	public int getClientCount() {
+		return clients.size();
+	}
+
+	/**
+	 * @return a snapshot of the connected clients
+	 */
+	public List<SimulatorClient> getClients() {
+		return new ArrayList<SimulatorClient>(clients);
+	}
+
+	public long getReceived() {
+		return received.get();
+	}
+
+	public long getReceivedBinary() {
+		return receivedBinary.get();
+	}
+
+	public long getReceivedBytes() {
+		return receivedBytes.get();
+	}
+
+	public long getDelivered() {
+		return delivered.get();
+	}
+
+	/**
+	 * Connects in-process clients, handing them decoded messages
+	 */
+	private class LoopbackPeer implements LoopbackTransport.Peer {
+
+		private final ConcurrentHashMap<LoopbackTransport.Link, LoopbackClient> links = 
+				new ConcurrentHashMap<LoopbackTransport.Link, LoopbackClient>();
+
+		public boolean onConnect(LoopbackTransport.Link link, String selfId, String token) {
+			if(!authenticate(selfId, token))
+				return false;
+			LoopbackClient client = new LoopbackClient(link, selfId);
+			links.put(link, client);
+			IntuSimulator.this.onConnect(client);
+			return true;
+		}
+
+		public void onFrame(LoopbackTransport.Link link, OutboundFrame frame) {
+			LoopbackClient client = links.get(link);
+			if(client != null)
+				onEnvelope(client, frame.getEnvelope(), frame.getPayload());
+		}
+
+		public void onDisconnect(LoopbackTransport.Link link) {
+			LoopbackClient client = links.remove(link);
+			if(client != null)
+				IntuSimulator.this.onDisconnect(client);
+		}
+	}
+
+	private static class LoopbackClient implements SimulatorClient {
+
+		private final LoopbackTransport.Link link;
+		private final String selfId;
+
+		LoopbackClient(LoopbackTransport.Link link, String selfId) {
+			this.link = link;
+			this.selfId = selfId;
+		}
+
+		public String getSelfId() {
+			return selfId;
+		}
+
+		public boolean deliver(String topic, String data, String origin) {
+			return link.deliver(new TopicMessage(topic, data));
+		}
+
+		public boolean deliver(String topic, ByteBuffer payload, String origin) {
+			return link.deliver(new TopicMessage(topic, payload));
+		}
+
+		public void close() {
+			link.disconnect(1001, "simulator stopped");
+		}
+	}
+
+	/**
+	 * A blackboard type a client subscribed to, and on which topic
+	 */
+	private static class TypeSubscription {
+
+		final SimulatorClient client;
+		final String topic;
+		final String type;
+		final int mask;
+
+		TypeSubscription(SimulatorClient client, String topic, String type, int mask) {
+			this.client = client;
+			this.topic = topic;
+			this.type = type;
+			this.mask = mask;
+		}
+	}
+
+	/**
+	 * The events of one manager's proxy protocol
+	 */
+	private static class ProxyService {
+
+		final String topic;
+		final String addEvent;
+		final String removeEvent;
+		final String idKey;
+		final String startEvent;
+		final String stopEvent;
+
+		ProxyService(String topic, String addEvent, String removeEvent, String idKey, 
+				String startEvent, String stopEvent) {
+			this.topic = topic;
+			this.addEvent = addEvent;
+			this.removeEvent = removeEvent;
+			this.idKey = idKey;
+			this.startEvent = startEvent;
+			this.stopEvent = stopEvent;
+		}
+	}
+
+	/**
+	 * A sensor, gesture, agent, extractor or classifier registered by a client
+	 */
+	private static class Proxy {
+
+		final SimulatorClient client;
+		final ProxyService service;
+		final JsonObject registration;
+
+		Proxy(SimulatorClient client, ProxyService service, JsonObject registration) {
+			this.client = client;
+			this.service = service;
+			this.registration = registration;
+		}
+	}
+}
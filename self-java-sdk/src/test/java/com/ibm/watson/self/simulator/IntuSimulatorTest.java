@@ -0,0 +1,193 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.simulator;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.self.blackboard.BlackBoardConstants;
+import com.ibm.watson.self.blackboard.IThing;
+import com.ibm.watson.self.sensors.SensorConstants;
+import com.ibm.watson.self.topics.ConnectionState;
+import com.ibm.watson.self.topics.IBinaryEvent;
+import com.ibm.watson.self.topics.LoopbackTransport;
+import com.ibm.watson.self.topics.ReconnectPolicy;
+import com.ibm.watson.self.topics.TopicClient;
+import com.ibm.watson.self.topics.TopicMessage;
+
+import junit.framework.TestCase;
+
+public class IntuSimulatorTest extends TestCase {
+
+	private IntuSimulator simulator;
+	private TopicClient client;
+
+	protected void setUp() throws Exception {
+		simulator = new IntuSimulator();
+		simulator.setToken("secret");
+		client = new TopicClient();
+		client.setReconnectPolicy(new ReconnectPolicy(10, 100, 2.0, false));
+		client.setHeaders("self", "secret");
+	}
+
+	protected void tearDown() {
+		client.close();
+		simulator.stop();
+	}
+
+	public void testWebSocketRoundTrip() throws Exception {
+		int port = simulator.start();
+		client.connect("localhost", Integer.toString(port));
+		awaitOpen();
+
+		Receiver receiver = new Receiver(2);
+		client.subscribe("echo", receiver);
+		awaitSubscribers("echo", 1);
+		client.publish("echo", "hello", false);
+		client.publish("echo", new byte[] { 1, 2, 3 }, false);
+		assertTrue(receiver.latch.await(2, TimeUnit.SECONDS));
+		assertEquals("hello", receiver.text.get(0));
+		assertEquals(3, receiver.binary.get(0).remaining());
+
+		Receiver loaded = new Receiver(1);
+		client.subscribe("load", loaded);
+		awaitSubscribers("load", 1);
+		LoadGenerator load = simulator.load("load").rate(1000).count(1).start();
+		assertTrue(load.await(2, TimeUnit.SECONDS));
+		assertTrue(loaded.latch.await(2, TimeUnit.SECONDS));
+		assertEquals(0, new JsonParser().parse(loaded.text.get(0))
+				.getAsJsonObject().get(LoadGenerator.SEQUENCE).getAsInt());
+		assertEquals(1, simulator.getReceivedBinary());
+	}
+
+	public void testBlackBoardOverLoopback() throws Exception {
+		client.setTransport(new LoopbackTransport(simulator.getPeer()));
+		client.connect("localhost", "9443");
+		assertEquals(ConnectionState.OPEN, client.getState());
+
+		Receiver receiver = new Receiver(1);
+		client.subscribe(BlackBoardConstants.BLACKBOARD, receiver);
+		JsonObject subscribe = new JsonObject();
+		subscribe.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.SUBSCRIBE_TO_TYPE);
+		subscribe.addProperty(BlackBoardConstants.TYPE, "Text");
+		subscribe.addProperty(BlackBoardConstants.EVENT_MASK, IThing.ThingEventType.TE_ADDED.getId());
+		client.publish(BlackBoardConstants.BLACKBOARD, subscribe.toString(), false);
+		awaitEvent(BlackBoardConstants.BLACKBOARD, BlackBoardConstants.SUBSCRIBE_TO_TYPE);
+
+		IThing parent = new IThing();
+		IThing child = new IThing();
+		child.setType("Text");
+		simulator.addThing(parent.serialize(), null);
+		simulator.addThing(child.serialize(), parent.getGuid());
+
+		assertTrue(receiver.latch.await(2, TimeUnit.SECONDS));
+		JsonObject added = new JsonParser().parse(receiver.text.get(0)).getAsJsonObject();
+		assertEquals(BlackBoardConstants.ADD_OBJECT, added.get(BlackBoardConstants.EVENT).getAsString());
+		assertEquals(parent.getGuid(), added.get(BlackBoardConstants.PARENT).getAsString());
+
+		JsonObject query = new JsonObject();
+		query.addProperty(BlackBoardConstants.EVENT, BlackBoardConstants.GET_PARENT);
+		query.addProperty(BlackBoardConstants.THING_GUID, child.getGuid());
+		TopicMessage reply = client.request(BlackBoardConstants.BLACKBOARD, query).get(2, TimeUnit.SECONDS);
+		assertEquals(parent.getGuid(), reply.getDataAsJson().getAsJsonObject()
+				.get(BlackBoardConstants.PARENT).getAsString());
+		assertEquals(1, receiver.text.size());
+	}
+
+	public void testSensorProxyStarted() throws Exception {
+		client.setTransport(new LoopbackTransport(simulator.getPeer()));
+		client.connect("localhost", "9443");
+
+		Receiver receiver = new Receiver(1);
+		client.subscribe(SensorConstants.SENSOR_MANAGER, receiver);
+		JsonObject add = new JsonObject();
+		add.addProperty(SensorConstants.EVENT, SensorConstants.ADD_SENSOR_PROXY);
+		add.addProperty(SensorConstants.SENSOR_ID, "mic");
+		client.publish(SensorConstants.SENSOR_MANAGER, add.toString(), false);
+
+		assertTrue(receiver.latch.await(2, TimeUnit.SECONDS));
+		JsonObject start = new JsonParser().parse(receiver.text.get(0)).getAsJsonObject();
+		assertEquals(SensorConstants.START_SENSOR, start.get(SensorConstants.EVENT).getAsString());
+		assertEquals("mic", start.get(SensorConstants.SENSOR_ID).getAsString());
+		assertTrue(simulator.getProxies().contains("mic"));
+		assertEquals(1, simulator.getEventCount(SensorConstants.SENSOR_MANAGER, SensorConstants.ADD_SENSOR_PROXY));
+	}
+
+	public void testWrongTokenRejected() throws Exception {
+		client.setTransport(new LoopbackTransport(simulator.getPeer()));
+		client.setHeaders("self", "wrong");
+		client.connect("localhost", "9443");
+		assertFalse(client.getState() == ConnectionState.OPEN);
+		assertEquals(0, simulator.getClientCount());
+	}
+
+	private void awaitOpen() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while(client.getState() != ConnectionState.OPEN && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(ConnectionState.OPEN, client.getState());
+	}
+
+	private void awaitEvent(String topic, String event) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 2000;
+		while(simulator.getEventCount(topic, event) == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, simulator.getEventCount(topic, event));
+	}
+
+	private void awaitSubscribers(String topic, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 2000;
+		while(simulator.getSubscriberCount(topic) < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, simulator.getSubscriberCount(topic));
+	}
+
+	private static class Receiver implements IBinaryEvent {
+
+		final CountDownLatch latch;
+		final List<String> text = new CopyOnWriteArrayList<String>();
+		final List<ByteBuffer> binary = new CopyOnWriteArrayList<ByteBuffer>();
+
+		Receiver(int messages) {
+			latch = new CountDownLatch(messages);
+		}
+
+		public void onEvent(String event) {
+			text.add(event);
+			latch.countDown();
+		}
+
+		public void onBinaryEvent(TopicMessage header, ByteBuffer data) {
+			binary.add(data);
+			latch.countDown();
+		}
+
+		public boolean isActive() { return true; }
+		public void shutdown() {}
+		public void onDisconnect() {}
+		public void onReconnect() {}
+	}
+}
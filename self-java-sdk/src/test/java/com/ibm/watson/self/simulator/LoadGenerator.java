@@ -0,0 +1,240 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.simulator;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.blackboard.BlackBoardConstants;
+import com.ibm.watson.self.blackboard.IThing;
+
+/**
+ * Publishes messages from the simulator to its clients at a fixed rate.
+ * Each message is sent at its intended time, start + n / rate, rather than a
+ * fixed sleep after the previous one, so a slow send does not lower the
+ * offered load and latency measured from "sent_ns" includes any queueing
+ * the sender caused (no coordinated omission).
+ *
+ * Text messages default to {"sequence": n, "sent_ns": intended send time}.
+ */
+public class LoadGenerator implements Runnable {
+
+	public static final String SEQUENCE 	= "sequence";
+	public static final String SENT_NS 		= "sent_ns";
+
+	/**
+	 * Builds message n of a run
+	 */
+	public interface Source {
+		String next(long sequence, long intendedNanos);
+	}
+
+	private enum Mode { TEXT, BINARY, THINGS }
+
+	private final IntuSimulator simulator;
+	private final String topic;
+	private Mode mode = Mode.TEXT;
+	private Source source;
+	private byte[] payload;
+	private String thingType;
+	private double rate = 1000;
+	private long count = Long.MAX_VALUE;
+	private long durationNanos = Long.MAX_VALUE;
+
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong late = new AtomicLong();
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile boolean running = false;
+	private Thread thread;
+
+	LoadGenerator(IntuSimulator simulator, String topic) {
+		this.simulator = simulator;
+		this.topic = topic;
+	}
+
+	/**
+	 * Send text built by a source instead of the default message
+	 * @param source: the source
+	 * @return this generator
+	 */
+	public LoadGenerator text(Source source) {
+		this.mode = Mode.TEXT;
+		this.source = source;
+		return this;
+	}
+
+	/**
+	 * Send binary frames, e.g. to stand in for audio or video
+	 * @param size: bytes per frame
+	 * @return this generator
+	 */
+	public LoadGenerator binary(int size) {
+		this.mode = Mode.BINARY;
+		this.payload = new byte[size];
+		return this;
+	}
+
+	/**
+	 * Add things of a type to the blackboard instead of publishing on the
+	 * topic, which subscribers of the type receive as add_object
+	 * @param type: the thing type, e.g. Text
+	 * @return this generator
+	 */
+	public LoadGenerator things(String type) {
+		this.mode = Mode.THINGS;
+		this.thingType = type;
+		return this;
+	}
+
+	/**
+	 * @param perSecond: messages per second
+	 * @return this generator
+	 */
+	public LoadGenerator rate(double perSecond) {
+		if(perSecond <= 0)
+			throw new IllegalArgumentException("rate must be positive");
+		this.rate = perSecond;
+		return this;
+	}
+
+	/**
+	 * @param count: stop after this many messages
+	 * @return this generator
+	 */
+	public LoadGenerator count(long count) {
+		this.count = count;
+		return this;
+	}
+
+	/**
+	 * @param duration: stop after this long
+	 * @param unit: unit of the duration
+	 * @return this generator
+	 */
+	public LoadGenerator duration(long duration, TimeUnit unit) {
+		this.durationNanos = unit.toNanos(duration);
+		return this;
+	}
+
+	/**
+	 * Start sending on a thread of its own
+	 * @return this generator
+	 */
+	public synchronized LoadGenerator start() {
+		if(running || done.getCount() == 0)
+			throw new IllegalStateException("LoadGenerator can only be started once");
+		running = true;
+		thread = new Thread(this, "LoadGenerator-" + topic);
+		thread.setDaemon(true);
+		thread.start();
+		return this;
+	}
+
+	/**
+	 * Stop sending, messages already sent are not affected
+	 */
+	public void stop() {
+		running = false;
+	}
+
+	/**
+	 * Wait for the run to finish
+	 * @param timeout: how long to wait
+	 * @param unit: unit of the timeout
+	 * @return false if the run was still going when the wait ended
+	 * @throws InterruptedException if the caller is interrupted
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		return done.await(timeout, unit);
+	}
+
+	public void run() {
+		try {
+			double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+			long start = System.nanoTime();
+			for(long n = 0; running && n < count; n++) {
+				long intended = start + (long) (n * interval);
+				if(intended - start > durationNanos)
+					break;
+				long wait = intended - System.nanoTime();
+				while(wait > 0 && running) {
+					LockSupport.parkNanos(wait);
+					wait = intended - System.nanoTime();
+				}
+				if(wait < -(long) interval)
+					late.incrementAndGet();
+				send(n, intended);
+				sent.incrementAndGet();
+			}
+		}
+		finally {
+			running = false;
+			done.countDown();
+		}
+	}
+
+	private void send(long n, long intended) {
+		if(mode == Mode.BINARY) {
+			ByteBuffer frame = ByteBuffer.wrap(payload);
+			frame.putLong(0, intended);
+			simulator.publish(topic, frame);
+		}
+		else if(mode == Mode.THINGS) {
+			IThing thing = new IThing();
+			thing.setType(thingType);
+			JsonObject data = new JsonObject();
+			data.addProperty(SEQUENCE, n);
+			data.addProperty(SENT_NS, intended);
+			thing.setData(data);
+			JsonObject wrapper = thing.serialize();
+			wrapper.addProperty(BlackBoardConstants.CREATE_TIME, System.currentTimeMillis() / 1000.0);
+			simulator.addThing(wrapper, null);
+		}
+		else if(source != null) {
+			simulator.publish(topic, source.next(n, intended));
+		}
+		else {
+			JsonObject data = new JsonObject();
+			data.addProperty(SEQUENCE, n);
+			data.addProperty(SENT_NS, intended);
+			simulator.publish(topic, data.toString());
+		}
+	}
+
+	/**
+	 * @return messages sent so far
+	 */
+	public long getSent() {
+		return sent.get();
+	}
+
+	/**
+	 * @return messages sent more than one interval after their intended time
+	 */
+	public long getLate() {
+		return late.get();
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.simulator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A client connected to the IntuSimulator, over a socket or in process
+ */
+public interface SimulatorClient {
+
+	String getSelfId();
+
+	/**
+	 * Send a text message on a topic
+	 * @param topic: the topic
+	 * @param data: the data string
+	 * @param origin: who published it
+	 * @return false if the client is gone
+	 */
+	boolean deliver(String topic, String data, String origin);
+
+	/**
+	 * Send a binary message on a topic
+	 * @param topic: the topic
+	 * @param payload: the data, not modified
+	 * @param origin: who published it
+	 * @return false if the client is gone
+	 */
+	boolean deliver(String topic, ByteBuffer payload, String origin);
+
+	/**
+	 * Drop the connection, as a restarting server would
+	 */
+	void close();
+}
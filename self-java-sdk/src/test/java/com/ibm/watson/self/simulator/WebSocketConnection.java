@@ -0,0 +1,286 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.self.topics.TopicConstants;
+
+/**
+ * The server side of one RFC 6455 WebSocket, just enough of it for the
+ * /stream protocol: the upgrade handshake, fragmented text and binary
+ * messages from the client, ping, pong and close. Server frames are never
+ * fragmented or masked.
+ */
+class WebSocketConnection implements SimulatorClient, Runnable {
+
+	/*          Logging                 */
+
+	private static Logger logger = LogManager.getLogger(WebSocketConnection.class.getName());
+
+	private static final Charset UTF8 = Charset.forName(TopicConstants.UTF8);
+	private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+	private static final int OP_CONTINUATION 	= 0x0;
+	private static final int OP_TEXT 			= 0x1;
+	private static final int OP_BINARY 			= 0x2;
+	private static final int OP_CLOSE 			= 0x8;
+	private static final int OP_PING 			= 0x9;
+	private static final int OP_PONG 			= 0xA;
+
+	private final IntuSimulator simulator;
+	private final Socket socket;
+	private DataInputStream in;
+	private OutputStream out;
+	private String selfId;
+	private volatile boolean open = false;
+
+	WebSocketConnection(IntuSimulator simulator, Socket socket) {
+		this.simulator = simulator;
+		this.socket = socket;
+	}
+
+	public String getSelfId() {
+		return selfId;
+	}
+
+	public void run() {
+		try {
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new BufferedOutputStream(socket.getOutputStream());
+			if(!handshake())
+				return;
+			open = true;
+			simulator.onConnect(this);
+			readMessages();
+		}
+		catch (IOException e) {
+			if(open)
+				logger.info("Connection of " + selfId + " ended: " + e.getMessage());
+		}
+		finally {
+			close();
+		}
+	}
+
+	private boolean handshake() throws IOException {
+		String requestLine = readLine(in);
+		Map<String, String> headers = new HashMap<String, String>();
+		for(String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+			int colon = line.indexOf(':');
+			if(colon > 0)
+				headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+		}
+		String key = headers.get("sec-websocket-key");
+		if(!requestLine.startsWith("GET " + TopicConstants.STREAM) || key == null) {
+			writeRaw("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n");
+			return false;
+		}
+		selfId = headers.get(TopicConstants.SELF_ID.toLowerCase());
+		if(!simulator.authenticate(selfId, headers.get(TopicConstants.TOKEN.toLowerCase()))) {
+			writeRaw("HTTP/1.1 401 Unauthorized\r\nContent-Length: 0\r\n\r\n");
+			return false;
+		}
+		writeRaw("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+				+ "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n");
+		return true;
+	}
+
+	private void readMessages() throws IOException {
+		ByteArrayOutputStream message = new ByteArrayOutputStream();
+		int messageType = -1;
+		while(open) {
+			int b0 = in.readUnsignedByte();
+			int b1 = in.readUnsignedByte();
+			boolean fin = (b0 & 0x80) != 0;
+			int opcode = b0 & 0x0F;
+			long length = b1 & 0x7F;
+			if(length == 126)
+				length = in.readUnsignedShort();
+			else if(length == 127)
+				length = in.readLong();
+			byte[] mask = new byte[4];
+			if((b1 & 0x80) != 0)
+				in.readFully(mask);
+			byte[] payload = new byte[(int) length];
+			in.readFully(payload);
+			for(int i = 0; i < payload.length; i++) {
+				payload[i] ^= mask[i & 3];
+			}
+
+			if(opcode == OP_PING) {
+				writeFrame(OP_PONG, payload, 0, payload.length);
+			}
+			else if(opcode == OP_CLOSE) {
+				writeFrame(OP_CLOSE, payload, 0, Math.min(payload.length, 2));
+				return;
+			}
+			else if(opcode == OP_PONG) {
+				// unsolicited, nothing to do
+			}
+			else {
+				if(opcode != OP_CONTINUATION)
+					messageType = opcode;
+				message.write(payload);
+				if(fin) {
+					onMessage(messageType, message.toByteArray());
+					message.reset();
+				}
+			}
+		}
+	}
+
+	private void onMessage(int type, byte[] message) {
+		try {
+			if(type == OP_TEXT) {
+				JsonObject envelope = new JsonParser().parse(new String(message, UTF8)).getAsJsonObject();
+				simulator.onEnvelope(this, envelope, null);
+			}
+			else if(type == OP_BINARY) {
+				int end = 0;
+				while(end < message.length && message[end] != 0) {
+					end++;
+				}
+				JsonObject header = new JsonParser().parse(new String(message, 0, end, UTF8)).getAsJsonObject();
+				int start = Math.min(end + 1, message.length);
+				simulator.onEnvelope(this, header, ByteBuffer.wrap(message, start, message.length - start));
+			}
+		}
+		catch (RuntimeException e) {
+			logger.error("Bad message from " + selfId + ": " + e.getMessage());
+		}
+	}
+
+	public boolean deliver(String topic, String data, String origin) {
+		JsonObject envelope = new JsonObject();
+		envelope.addProperty(TopicConstants.TOPIC, topic);
+		envelope.addProperty(TopicConstants.DATA, data);
+		envelope.addProperty(TopicConstants.BINARY, false);
+		envelope.addProperty(TopicConstants.ORIGIN, origin);
+		byte[] bytes = envelope.toString().getBytes(UTF8);
+		return send(OP_TEXT, bytes, 0, bytes.length);
+	}
+
+	public boolean deliver(String topic, ByteBuffer payload, String origin) {
+		JsonObject header = new JsonObject();
+		header.addProperty(TopicConstants.TOPIC, topic);
+		header.addProperty(TopicConstants.DATA, payload.remaining());
+		header.addProperty(TopicConstants.BINARY, true);
+		header.addProperty(TopicConstants.ORIGIN, origin);
+		byte[] head = header.toString().getBytes(UTF8);
+		byte[] frame = new byte[head.length + 1 + payload.remaining()];
+		System.arraycopy(head, 0, frame, 0, head.length);
+		payload.duplicate().get(frame, head.length + 1, payload.remaining());
+		return send(OP_BINARY, frame, 0, frame.length);
+	}
+
+	private boolean send(int opcode, byte[] data, int offset, int length) {
+		if(!open)
+			return false;
+		try {
+			writeFrame(opcode, data, offset, length);
+			return true;
+		}
+		catch (IOException e) {
+			close();
+			return false;
+		}
+	}
+
+	private synchronized void writeFrame(int opcode, byte[] data, int offset, int length) throws IOException {
+		out.write(0x80 | opcode);
+		if(length < 126) {
+			out.write(length);
+		}
+		else if(length <= 0xFFFF) {
+			out.write(126);
+			out.write(length >>> 8);
+			out.write(length);
+		}
+		else {
+			out.write(127);
+			for(int shift = 56; shift >= 0; shift -= 8) {
+				out.write((int) ((long) length >>> shift));
+			}
+		}
+		out.write(data, offset, length);
+		out.flush();
+	}
+
+	private synchronized void writeRaw(String response) throws IOException {
+		out.write(response.getBytes(UTF8));
+		out.flush();
+	}
+
+	public void close() {
+		boolean wasOpen;
+		synchronized (this) {
+			wasOpen = open;
+			open = false;
+		}
+		try {
+			socket.close();
+		}
+		catch (IOException e) {
+			logger.error(e.getMessage());
+		}
+		if(wasOpen)
+			simulator.onDisconnect(this);
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for(int c = in.read(); c != '\n'; c = in.read()) {
+			if(c < 0)
+				throw new EOFException("Connection closed during handshake");
+			if(c != '\r')
+				line.append((char) c);
+		}
+		return line.toString();
+	}
+
+	private static String accept(String key) {
+		try {
+			MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+			return Base64.getEncoder().encodeToString(sha1.digest((key + ACCEPT_GUID).getBytes(UTF8)));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+import junit.framework.TestCase;
+import okio.Buffer;
+import okio.ByteString;
+
+public class FrameWriterTest extends TestCase {
+
+	public void testControlGoesFirstWithBulkShare() throws InterruptedException {
+		FrameWriter writer = new FrameWriter();
+		writer.setBulkShare(8);
+		RecordingSocket socket = new RecordingSocket();
+		writer.setSession(socket);
+
+		for(int i = 0; i < 3; i++) {
+			OutboundFrame frame = new OutboundFrame("sensor-proxy-1",
+					ByteString.encodeUtf8("{}"), ByteBuffer.wrap(new byte[] { 1 }));
+			frame.setPriority(FramePriority.BULK);
+			writer.enqueue(frame);
+		}
+		for(int i = 0; i < 20; i++) {
+			writer.enqueue(new OutboundFrame(null, new JsonObject()));
+		}
+		assertEquals(3, writer.getQueueDepth(FramePriority.BULK));
+		assertEquals(20, writer.getQueueDepth(FramePriority.CONTROL));
+
+		writer.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while(writer.getFramesWritten() < 23 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		writer.stop();
+
+		assertEquals("CCCCCCCCBCCCCCCCCBCCCCB", socket.order());
+		assertEquals(3, writer.getBulkWritten());
+	}
+
+	public void testFramesAreWrittenInEnqueueOrderAndBatched() throws InterruptedException {
+		FrameWriter writer = new FrameWriter(256, 16);
+		RecordingSocket socket = new RecordingSocket();
+		writer.setSession(socket);
+
+		for(int i = 0; i < 100; i++) {
+			writer.enqueue(new OutboundFrame("topic-" + i, new JsonObject()));
+		}
+		writer.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while(writer.getFramesWritten() < 100 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		writer.stop();
+
+		List<String> topics = socket.topics();
+		assertEquals(100, topics.size());
+		for(int i = 0; i < 100; i++) {
+			assertEquals("topic-" + i, topics.get(i));
+		}
+		// everything was waiting, so each wake-up took a full batch
+		assertEquals(7, writer.getBatchesWritten());
+		assertEquals(0, writer.getFramesRejected());
+	}
+
+	public void testBulkShareMustBePositive() {
+		try {
+			new FrameWriter().setBulkShare(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	private static class RecordingSocket implements ITransportSession {
+
+		private final List<OutboundFrame> frames = Collections.synchronizedList(new ArrayList<OutboundFrame>());
+
+		public void send(OutboundFrame frame) throws IOException {
+			frames.add(frame);
+		}
+
+		public void ping(Buffer payload) throws IOException {}
+
+		public void close(int code, String reason) throws IOException {}
+
+		public void cancel() {}
+
+		String order() {
+			StringBuilder order = new StringBuilder();
+			synchronized(frames) {
+				for(OutboundFrame frame : frames) {
+					order.append(frame.getPriority() == FramePriority.BULK ? 'B' : 'C');
+				}
+			}
+			return order.toString();
+		}
+
+		List<String> topics() {
+			List<String> topics = new ArrayList<String>();
+			synchronized(frames) {
+				for(OutboundFrame frame : frames) {
+					topics.add(frame.getTopic());
+				}
+			}
+			return topics;
+		}
+	}
+}
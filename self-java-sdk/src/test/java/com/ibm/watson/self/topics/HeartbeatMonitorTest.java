@@ -0,0 +1,91 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import okio.Buffer;
+
+public class HeartbeatMonitorTest extends TestCase {
+
+	private ScheduledExecutorService scheduler;
+	private CountDownLatch dead;
+	private HeartbeatMonitor monitor;
+
+	protected void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		dead = new CountDownLatch(1);
+		monitor = new HeartbeatMonitor(scheduler, new HeartbeatMonitor.Handler() {
+			public void onDeadLink(int generation) {
+				assertEquals(7, generation);
+				dead.countDown();
+			}
+		});
+		monitor.setInterval(20);
+		monitor.setMaxMissed(2);
+	}
+
+	protected void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	public void testAnsweredPingsRecordRoundTrips() throws InterruptedException {
+		monitor.start(new PingSocket(true), 7);
+		assertFalse(dead.await(300, TimeUnit.MILLISECONDS));
+		monitor.stop();
+
+		assertTrue(monitor.getRoundTripTimes().getCount() > 0);
+		assertEquals(monitor.getPingsSent(), monitor.getPongsReceived());
+		assertEquals(0, monitor.getDeadLinks());
+	}
+
+	public void testMissedPongsDeclareLinkDead() throws InterruptedException {
+		monitor.start(new PingSocket(false), 7);
+		assertTrue(dead.await(2, TimeUnit.SECONDS));
+		assertEquals(2, monitor.getPingsSent());
+		assertEquals(1, monitor.getDeadLinks());
+	}
+
+	/**
+	 * Answers pings synchronously, or never
+	 */
+	private class PingSocket implements ITransportSession {
+
+		private final boolean answer;
+
+		PingSocket(boolean answer) {
+			this.answer = answer;
+		}
+
+		public void send(OutboundFrame frame) throws IOException {}
+
+		public void ping(Buffer payload) throws IOException {
+			if(answer)
+				monitor.onPong(payload);
+		}
+
+		public void close(int code, String reason) throws IOException {}
+
+		public void cancel() {}
+	}
+}
@@ -0,0 +1,227 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.self.metrics.MetricsRegistry;
+
+import junit.framework.TestCase;
+
+public class LoopbackTransportTest extends TestCase {
+
+	private EchoPeer peer;
+	private TopicClient client;
+
+	protected void setUp() {
+		peer = new EchoPeer();
+		client = new TopicClient();
+		client.setTransport(new LoopbackTransport(peer));
+		client.setReconnectPolicy(new ReconnectPolicy(10, 100, 2.0, false));
+		client.setHeaders("self", "token");
+		client.connect("localhost", "9443");
+	}
+
+	protected void tearDown() {
+		client.close();
+	}
+
+	public void testPublishRoundTrip() throws InterruptedException {
+		assertEquals(ConnectionState.OPEN, client.getState());
+		Receiver receiver = new Receiver(2);
+		client.subscribe("echo", receiver);
+		client.publish("echo", "hello", false);
+		client.publish("echo", new byte[] { 1, 2, 3 }, false);
+
+		assertTrue(receiver.latch.await(2, TimeUnit.SECONDS));
+		assertEquals("hello", receiver.text.get(0));
+		assertEquals(3, receiver.binary.get(0).remaining());
+		assertEquals(TopicConstants.SUBSCRIBE, peer.envelopes.get(0).get(TopicConstants.MSG).getAsString());
+		assertTrue(MetricsRegistry.getInstance().topic("echo").getMessagesIn() >= 2);
+	}
+
+	public void testBinaryFrameReachesBinarySubscribers() throws Exception {
+		final List<String> textOnly = new CopyOnWriteArrayList<String>();
+		client.subscribe("camera", new IEvent() {
+			public void onEvent(String event) {
+				textOnly.add(event);
+			}
+			public boolean isActive() { return true; }
+			public void shutdown() {}
+			public void onDisconnect() {}
+			public void onReconnect() {}
+		});
+		Receiver receiver = new Receiver(1);
+		client.subscribe("camera", receiver);
+
+		// laid out as the TopicManager sends it: header, NUL, payload
+		byte[] header = "{\"topic\":\"camera\",\"origin\":\"robot/\",\"binary\":true,\"data\":4}".getBytes("UTF-8");
+		byte[] frame = new byte[header.length + 5];
+		System.arraycopy(header, 0, frame, 0, header.length);
+		System.arraycopy(new byte[] { 10, 20, 30, 40 }, 0, frame, header.length + 1, 4);
+		assertTrue(peer.link.deliver(TopicMessage.parse(frame)));
+
+		assertTrue(receiver.latch.await(2, TimeUnit.SECONDS));
+		assertEquals("camera", receiver.headers.get(0).getTopic());
+		assertEquals("robot/", receiver.headers.get(0).getOrigin());
+		assertTrue(receiver.headers.get(0).isBinary());
+		ByteBuffer data = receiver.binary.get(0);
+		assertEquals(4, data.remaining());
+		byte[] payload = new byte[4];
+		data.get(payload);
+		assertTrue(Arrays.equals(new byte[] { 10, 20, 30, 40 }, payload));
+		// subscribers run in order on the topic's lane, so the text one is done
+		assertTrue(receiver.text.isEmpty());
+		assertTrue(textOnly.isEmpty());
+	}
+
+	public void testReconnectAfterPeerDisconnect() throws InterruptedException {
+		Receiver receiver = new Receiver(1);
+		client.subscribe("echo", receiver);
+		peer.link.disconnect(1001, "restart");
+		assertTrue(receiver.reconnected.await(2, TimeUnit.SECONDS));
+		assertEquals(2, peer.connects);
+
+		client.publish("echo", "again", false);
+		assertTrue(receiver.latch.await(2, TimeUnit.SECONDS));
+	}
+
+	public void testPublishOrderSurvivesReconnect() throws InterruptedException {
+		final int count = 2000;
+		Thread publisher = new Thread() {
+			public void run() {
+				for(int i = 0; i < count; i++) {
+					client.publish("ordered", Integer.toString(i), false);
+				}
+			}
+		};
+		publisher.start();
+		while(peer.count(TopicConstants.PUBLISH_AT) < 100) {
+			Thread.sleep(1);
+		}
+		peer.link.disconnect(1001, "restart");
+		publisher.join(5000);
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while(peer.count(TopicConstants.PUBLISH_AT) < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, peer.connects);
+		int last = -1;
+		for(JsonObject envelope : peer.envelopes) {
+			if(!envelope.get(TopicConstants.MSG).getAsString().equals(TopicConstants.PUBLISH_AT))
+				continue;
+			int value = Integer.parseInt(envelope.get(TopicConstants.DATA).getAsString());
+			assertTrue(value + " after " + last, value > last);
+			last = value;
+		}
+		assertEquals(count - 1, last);
+	}
+
+	public void testSubscribeIsSentOncePerTopic() throws InterruptedException {
+		Receiver first = new Receiver(1);
+		client.subscribe("echo", first);
+		client.subscribe("echo", new Receiver(1));
+		client.subscribe("echo", first);
+		client.publish("echo", "hello", false);
+		assertTrue(first.latch.await(2, TimeUnit.SECONDS));
+		assertEquals(1, peer.count(TopicConstants.SUBSCRIBE));
+
+		peer.link.disconnect(1001, "restart");
+		assertTrue(first.reconnected.await(2, TimeUnit.SECONDS));
+		Receiver again = new Receiver(1);
+		client.subscribe("echo", again);
+		client.publish("echo", "again", false);
+		assertTrue(again.latch.await(2, TimeUnit.SECONDS));
+		assertEquals(2, peer.count(TopicConstants.SUBSCRIBE));
+	}
+
+	/**
+	 * Sends every publish straight back to the client
+	 */
+	private static class EchoPeer implements LoopbackTransport.Peer {
+
+		final List<JsonObject> envelopes = new CopyOnWriteArrayList<JsonObject>();
+		volatile LoopbackTransport.Link link;
+		volatile int connects = 0;
+
+		public boolean onConnect(LoopbackTransport.Link link, String selfId, String token) {
+			this.link = link;
+			connects++;
+			return true;
+		}
+
+		public void onFrame(LoopbackTransport.Link link, OutboundFrame frame) {
+			JsonObject envelope = frame.getEnvelope();
+			envelopes.add(envelope);
+			if(!envelope.get(TopicConstants.MSG).getAsString().equals(TopicConstants.PUBLISH_AT))
+				return;
+			String topic = envelope.get(TopicConstants.TARGETS).getAsJsonArray().get(0).getAsString();
+			if(frame.isBinary())
+				link.deliver(new TopicMessage(topic, frame.getPayload()));
+			else
+				link.deliver(new TopicMessage(topic, envelope.get(TopicConstants.DATA).getAsString()));
+		}
+
+		public void onDisconnect(LoopbackTransport.Link link) {}
+
+		int count(String msg) {
+			int count = 0;
+			for(JsonObject envelope : envelopes) {
+				if(envelope.get(TopicConstants.MSG).getAsString().equals(msg))
+					count++;
+			}
+			return count;
+		}
+	}
+
+	private static class Receiver implements IBinaryEvent {
+
+		final CountDownLatch latch;
+		final CountDownLatch reconnected = new CountDownLatch(1);
+		final List<String> text = new CopyOnWriteArrayList<String>();
+		final List<ByteBuffer> binary = new CopyOnWriteArrayList<ByteBuffer>();
+		final List<TopicMessage> headers = new CopyOnWriteArrayList<TopicMessage>();
+
+		Receiver(int messages) {
+			latch = new CountDownLatch(messages);
+		}
+
+		public void onEvent(String event) {
+			text.add(event);
+			latch.countDown();
+		}
+
+		public void onBinaryEvent(TopicMessage header, ByteBuffer data) {
+			headers.add(header);
+			binary.add(data);
+			latch.countDown();
+		}
+
+		public boolean isActive() { return true; }
+		public void shutdown() {}
+		public void onDisconnect() {}
+		public void onReconnect() { reconnected.countDown(); }
+	}
+}
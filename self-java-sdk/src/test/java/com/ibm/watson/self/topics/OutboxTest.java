@@ -0,0 +1,114 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+import junit.framework.TestCase;
+
+public class OutboxTest extends TestCase {
+
+	public void testReplayInPublishOrder() {
+		Outbox outbox = new Outbox();
+		OutboundFrame first = frame("blackboard");
+		OutboundFrame second = frame("gesture-manager");
+		OutboundFrame third = frame("blackboard");
+		outbox.add(first);
+		outbox.add(second);
+		outbox.add(third);
+
+		List<OutboundFrame> frames = outbox.drain();
+		assertEquals(3, frames.size());
+		assertSame(first, frames.get(0));
+		assertSame(second, frames.get(1));
+		assertSame(third, frames.get(2));
+		assertEquals(3, outbox.getReplayed());
+		assertEquals(0, outbox.getSize());
+	}
+
+	public void testFramesKeepTheirPlaceWhenAddedLate() {
+		Outbox outbox = new Outbox();
+		// built first but handed back by the writer after a later publish
+		OutboundFrame failed = frame("blackboard");
+		OutboundFrame later = frame("blackboard");
+		outbox.add(later);
+		outbox.add(failed);
+
+		List<OutboundFrame> frames = outbox.drain();
+		assertSame(failed, frames.get(0));
+		assertSame(later, frames.get(1));
+	}
+
+	public void testDropOldestKeepsNewest() {
+		Outbox outbox = new Outbox();
+		outbox.setPolicy("sensor-proxy-", OutboxPolicy.dropOldest(2));
+		outbox.add(frame("sensor-proxy-1"));
+		OutboundFrame second = frame("sensor-proxy-1");
+		OutboundFrame third = frame("sensor-proxy-1");
+		outbox.add(second);
+		outbox.add(third);
+
+		List<OutboundFrame> frames = outbox.drain();
+		assertEquals(2, frames.size());
+		assertSame(second, frames.get(0));
+		assertEquals(1, outbox.getDropped());
+	}
+
+	public void testCapacityAndDiscard() {
+		Outbox outbox = new Outbox(1);
+		outbox.setPolicy("audio", OutboxPolicy.discard());
+		assertFalse(outbox.add(frame("audio")));
+		assertTrue(outbox.add(frame("blackboard")));
+		assertFalse(outbox.add(frame("blackboard")));
+		assertEquals(2, outbox.getDropped());
+	}
+
+	public void testControlFramesAreKept() {
+		Outbox outbox = new Outbox();
+		OutboundFrame publish = frame("blackboard");
+		OutboundFrame control = new OutboundFrame(null, new JsonObject());
+		OutboundFrame subscribe = new OutboundFrame(null, new JsonObject());
+		subscribe.setSessionOnly(true);
+		outbox.add(publish);
+		assertTrue(outbox.add(control));
+		assertFalse(outbox.add(subscribe));
+
+		List<OutboundFrame> frames = outbox.drain();
+		assertEquals(2, frames.size());
+		assertSame(publish, frames.get(0));
+		assertSame(control, frames.get(1));
+
+		outbox.setControlPolicy(OutboxPolicy.discard());
+		assertFalse(outbox.add(new OutboundFrame(null, new JsonObject())));
+	}
+
+	public void testExpiredFramesAreNotReplayed() throws InterruptedException {
+		Outbox outbox = new Outbox();
+		outbox.setDefaultPolicy(OutboxPolicy.keepAll(1));
+		outbox.add(frame("blackboard"));
+		Thread.sleep(5);
+		assertTrue(outbox.drain().isEmpty());
+		assertEquals(1, outbox.getExpired());
+	}
+
+	private static OutboundFrame frame(String topic) {
+		return new OutboundFrame(topic, new JsonObject());
+	}
+}
@@ -0,0 +1,47 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import junit.framework.TestCase;
+
+public class PrefixMapTest extends TestCase {
+
+	public void testLongestPrefixWins() {
+		PrefixMap<String> map = new PrefixMap<String>("default");
+		map.put("sensor-", "sensor");
+		map.put("sensor-proxy-", "proxy");
+		map.put("s", "s");
+
+		assertEquals("proxy", map.get("sensor-proxy-1"));
+		assertEquals("sensor", map.get("sensor-audio"));
+		assertEquals("s", map.get("speech"));
+		assertEquals("default", map.get("conversation"));
+		assertEquals("default", map.get(null));
+	}
+
+	public void testReplaceAndRemove() {
+		PrefixMap<String> map = new PrefixMap<String>("default");
+		map.put("sensor-", "sensor");
+		map.put("sensor-", "again");
+		assertEquals("again", map.get("sensor-audio"));
+
+		assertEquals("again", map.remove("sensor-"));
+		assertNull(map.remove("sensor-"));
+		assertEquals("default", map.get("sensor-audio"));
+	}
+}
@@ -0,0 +1,72 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import junit.framework.TestCase;
+
+public class ReconnectPolicyTest extends TestCase {
+
+	public void testBackoffGrowsUntilTheCap() {
+		ReconnectPolicy policy = new ReconnectPolicy(100, 1000, 2.0, false);
+		assertEquals(100, policy.getDelay(0));
+		assertEquals(200, policy.getDelay(1));
+		assertEquals(400, policy.getDelay(2));
+		assertEquals(800, policy.getDelay(3));
+		assertEquals(1000, policy.getDelay(4));
+		assertEquals(1000, policy.getDelay(10000));
+	}
+
+	public void testJitterStaysWithinTheBackoff() {
+		ReconnectPolicy policy = new ReconnectPolicy(100, 1000, 2.0, true);
+		for(int attempt = 0; attempt < 8; attempt++) {
+			long ceiling = Math.min(1000, 100L << attempt);
+			long smallest = Long.MAX_VALUE;
+			long largest = 0;
+			for(int i = 0; i < 2000; i++) {
+				long delay = policy.getDelay(attempt);
+				assertTrue(delay >= 0 && delay <= ceiling);
+				smallest = Math.min(smallest, delay);
+				largest = Math.max(largest, delay);
+			}
+			// full jitter spreads the delays over the whole range
+			assertTrue(smallest < ceiling / 4);
+			assertTrue(largest > ceiling * 3 / 4);
+		}
+	}
+
+	public void testInvalidPolicies() {
+		try {
+			new ReconnectPolicy(-1, 1000, 2.0, true);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+		try {
+			new ReconnectPolicy(1000, 100, 2.0, true);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+		try {
+			new ReconnectPolicy(100, 1000, 0.5, true);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+}
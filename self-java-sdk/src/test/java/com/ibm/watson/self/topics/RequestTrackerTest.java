@@ -0,0 +1,92 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.StringReader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+
+public class RequestTrackerTest extends TestCase {
+
+	private static final String SELF = "robot/";
+
+	private ScheduledExecutorService scheduler;
+	private RequestTracker tracker;
+
+	protected void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		tracker = new RequestTracker(scheduler);
+	}
+
+	protected void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	public void testReplyCompletesRequest() throws Exception {
+		String id = tracker.nextId();
+		CompletableFuture<TopicMessage> future = tracker.register(id, 1, TimeUnit.SECONDS);
+
+		assertFalse(tracker.complete(new TopicMessage("blackboard", "{\"event\":\"add_object\"}"), SELF));
+		assertFalse(tracker.complete(new TopicMessage("blackboard", "not json request_id"), SELF));
+		TopicMessage reply = new TopicMessage("blackboard", 
+				"{\"event\":\"get_parent\",\"thing\":{\"a\":1},\"request_id\":\"" + id + "\"}");
+		assertTrue(tracker.complete(reply, SELF));
+		assertSame(reply, future.get(1, TimeUnit.SECONDS));
+		assertFalse(tracker.complete(reply, SELF));
+		assertEquals(0, tracker.getPending());
+		assertEquals(1, tracker.getCompleted());
+	}
+
+	public void testOwnRequestIsNotAReply() throws Exception {
+		String id = tracker.nextId();
+		CompletableFuture<TopicMessage> future = tracker.register(id, 1, TimeUnit.SECONDS);
+		String data = "{\\\"event\\\":\\\"get_parent\\\",\\\"request_id\\\":\\\"" + id + "\\\"}";
+
+		TopicMessage echo = TopicMessage.parse(new StringReader(
+				"{\"topic\":\"blackboard\",\"origin\":\"" + SELF + "\",\"data\":\"" + data + "\"}"));
+		assertFalse(tracker.complete(echo, SELF));
+		assertFalse(future.isDone());
+
+		TopicMessage reply = TopicMessage.parse(new StringReader(
+				"{\"topic\":\"blackboard\",\"origin\":\"intu/\",\"data\":\"" + data + "\"}"));
+		assertTrue(tracker.complete(reply, SELF));
+		assertSame(reply, future.get(1, TimeUnit.SECONDS));
+	}
+
+	public void testRequestTimesOut() throws InterruptedException {
+		CompletableFuture<TopicMessage> future = tracker.register(tracker.nextId(), 20, TimeUnit.MILLISECONDS);
+		try {
+			future.get(1, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		catch (TimeoutException e) {
+			fail();
+		}
+		assertEquals(0, tracker.getPending());
+		assertEquals(1, tracker.getTimedOut());
+	}
+}
@@ -0,0 +1,114 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonWriter;
+
+import junit.framework.TestCase;
+import okio.Buffer;
+
+public class TopicChannelTest extends TestCase {
+
+	private TopicClient client;
+
+	protected void setUp() {
+		client = new TopicClient();
+		client.setHeaders("self", "token");
+	}
+
+	protected void tearDown() {
+		client.close();
+	}
+
+	public void testTextFrame() throws IOException {
+		client.channel("conversation", true).send("say \"hi\"\n");
+
+		Buffer buffer = write(single());
+		JsonObject envelope = new JsonParser().parse(buffer.readUtf8()).getAsJsonObject();
+		assertEquals("conversation", envelope.get(TopicConstants.TARGETS).getAsJsonArray().get(0).getAsString());
+		assertEquals(TopicConstants.PUBLISH_AT, envelope.get(TopicConstants.MSG).getAsString());
+		assertFalse(envelope.get(TopicConstants.BINARY).getAsBoolean());
+		assertTrue(envelope.get(TopicConstants.PERSISTED).getAsBoolean());
+		assertEquals("self/.", envelope.get(TopicConstants.ORIGIN).getAsString());
+		assertEquals("say \"hi\"\n", envelope.get(TopicConstants.DATA).getAsString());
+	}
+
+	public void testBinaryFrame() throws IOException {
+		TopicChannel channel = client.channel("sensor-proxy-1", false);
+		channel.send(new byte[] { 1, 2, 3 });
+		OutboundFrame frame = single();
+
+		Buffer buffer = write(frame);
+		assertEquals(buffer.size(), frame.contentLength());
+		TopicMessage message = TopicMessage.parse(buffer.readByteArray());
+		assertEquals("3", message.getData());
+		assertEquals(3, message.getPayload().remaining());
+		assertEquals(3, message.getPayload().get(2));
+	}
+
+	public void testStreamedFrame() throws IOException {
+		final JsonObject data = new JsonObject();
+		data.addProperty("m_Text", "line\n\"quoted\" \u2028 \\ \u0001");
+		data.addProperty("m_fConfidence", 0.5);
+		data.addProperty("m_bLocal", true);
+		client.channel("blackboard", false).send(new IDataWriter() {
+			public void write(JsonWriter writer) throws IOException {
+				Streams.write(data, writer);
+			}
+		});
+		OutboundFrame frame = single();
+
+		JsonObject envelope = new JsonParser().parse(write(frame).readUtf8()).getAsJsonObject();
+		String streamed = envelope.get(TopicConstants.DATA).getAsString();
+		assertEquals(data, new JsonParser().parse(streamed));
+		assertEquals(streamed.length(), frame.getDataSize());
+		assertEquals(data.toString(), frame.getEnvelope().get(TopicConstants.DATA).getAsString());
+	}
+
+	public void testOriginFollowsSelfId() throws IOException {
+		TopicChannel channel = client.channel("conversation", false);
+		channel.send("a");
+		single();
+		client.setHeaders("other", "token");
+		channel.send("b");
+
+		JsonObject envelope = new JsonParser().parse(write(single()).readUtf8()).getAsJsonObject();
+		assertEquals("other/.", envelope.get(TopicConstants.ORIGIN).getAsString());
+	}
+
+	/**
+	 * The client is never connected, so sends land in its outbox
+	 */
+	private OutboundFrame single() {
+		List<OutboundFrame> frames = client.getOutbox().drain();
+		assertEquals(1, frames.size());
+		return frames.get(0);
+	}
+
+	private static Buffer write(OutboundFrame frame) throws IOException {
+		Buffer buffer = new Buffer();
+		frame.writeTo(buffer);
+		return buffer;
+	}
+}
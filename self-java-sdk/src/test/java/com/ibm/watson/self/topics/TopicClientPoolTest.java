@@ -0,0 +1,181 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class TopicClientPoolTest extends TestCase {
+
+	private static final int TOPICS = 2000;
+
+	private TopicClientPool pool;
+	private TopicClient[] clients;
+
+	protected void setUp() {
+		pool = new TopicClientPool();
+		clients = new TopicClient[5];
+		for(int i = 0; i < clients.length; i++) {
+			clients[i] = new TopicClient();
+		}
+		for(int i = 0; i < 4; i++) {
+			pool.add(clients[i], "robot-" + i);
+		}
+	}
+
+	protected void tearDown() {
+		pool.disconnect();
+		for(TopicClient client : clients) {
+			client.close();
+		}
+	}
+
+	public void testTopicsSpreadEvenly() {
+		Map<TopicClient, Integer> counts = new HashMap<TopicClient, Integer>();
+		for(int i = 0; i < TOPICS; i++) {
+			TopicClient client = pool.getClient("topic-" + i);
+			Integer count = counts.get(client);
+			counts.put(client, count == null ? 1 : count + 1);
+		}
+		assertEquals(4, counts.size());
+		for(Integer count : counts.values()) {
+			assertTrue("unbalanced: " + count, count > TOPICS / 4 / 2);
+		}
+	}
+
+	public void testAddingConnectionOnlyMovesTopicsToIt() {
+		TopicClient[] before = new TopicClient[TOPICS];
+		for(int i = 0; i < TOPICS; i++) {
+			before[i] = pool.getClient("topic-" + i);
+		}
+		pool.add(clients[4], "robot-4");
+		int moved = 0;
+		for(int i = 0; i < TOPICS; i++) {
+			TopicClient after = pool.getClient("topic-" + i);
+			if(after != before[i]) {
+				assertSame(clients[4], after);
+				moved++;
+			}
+		}
+		assertTrue(moved > 0 && moved < TOPICS / 2);
+
+		pool.remove(clients[4]);
+		for(int i = 0; i < TOPICS; i++) {
+			assertSame(before[i], pool.getClient("topic-" + i));
+		}
+	}
+
+	public void testRemoveStopsTheConnectionsThreads() throws InterruptedException {
+		int before = clientThreads();
+		TopicClient extra = new TopicClient();
+		assertTrue(clientThreads() > before);
+		pool.add(extra, "robot-extra");
+		assertTrue(pool.remove(extra));
+
+		long deadline = System.currentTimeMillis() + 2000;
+		while(clientThreads() > before && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(before, clientThreads());
+		assertEquals(ConnectionState.CLOSED, extra.getState());
+		try {
+			extra.connect("localhost", "9443");
+			fail();
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+
+	public void testRulesOverrideRing() {
+		IEvent event = new Subscriber();
+		pool.subscribe("sensor-proxy-camera", event);
+		pool.route("sensor-proxy-", clients[4]);
+		assertSame(clients[4], pool.getClient("sensor-proxy-camera"));
+		assertEquals(1, clients[4].getRegistry().get("sensor-proxy-camera").length);
+		pool.unroute("sensor-proxy-");
+		assertNotSame(clients[4], pool.getClient("sensor-proxy-camera"));
+		assertEquals(0, clients[4].getRegistry().get("sensor-proxy-camera").length);
+	}
+
+	public void testSubscriptionsMoveWithTheirTopics() {
+		IEvent event = new Subscriber();
+		for(int i = 0; i < 200; i++) {
+			pool.subscribe("topic-" + i, event);
+		}
+		pool.subscribe("sensor-*", event);
+		pool.add(clients[4], "robot-4");
+		assertSubscribedOnOwner(200, event);
+		assertEquals(1, clients[4].getRegistry().get("sensor-camera").length);
+
+		pool.remove(clients[1]);
+		assertSubscribedOnOwner(200, event);
+
+		for(int i = 0; i < 200; i++) {
+			assertTrue(pool.unsubscribe("topic-" + i, event));
+		}
+		for(int i = 0; i < clients.length; i++) {
+			assertEquals(0, clients[i].getRegistry().get("topic-0").length);
+		}
+	}
+
+	public void testDuplicateNameIsRejected() {
+		try {
+			pool.add(clients[4], "robot-0");
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+		assertEquals(4, pool.getClients().size());
+	}
+
+	/**
+	 * Every topic is subscribed on the connection carrying it and on no
+	 * other connection of the pool
+	 */
+	private void assertSubscribedOnOwner(int topics, IEvent event) {
+		for(int i = 0; i < topics; i++) {
+			String topic = "topic-" + i;
+			TopicClient owner = pool.getClient(topic);
+			for(TopicClient client : pool.getClients()) {
+				assertEquals(topic, client == owner ? 1 : 0, client.getRegistry().get(topic).length);
+			}
+		}
+	}
+
+	/**
+	 * @return live threads started by TopicClients
+	 */
+	private static int clientThreads() {
+		int count = 0;
+		for(Thread thread : Thread.getAllStackTraces().keySet()) {
+			if(thread.isAlive() && thread.getName().startsWith("TopicClient-"))
+				count++;
+		}
+		return count;
+	}
+
+	private static class Subscriber implements IEvent {
+		public void onEvent(String event) {}
+		public boolean isActive() { return true; }
+		public void shutdown() {}
+		public void onDisconnect() {}
+		public void onReconnect() {}
+	}
+}
@@ -0,0 +1,194 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.watson.self.topics.TopicDispatcher.OverflowPolicy;
+
+import junit.framework.TestCase;
+
+public class TopicDispatcherTest extends TestCase {
+
+	private TopicDispatcher dispatcher;
+
+	protected void tearDown() {
+		if(dispatcher != null)
+			dispatcher.shutdown();
+	}
+
+	public void testPolicyFollowsTopicPrefix() {
+		dispatcher = new TopicDispatcher(new Recorder(0, false));
+		dispatcher.setOverflowPolicy("sensor-proxy-", OverflowPolicy.DROP_OLDEST);
+		assertEquals(OverflowPolicy.BLOCK, dispatcher.getOverflowPolicy());
+		assertEquals(OverflowPolicy.BLOCK, dispatcher.getOverflowPolicy("gesture-manager"));
+		assertEquals(OverflowPolicy.DROP_OLDEST, dispatcher.getOverflowPolicy("sensor-proxy-camera"));
+	}
+
+	public void testStreamDropsWhileControlWaits() throws InterruptedException {
+		Recorder recorder = new Recorder(4, true);
+		dispatcher = new TopicDispatcher(recorder, 1, 2, OverflowPolicy.BLOCK);
+		dispatcher.setOverflowPolicy("sensor-", OverflowPolicy.DROP_OLDEST);
+		dispatcher.dispatch(new TopicMessage("t", "0"));
+		assertTrue(recorder.started.await(2, TimeUnit.SECONDS));
+		for(int i = 1; i <= 3; i++) {
+			dispatcher.dispatch(new TopicMessage("sensor-1", Integer.toString(i)));
+		}
+		assertEquals(1, dispatcher.getDropped());
+
+		Thread reader = new Thread() {
+			public void run() {
+				dispatcher.dispatch(new TopicMessage("t", "4"));
+			}
+		};
+		reader.start();
+		reader.join(100);
+		assertTrue(reader.isAlive());
+
+		recorder.release.countDown();
+		reader.join(2000);
+		assertFalse(reader.isAlive());
+		assertTrue(recorder.done.await(2, TimeUnit.SECONDS));
+		assertEquals("[2, 3]", recorder.dataOf("sensor-1").toString());
+		assertEquals("[0, 4]", recorder.dataOf("t").toString());
+	}
+
+	public void testMessagesOfATopicStayInOrder() throws InterruptedException {
+		Recorder recorder = new Recorder(4 * 500, false);
+		dispatcher = new TopicDispatcher(recorder, 4, 4096, OverflowPolicy.DROP_NEWEST);
+		for(int i = 0; i < 500; i++) {
+			for(int topic = 0; topic < 4; topic++) {
+				dispatcher.dispatch(new TopicMessage("topic-" + topic, Integer.toString(i)));
+			}
+		}
+		assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+		for(int topic = 0; topic < 4; topic++) {
+			List<String> data = recorder.dataOf("topic-" + topic);
+			assertEquals(500, data.size());
+			for(int i = 0; i < 500; i++) {
+				assertEquals(Integer.toString(i), data.get(i));
+			}
+		}
+		assertEquals(0, dispatcher.getDropped());
+	}
+
+	public void testDropNewest() throws InterruptedException {
+		Recorder recorder = fillLane(OverflowPolicy.DROP_NEWEST);
+		assertEquals(3, dispatcher.getDropped());
+		recorder.release.countDown();
+		assertTrue(recorder.done.await(2, TimeUnit.SECONDS));
+		assertEquals("[0, 1, 2]", recorder.dataOf("t").toString());
+	}
+
+	public void testDropOldest() throws InterruptedException {
+		Recorder recorder = fillLane(OverflowPolicy.DROP_OLDEST);
+		assertEquals(3, dispatcher.getDropped());
+		recorder.release.countDown();
+		assertTrue(recorder.done.await(2, TimeUnit.SECONDS));
+		assertEquals("[0, 4, 5]", recorder.dataOf("t").toString());
+	}
+
+	public void testBlockWaitsForRoom() throws InterruptedException {
+		Recorder recorder = new Recorder(4, true);
+		dispatcher = new TopicDispatcher(recorder, 1, 2, OverflowPolicy.BLOCK);
+		dispatcher.dispatch(new TopicMessage("t", "0"));
+		assertTrue(recorder.started.await(2, TimeUnit.SECONDS));
+		dispatcher.dispatch(new TopicMessage("t", "1"));
+		dispatcher.dispatch(new TopicMessage("t", "2"));
+
+		Thread reader = new Thread() {
+			public void run() {
+				dispatcher.dispatch(new TopicMessage("t", "3"));
+			}
+		};
+		reader.start();
+		reader.join(100);
+		assertTrue(reader.isAlive());
+
+		recorder.release.countDown();
+		reader.join(2000);
+		assertFalse(reader.isAlive());
+		assertTrue(recorder.done.await(2, TimeUnit.SECONDS));
+		assertEquals("[0, 1, 2, 3]", recorder.dataOf("t").toString());
+		assertEquals(0, dispatcher.getDropped());
+	}
+
+	/**
+	 * One lane holding two messages, its thread stuck on message 0 while
+	 * messages 1 to 5 arrive
+	 */
+	private Recorder fillLane(OverflowPolicy policy) throws InterruptedException {
+		Recorder recorder = new Recorder(3, true);
+		dispatcher = new TopicDispatcher(recorder, 1, 2, policy);
+		dispatcher.dispatch(new TopicMessage("t", "0"));
+		assertTrue(recorder.started.await(2, TimeUnit.SECONDS));
+		for(int i = 1; i <= 5; i++) {
+			dispatcher.dispatch(new TopicMessage("t", Integer.toString(i)));
+		}
+		assertEquals(2, dispatcher.getQueueDepth(0));
+		return recorder;
+	}
+
+	/**
+	 * Records what it handles, optionally holding the first message until released
+	 */
+	private static class Recorder implements TopicDispatcher.Handler {
+
+		final List<TopicMessage> handled = Collections.synchronizedList(new ArrayList<TopicMessage>());
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done;
+		final boolean hold;
+
+		Recorder(int expected, boolean hold) {
+			this.done = new CountDownLatch(expected);
+			this.hold = hold;
+		}
+
+		public void handle(TopicMessage message) {
+			if(started.getCount() > 0) {
+				started.countDown();
+				if(hold) {
+					try {
+						release.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+			handled.add(message);
+			done.countDown();
+		}
+
+		List<String> dataOf(String topic) {
+			List<String> data = new ArrayList<String>();
+			synchronized(handled) {
+				for(TopicMessage message : handled) {
+					if(message.getTopic().equals(topic))
+						data.add(message.getData());
+				}
+			}
+			return data;
+		}
+	}
+}
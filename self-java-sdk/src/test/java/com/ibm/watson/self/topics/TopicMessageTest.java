@@ -0,0 +1,99 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import junit.framework.TestCase;
+
+public class TopicMessageTest extends TestCase {
+
+	public void testDataAsString() throws IOException {
+		TopicMessage message = parse("{\"topic\":\"conversation\",\"origin\":\"robot/\","
+				+ "\"binary\":false,\"persisted\":true,\"data\":\"hello\"}");
+		assertEquals("conversation", message.getTopic());
+		assertEquals("robot/", message.getOrigin());
+		assertTrue(message.hasBinary());
+		assertFalse(message.isBinary());
+		assertEquals("hello", message.getData());
+		assertEquals(5, message.getDataSize());
+		assertNull(message.getPayload());
+	}
+
+	public void testDataAsObject() throws IOException {
+		TopicMessage message = parse("{\"topic\":\"blackboard\",\"data\":{\"event\":\"add_object\",\"n\":[1,2]}}");
+		assertEquals("{\"event\":\"add_object\",\"n\":[1,2]}", message.getData());
+		assertEquals("add_object", message.getDataAsJson().getAsJsonObject().get("event").getAsString());
+		assertSame(message.getDataAsJson(), message.getDataAsJson());
+	}
+
+	public void testMissingFields() throws IOException {
+		TopicMessage message = parse("{\"unknown\":[1,{\"x\":2}]}");
+		assertNull(message.getTopic());
+		assertNull(message.getOrigin());
+		assertNull(message.getData());
+		assertFalse(message.hasBinary());
+		assertEquals(0, message.getDataSize());
+	}
+
+	public void testMalformedInput() throws IOException {
+		String[] inputs = { "", "[1,2]", "{\"topic\":", "{\"topic\":\"a\",\"data\":{\"x\":}}", 
+				"{\"binary\":\"yes\"}" };
+		for(String input : inputs) {
+			try {
+				parse(input);
+				fail("parsed " + input);
+			}
+			catch (MalformedJsonException e) {
+			}
+		}
+	}
+
+	public void testBinaryFrame() throws IOException {
+		byte[] header = "{\"topic\":\"audio\",\"binary\":true,\"data\":3}".getBytes("UTF-8");
+		byte[] frame = new byte[header.length + 4];
+		System.arraycopy(header, 0, frame, 0, header.length);
+		frame[header.length + 1] = 7;
+		frame[header.length + 2] = 8;
+		frame[header.length + 3] = 9;
+
+		TopicMessage message = TopicMessage.parse(frame);
+		assertEquals("audio", message.getTopic());
+		assertTrue(message.isBinary());
+		ByteBuffer payload = message.getPayload();
+		assertTrue(payload.isReadOnly());
+		assertEquals(3, payload.remaining());
+		assertEquals(7, payload.get());
+		assertEquals(3, message.getPayload().remaining());
+	}
+
+	public void testDataBytesAreCopied() throws IOException {
+		TopicMessage message = parse("{\"topic\":\"t\",\"data\":\"abc\"}");
+		byte[] bytes = message.getDataBytes();
+		bytes[0] = 'x';
+		assertEquals('a', message.getDataBytes()[0]);
+	}
+
+	private static TopicMessage parse(String json) throws IOException {
+		return TopicMessage.parse(new StringReader(json));
+	}
+}
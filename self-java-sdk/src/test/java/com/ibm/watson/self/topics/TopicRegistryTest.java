@@ -0,0 +1,77 @@
+/**
+* Copyright 2016 IBM Corp. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+
+package com.ibm.watson.self.topics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TopicRegistryTest extends TestCase {
+
+	private TopicRegistry registry;
+	private IEvent first;
+	private IEvent second;
+
+	protected void setUp() {
+		registry = new TopicRegistry();
+		first = new NullEvent();
+		second = new NullEvent();
+	}
+
+	public void testSharedTopic() {
+		assertTrue(registry.add("blackboard", first));
+		assertFalse(registry.add("blackboard", second));
+		assertFalse(registry.add("blackboard", second));
+		assertEquals(2, registry.get("blackboard").length);
+
+		assertFalse(registry.remove("blackboard", first));
+		assertEquals(1, registry.get("blackboard").length);
+		assertTrue(registry.remove("blackboard", second));
+		assertEquals(0, registry.get("blackboard").length);
+	}
+
+	public void testPatternMatch() {
+		registry.add("sensor-proxy-*", first);
+		registry.add("sensor-proxy-abc", second);
+
+		List<IEvent> matches = Arrays.asList(registry.get("sensor-proxy-abc"));
+		assertEquals(2, matches.size());
+		assertTrue(matches.contains(first));
+		assertEquals(1, registry.get("sensor-proxy-").length);
+		assertEquals(0, registry.get("sensor-manager").length);
+		assertFalse(registry.getPaths().contains("sensor-proxy-*"));
+
+		assertTrue(registry.remove("sensor-proxy-*", first));
+		assertEquals(1, registry.get("sensor-proxy-abc").length);
+	}
+
+	public void testWildcardMatchesEverything() {
+		registry.add("*", first);
+		assertEquals(1, registry.get("gesture-manager").length);
+		assertEquals(1, registry.getSubscribers().size());
+	}
+
+	private static class NullEvent implements IEvent {
+		public void onEvent(String event) {}
+		public boolean isActive() { return true; }
+		public void shutdown() {}
+		public void onDisconnect() {}
+		public void onReconnect() {}
+	}
+}